@@ -0,0 +1,278 @@
+package com.safeai.neo4jplugin;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * AgentExecutor runs agent code on a bounded pool of daemon threads under a budget of wall-clock
+ * time, CPU time and allocated bytes, all counted from the moment a worker picks the agent up,
+ * so time spent waiting in the queue does not count against it. The calling thread waits in
+ * short slices and samples the worker's CPU time and allocations through {@code ThreadMXBean};
+ * an agent that exceeds any limit is interrupted (Groovy agents are compiled to check for interrupts) and its result is
+ * discarded.
+ *
+ * An agent that exceeds its budget {@code agent.quarantine.violations} times in a row is
+ * quarantined: its executions are refused for {@code agent.quarantine.ms}.
+ */
+public final class AgentExecutor {
+    private static final Logger logger = Logger.getLogger(AgentExecutor.class.getName());
+
+    private static final long SAMPLE_MILLIS = 10;
+
+    private static final AgentExecutor DEFAULT = new AgentExecutor(
+        Integer.parseInt(MainPlugin.getConfigProperty("agent.executor.threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors()))),
+        Integer.parseInt(MainPlugin.getConfigProperty("agent.executor.queue", "64")),
+        new Budget(
+            Long.parseLong(MainPlugin.getConfigProperty("agent.budget.wall.ms", "10000")),
+            Long.parseLong(MainPlugin.getConfigProperty("agent.budget.cpu.ms", "5000")),
+            Long.parseLong(MainPlugin.getConfigProperty("agent.budget.alloc.mb", "256")) * 1024 * 1024),
+        Integer.parseInt(MainPlugin.getConfigProperty("agent.quarantine.violations", "3")),
+        Long.parseLong(MainPlugin.getConfigProperty("agent.quarantine.ms", "600000")));
+
+    public enum Outcome { COMPLETED, FAILED, WALL_TIME_EXCEEDED, CPU_TIME_EXCEEDED, ALLOCATION_EXCEEDED, REJECTED, QUARANTINED }
+
+    /**
+     * Limits for one invocation; a limit of 0 or less is not enforced.
+     */
+    public static final class Budget {
+        public final long wallMillis;
+        public final long cpuMillis;
+        public final long allocatedBytes;
+
+        public Budget(long wallMillis, long cpuMillis, long allocatedBytes) {
+            this.wallMillis = wallMillis;
+            this.cpuMillis = cpuMillis;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * The outcome of one invocation and what it consumed.
+     */
+    public static final class Execution<T> {
+        public final String agentName;
+        public final Outcome outcome;
+        public final T value;
+        public final Throwable error;
+        public final long wallNanos;
+        public final long cpuNanos;
+        public final long allocatedBytes;
+
+        Execution(String agentName, Outcome outcome, T value, Throwable error, long wallNanos, long cpuNanos,
+                  long allocatedBytes) {
+            this.agentName = agentName;
+            this.outcome = outcome;
+            this.value = value;
+            this.error = error;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public boolean isCompleted() {
+            return outcome == Outcome.COMPLETED;
+        }
+
+        public boolean isBudgetViolation() {
+            return outcome == Outcome.WALL_TIME_EXCEEDED || outcome == Outcome.CPU_TIME_EXCEEDED
+                || outcome == Outcome.ALLOCATION_EXCEEDED;
+        }
+
+        /**
+         * The agent's result, or an exception describing why there is none.
+         */
+        public T get() {
+            if (outcome == Outcome.COMPLETED) {
+                return value;
+            }
+            String message = "Agent " + agentName + " " + outcome.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+            throw error != null ? new IllegalStateException(message + ": " + error.getMessage(), error)
+                : new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * Written under its own lock; {@code until} is also read without it, by executions checking
+     * whether the agent may run.
+     */
+    private static final class Quarantine {
+        int consecutiveViolations;
+        volatile long until;
+    }
+
+    /**
+     * Filled in by the worker so the caller can sample its resource usage.
+     */
+    private static final class Probe {
+        volatile long threadId = -1;
+        volatile long start;
+        volatile long cpuStart;
+        volatile long allocatedStart;
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final Budget budget;
+    private final int quarantineViolations;
+    private final long quarantineMillis;
+    private final Map<String, Quarantine> quarantines = new ConcurrentHashMap<>();
+    private final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations;
+
+    public AgentExecutor(int threads, int queueSize, Budget budget, int quarantineViolations, long quarantineMillis) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize), r -> {
+                Thread thread = new Thread(r, "safeai-agent-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.budget = budget;
+        this.quarantineViolations = quarantineViolations;
+        this.quarantineMillis = quarantineMillis;
+        this.allocations = this.threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemorySupported()
+            ? (com.sun.management.ThreadMXBean) this.threads : null;
+    }
+
+    public static AgentExecutor getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Calls the agent's {@code generateCandidate} under the default budget.
+     */
+    public Execution<Object> invokeCandidate(String agentName, CandidateGenerator agent, List<?> input) {
+        return execute(agentName, () -> agent.generateCandidate(input));
+    }
+
+    public <T> Execution<T> execute(String agentName, Callable<T> work) {
+        return execute(agentName, work, budget);
+    }
+
+    public <T> Execution<T> execute(String agentName, Callable<T> work, Budget limits) {
+        if (isQuarantined(agentName)) {
+            return new Execution<>(agentName, Outcome.QUARANTINED, null, null, 0, 0, 0);
+        }
+        Probe probe = new Probe();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long id = Thread.currentThread().getId();
+                probe.start = System.nanoTime();
+                probe.cpuStart = threads.getCurrentThreadCpuTime();
+                probe.allocatedStart = allocations != null ? allocations.getThreadAllocatedBytes(id) : 0;
+                probe.threadId = id;
+                return work.call();
+            });
+        } catch (RejectedExecutionException e) {
+            return new Execution<>(agentName, Outcome.REJECTED, null, e, 0, 0, 0);
+        }
+
+        Outcome outcome = null;
+        T value = null;
+        Throwable error = null;
+        long cpu = 0;
+        long allocated = 0;
+        while (outcome == null) {
+            try {
+                value = future.get(SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+                outcome = Outcome.COMPLETED;
+            } catch (TimeoutException e) {
+                // Still running; check the budget below
+            } catch (ExecutionException e) {
+                outcome = Outcome.FAILED;
+                error = e.getCause();
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                outcome = Outcome.FAILED;
+                error = e;
+            }
+            long threadId = probe.threadId;
+            if (threadId >= 0) {
+                long now = threads.getThreadCpuTime(threadId);
+                if (now >= 0) {
+                    cpu = now - probe.cpuStart;
+                }
+                if (allocations != null) {
+                    long bytes = allocations.getThreadAllocatedBytes(threadId);
+                    if (bytes >= 0) {
+                        allocated = bytes - probe.allocatedStart;
+                    }
+                }
+            }
+            if (outcome != null) {
+                break;
+            }
+            if (limits.wallMillis > 0 && threadId >= 0
+                    && System.nanoTime() - probe.start > limits.wallMillis * 1_000_000) {
+                outcome = Outcome.WALL_TIME_EXCEEDED;
+            } else if (limits.cpuMillis > 0 && cpu > limits.cpuMillis * 1_000_000) {
+                outcome = Outcome.CPU_TIME_EXCEEDED;
+            } else if (limits.allocatedBytes > 0 && allocated > limits.allocatedBytes) {
+                outcome = Outcome.ALLOCATION_EXCEEDED;
+            }
+            if (outcome != null) {
+                future.cancel(true);
+            }
+        }
+        long wall = probe.threadId >= 0 ? System.nanoTime() - probe.start : 0;
+        Execution<T> execution = new Execution<>(agentName, outcome, value, error, wall, cpu, allocated);
+        updateQuarantine(execution);
+        return execution;
+    }
+
+    public boolean isQuarantined(String agentName) {
+        return quarantinedUntil(agentName) != 0;
+    }
+
+    /**
+     * Returns the time the agent's quarantine ends, or 0 if it is not quarantined.
+     */
+    public long quarantinedUntil(String agentName) {
+        Quarantine quarantine = quarantines.get(agentName);
+        if (quarantine == null) {
+            return 0;
+        }
+        long until = quarantine.until;
+        return System.currentTimeMillis() < until ? until : 0;
+    }
+
+    public void release(String agentName) {
+        quarantines.remove(agentName);
+    }
+
+    private void updateQuarantine(Execution<?> execution) {
+        if (!execution.isBudgetViolation()) {
+            if (execution.outcome == Outcome.COMPLETED) {
+                quarantines.remove(execution.agentName);
+            }
+            return;
+        }
+        Quarantine quarantine = quarantines.computeIfAbsent(execution.agentName, name -> new Quarantine());
+        synchronized (quarantine) {
+            quarantine.consecutiveViolations++;
+            if (quarantineViolations > 0 && quarantine.consecutiveViolations >= quarantineViolations) {
+                quarantine.until = System.currentTimeMillis() + quarantineMillis;
+                quarantine.consecutiveViolations = 0;
+                logger.warning("Agent " + execution.agentName + " quarantined for " + quarantineMillis +
+                        " ms after repeated budget violations (last: " + execution.outcome + ")");
+            }
+        }
+    }
+}
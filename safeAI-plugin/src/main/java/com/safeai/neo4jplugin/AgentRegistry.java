@@ -1,17 +1,107 @@
 package com.safeai.neo4jplugin;
 
 import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+import com.safeai.neo4jplugin.kg.KGContentStore;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * AgentRegistry serves agent definitions from an immutable, indexed {@link Snapshot}. The KG file
+ * is parsed once; a daemon thread watches it and swaps in a new snapshot when it changes, so
+ * readers never block and never re-parse. A change that fails to parse keeps the previous
+ * snapshot. Returned agents are shared between callers and must not be modified.
+ */
+public class AgentRegistry implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(AgentRegistry.class.getName());
+
+    /**
+     * An immutable view of the registered agents with lookups by name, category and capability.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final String contentHash;
+        private final List<JSONObject> agents;
+        private final Map<String, JSONObject> byName;
+        private final Map<String, List<JSONObject>> byCategory;
+        private final Map<String, List<JSONObject>> byCapability;
+
+        Snapshot(long version, String contentHash, List<JSONObject> agents) {
+            this.version = version;
+            this.contentHash = contentHash;
+            this.agents = Collections.unmodifiableList(new ArrayList<>(agents));
+            Map<String, JSONObject> names = new HashMap<>();
+            Map<String, List<JSONObject>> categories = new HashMap<>();
+            Map<String, List<JSONObject>> capabilities = new HashMap<>();
+            for (JSONObject agent : agents) {
+                names.putIfAbsent(agent.optString("name"), agent);
+                if (agent.has("category")) {
+                    categories.computeIfAbsent(agent.getString("category"), k -> new ArrayList<>()).add(agent);
+                }
+                JSONArray caps = agent.optJSONArray("capabilities");
+                if (caps != null) {
+                    for (int i = 0; i < caps.length(); i++) {
+                        capabilities.computeIfAbsent(caps.getString(i), k -> new ArrayList<>()).add(agent);
+                    }
+                }
+            }
+            this.byName = Collections.unmodifiableMap(names);
+            this.byCategory = freeze(categories);
+            this.byCapability = freeze(capabilities);
+        }
+
+        private static Map<String, List<JSONObject>> freeze(Map<String, List<JSONObject>> index) {
+            Map<String, List<JSONObject>> frozen = new HashMap<>();
+            for (Map.Entry<String, List<JSONObject>> entry : index.entrySet()) {
+                frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(frozen);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<JSONObject> getAgents() {
+            return agents;
+        }
+
+        public JSONObject getAgent(String name) {
+            return byName.get(name);
+        }
+
+        public List<JSONObject> getAgentsByCategory(String category) {
+            return byCategory.getOrDefault(category, List.of());
+        }
+
+        public List<JSONObject> getAgentsByCapability(String capability) {
+            return byCapability.getOrDefault(capability, List.of());
+        }
+    }
+
+    private static final Snapshot FALLBACK = new Snapshot(0, null, fallbackAgents());
 
-public class AgentRegistry {
     private GraphRAG graphRAG;
     private String kgFilePath;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private WatchService watchService;
 
     // New constructor with KG file path
     public AgentRegistry(GraphRAG graphRAG, String kgFilePath) {
@@ -25,54 +115,177 @@ public class AgentRegistry {
     }
 
     public List<JSONObject> fetchAgents() {
-        if (kgFilePath != null) {
+        return getSnapshot().getAgents();
+    }
+
+    public JSONObject getAgent(String name) {
+        return getSnapshot().getAgent(name);
+    }
+
+    public List<JSONObject> getAgentsByCategory(String category) {
+        return getSnapshot().getAgentsByCategory(category);
+    }
+
+    public List<JSONObject> getAgentsByCapability(String capability) {
+        return getSnapshot().getAgentsByCapability(capability);
+    }
+
+    /**
+     * Returns the current snapshot, loading the KG file on first use.
+     */
+    public Snapshot getSnapshot() {
+        if (kgFilePath == null) {
+            return FALLBACK;
+        }
+        Snapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot.get();
+            if (current == null) {
+                try {
+                    current = load(Paths.get(kgFilePath), null);
+                } catch (Exception e) {
+                    throw new RuntimeException("Error loading KG JSON from " + kgFilePath, e);
+                }
+                snapshot.set(current);
+                startWatching();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Re-reads the KG file and swaps in a new snapshot if its content changed.
+     *
+     * @return true if a new snapshot was installed
+     */
+    public boolean reload() {
+        if (kgFilePath == null) {
+            return false;
+        }
+        synchronized (this) {
+            Snapshot previous = snapshot.get();
             try {
-                String content = new String(Files.readAllBytes(Paths.get(kgFilePath)), StandardCharsets.UTF_8);
-                JSONObject kg = new JSONObject(content);
-                JSONArray agentsArray = kg.getJSONArray("agents");
-                List<JSONObject> agents = new ArrayList<>();
-                for (int i = 0; i < agentsArray.length(); i++) {
-                    agents.add(agentsArray.getJSONObject(i));
+                Snapshot next = load(Paths.get(kgFilePath), previous);
+                if (next == previous) {
+                    return false;
                 }
-                return agents;
+                snapshot.set(next);
+                logger.info("Reloaded " + next.getAgents().size() + " agents from " + kgFilePath +
+                        " (version " + next.getVersion() + ")");
+                return true;
             } catch (Exception e) {
-                throw new RuntimeException("Error loading KG JSON from " + kgFilePath, e);
+                logger.warning("Keeping previous agent snapshot; could not reload " + kgFilePath + ": " + e.getMessage());
+                return false;
             }
-        } else {
-            List<JSONObject> agents = new ArrayList<>();
-            JSONObject agent = new JSONObject();
-            agent.put("name", "Rotate90Agent");
-            agent.put("description", "Rotates the puzzle grid 90 degrees clockwise.");
-            agent.put("class", "com.safeai.neo4jplugin.specialized_agents.Rotate90Agent");
-            agents.add(agent);
-
-            JSONObject groovyAgent = new JSONObject();
-            groovyAgent.put("name", "GroovyAgent");
-            groovyAgent.put("description", "Agent implemented with dynamic Groovy script.");
-            groovyAgent.put("groovyScript", "import com.safeai.neo4jplugin.graph_rag.GraphRAG\\n" +
-                    "class GroovyAgent {\\n" +
-                    "  def generate_candidate(puzzleGrid) {\\n" +
-                    "    def rotated = []\\n" +
-                    "    for (int c = 0; c < puzzleGrid[0].size(); c++) {\\n" +
-                    "      def newRow = []\\n" +
-                    "      for (int r = puzzleGrid.size()-1; r >= 0; r--) {\\n" +
-                    "        newRow.add(puzzleGrid[r][c])\\n" +
-                    "      }\\n" +
-                    "      rotated.add(newRow)\\n" +
-                    "    }\\n" +
-                    "    return [rotated]\\n" +
-                    "  }\\n" +
-                    "}\\n" +
-                    "return new GroovyAgent()");
-            agents.add(groovyAgent);
-
-            JSONObject llmAgent = new JSONObject();
-            llmAgent.put("name", "LLMAgent");
-            llmAgent.put("description", "Agent that uses LLM logic to output a simulated response.");
-            llmAgent.put("llmLogic", "Simulated LLM response for LLMAgent.");
-            agents.add(llmAgent);
+        }
+    }
 
-            return agents;
+    private static Snapshot load(Path file, Snapshot previous) throws IOException {
+        byte[] raw = Files.readAllBytes(file);
+        String hash = KGContentStore.sha256(raw);
+        if (previous != null && hash.equals(previous.contentHash)) {
+            return previous;
+        }
+        JSONObject kg = new JSONObject(new String(raw, StandardCharsets.UTF_8));
+        JSONArray agentsArray = kg.getJSONArray("agents");
+        List<JSONObject> agents = new ArrayList<>();
+        for (int i = 0; i < agentsArray.length(); i++) {
+            agents.add(agentsArray.getJSONObject(i));
+        }
+        return new Snapshot(previous == null ? 1 : previous.getVersion() + 1, hash, agents);
+    }
+
+    private void startWatching() {
+        Path file = Paths.get(kgFilePath).toAbsolutePath();
+        Path dir = file.getParent();
+        if (dir == null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warning("Cannot watch " + file + " for changes: " + e.getMessage());
+            return;
         }
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (file.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        reload();
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Registry closed
+            }
+        }, "safeai-agent-registry-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the KG file.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warning("Error closing agent registry watcher: " + e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+
+    private static List<JSONObject> fallbackAgents() {
+        List<JSONObject> agents = new ArrayList<>();
+        JSONObject agent = new JSONObject();
+        agent.put("name", "Rotate90Agent");
+        agent.put("description", "Rotates the puzzle grid 90 degrees clockwise.");
+        agent.put("class", "com.safeai.neo4jplugin.specialized_agents.Rotate90Agent");
+        agents.add(agent);
+
+        JSONObject groovyAgent = new JSONObject();
+        groovyAgent.put("name", "GroovyAgent");
+        groovyAgent.put("description", "Agent implemented with dynamic Groovy script.");
+        groovyAgent.put("groovyScript", "import com.safeai.neo4jplugin.graph_rag.GraphRAG\\n" +
+                "class GroovyAgent {\\n" +
+                "  def generate_candidate(puzzleGrid) {\\n" +
+                "    def rotated = []\\n" +
+                "    for (int c = 0; c < puzzleGrid[0].size(); c++) {\\n" +
+                "      def newRow = []\\n" +
+                "      for (int r = puzzleGrid.size()-1; r >= 0; r--) {\\n" +
+                "        newRow.add(puzzleGrid[r][c])\\n" +
+                "      }\\n" +
+                "      rotated.add(newRow)\\n" +
+                "    }\\n" +
+                "    return [rotated]\\n" +
+                "  }\\n" +
+                "}\\n" +
+                "return new GroovyAgent()");
+        agents.add(groovyAgent);
+
+        JSONObject llmAgent = new JSONObject();
+        llmAgent.put("name", "LLMAgent");
+        llmAgent.put("description", "Agent that uses LLM logic to output a simulated response.");
+        llmAgent.put("llmLogic", "Simulated LLM response for LLMAgent.");
+        agents.add(llmAgent);
+
+        return agents;
     }
 }
@@ -0,0 +1,31 @@
+package com.safeai.neo4jplugin;
+
+import java.util.List;
+
+/**
+ * CandidateGenerator is what every agent is called through: it produces candidate solutions
+ * for a puzzle input. Agents written as Groovy scripts or Java classes only need a
+ * {@code generate_candidate} method taking the input; {@link #of(Object)} adapts them.
+ */
+@FunctionalInterface
+public interface CandidateGenerator {
+
+    Object generateCandidate(List<?> input) throws Exception;
+
+    /**
+     * Returns {@code agent} as a CandidateGenerator. Agents that don't implement the interface
+     * are bound to their {@code generate_candidate} method through a lambda generated once per
+     * agent class, so calling them costs no more than calling an ordinary interface method.
+     *
+     * @throws IllegalArgumentException if the agent has no suitable {@code generate_candidate}
+     */
+    static CandidateGenerator of(Object agent) {
+        if (agent instanceof CandidateGenerator) {
+            return (CandidateGenerator) agent;
+        }
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent is null");
+        }
+        return CandidateGeneratorAdapters.adapt(agent);
+    }
+}
@@ -0,0 +1,118 @@
+package com.safeai.neo4jplugin;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Builds and caches, per agent class, a factory that binds an agent instance to a
+ * CandidateGenerator calling its {@code generate_candidate} method.
+ *
+ * The factory is a {@code LambdaMetafactory} call site created with a private lookup in the
+ * agent class, so the generated lambda calls the method directly. That needs full privilege
+ * access, which the lookup only has for agent classes in the plugin's own module; classes
+ * loaded by a script's GroovyClassLoader are called through a bound {@code MethodHandle}
+ * instead. Factories are kept in a {@link ClassValue}, so they go away with the agent class.
+ */
+final class CandidateGeneratorAdapters {
+    private static final MethodType SAM = MethodType.methodType(Object.class, List.class);
+
+    private static final ClassValue<MethodHandle> factories = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return factory(type);
+        }
+    };
+
+    private CandidateGeneratorAdapters() {
+    }
+
+    static CandidateGenerator adapt(Object agent) {
+        MethodHandle factory = factories.get(agent.getClass());
+        try {
+            return (CandidateGenerator) factory.invokeExact(agent);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not adapt agent " + agent.getClass().getName(), e);
+        }
+    }
+
+    private static MethodHandle factory(Class<?> type) {
+        Method method = generateCandidate(type);
+        MethodHandles.Lookup lookup;
+        MethodHandle target;
+        try {
+            lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            target = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("generate_candidate of " + type.getName() + " is not accessible", e);
+        }
+        MethodType invokedType = MethodType.methodType(CandidateGenerator.class, method.getDeclaringClass());
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "generateCandidate", invokedType, SAM, target, SAM);
+            return site.getTarget().asType(MethodType.methodType(CandidateGenerator.class, Object.class));
+        } catch (LambdaConversionException | RuntimeException e) {
+            return boundHandle(target);
+        }
+    }
+
+    /**
+     * A factory for generators that call {@code target} bound to the agent.
+     */
+    private static MethodHandle boundHandle(MethodHandle target) {
+        MethodHandle generic = target.asType(MethodType.methodType(Object.class, Object.class, List.class));
+        MethodHandle bind;
+        try {
+            bind = MethodHandles.lookup().findStatic(CandidateGeneratorAdapters.class, "bind",
+                MethodType.methodType(CandidateGenerator.class, MethodHandle.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return MethodHandles.insertArguments(bind, 0, generic);
+    }
+
+    private static CandidateGenerator bind(MethodHandle target, Object agent) {
+        MethodHandle bound = target.bindTo(agent);
+        return input -> {
+            try {
+                return bound.invokeExact(input);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * The agent's instance {@code generate_candidate} method with a single parameter accepting
+     * a List, preferring the most specific parameter type.
+     */
+    private static Method generateCandidate(Class<?> type) {
+        Method best = null;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (!method.getName().equals("generate_candidate") || method.getParameterCount() != 1
+                        || Modifier.isStatic(method.getModifiers()) || method.isBridge()) {
+                    continue;
+                }
+                Class<?> parameter = method.getParameterTypes()[0];
+                if (parameter.isAssignableFrom(List.class)
+                        && (best == null || best.getParameterTypes()[0].isAssignableFrom(parameter))) {
+                    best = method;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        throw new IllegalArgumentException("Agent " + type.getName() + " has no generate_candidate(List) method");
+    }
+}
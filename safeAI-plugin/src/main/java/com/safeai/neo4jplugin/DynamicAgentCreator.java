@@ -2,44 +2,53 @@ package com.safeai.neo4jplugin;
 
 import org.json.JSONObject;
 import com.safeai.neo4jplugin.graph_rag.GraphRAG;
-import groovy.lang.GroovyShell;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
 import groovy.lang.Binding;
 
 public class DynamicAgentCreator {
-    public static Object createAgent(JSONObject agentDef, GraphRAG graphRAG) throws Exception {
+    /**
+     * Creates the agent described by {@code agentDef}, adapted to a CandidateGenerator once here
+     * so callers invoke it through the interface rather than by reflection. Scripted agents with
+     * a native implementation in NativeGridAgents get the native one.
+     */
+    public static CandidateGenerator createAgent(JSONObject agentDef, GraphRAG graphRAG) throws Exception {
         if (agentDef.has("class")) {
             String className = agentDef.getString("class");
             Class<?> clazz = Class.forName(className);
-            return clazz.getConstructor(GraphRAG.class).newInstance(graphRAG);
+            return CandidateGenerator.of(clazz.getConstructor(GraphRAG.class).newInstance(graphRAG));
+        }
+        NativeGridAgent nativeAgent = null;
+        if ((agentDef.has("agent_code") || agentDef.has("groovyScript")) && NativeGridAgents.isEnabled()) {
+            nativeAgent = NativeGridAgents.get(agentDef.optString("name"));
+        }
+        if (nativeAgent != null) {
+            return nativeAgent;
         } else if (agentDef.has("agent_code")) {
             String script = agentDef.getString("agent_code");
             Binding binding = new Binding();
             binding.setVariable("graphRAG", graphRAG);
-            GroovyShell shell = new GroovyShell(binding);
-            return shell.evaluate(script);
+            return CandidateGenerator.of(GroovyAgentCache.getDefault().run(script, binding));
         } else if (agentDef.has("groovyScript")) {
             String script = agentDef.getString("groovyScript");
             Binding binding = new Binding();
             binding.setVariable("graphRAG", graphRAG);
-            GroovyShell shell = new GroovyShell(binding);
-            return shell.evaluate(script);
+            return CandidateGenerator.of(GroovyAgentCache.getDefault().run(script, binding));
         } else if (agentDef.has("llmPrompt")) {
             String prompt = agentDef.getString("llmPrompt");
-            return new Object() {
-                public Object generate_candidate(java.util.List<?> input) {
-                    try {
-                        String fullPrompt = prompt;
-                        if (input != null && !input.isEmpty()){
-                            fullPrompt += " Input: " + input.toString();
-                        }
-                        String candidate = com.safeai.neo4jplugin.utilities.LLMService.generateCandidate(fullPrompt);
-                        if(candidate == null || candidate.trim().isEmpty()){
-                            throw new RuntimeException("LLM service returned empty response");
-                        }
-                        return candidate;
-                    } catch (Exception e) {
-                        throw new RuntimeException("Error generating candidate with LLM", e);
+            return input -> {
+                try {
+                    String fullPrompt = prompt;
+                    if (input != null && !input.isEmpty()){
+                        fullPrompt += " Input: " + input.toString();
+                    }
+                    String candidate = com.safeai.neo4jplugin.utilities.LLMService.generateCandidate(fullPrompt);
+                    if(candidate == null || candidate.trim().isEmpty()){
+                        throw new RuntimeException("LLM service returned empty response");
                     }
+                    return candidate;
+                } catch (Exception e) {
+                    throw new RuntimeException("Error generating candidate with LLM", e);
                 }
             };
         } else {
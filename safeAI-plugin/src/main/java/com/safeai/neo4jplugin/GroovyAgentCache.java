@@ -0,0 +1,240 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGContentStore;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import groovy.transform.CompileStatic;
+import groovy.transform.ThreadInterrupt;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * GroovyAgentCache compiles Groovy agent scripts once and keeps the compiled script classes,
+ * keyed by the SHA-256 of the script text. Running a cached script only instantiates its class.
+ *
+ * Every script gets its own class loader, so evicting the least recently used script lets the
+ * loader and all classes it generated be garbage collected once no agent created by the script
+ * is still referenced. Groovy's meta classes for those classes are dropped on eviction as well.
+ *
+ * With static compilation enabled, scripts are first compiled with {@code @CompileStatic}
+ * applied to the whole script, which removes dynamic dispatch from their calls. Scripts that do
+ * not type check (for example because they use binding variables or untyped collections) are
+ * compiled dynamically instead.
+ *
+ * Either way, scripts are compiled with {@code @ThreadInterrupt}, so loops and closures check
+ * the interrupt flag and an agent cancelled by {@link AgentExecutor} actually stops.
+ */
+public final class GroovyAgentCache {
+    private static final Logger logger = Logger.getLogger(GroovyAgentCache.class.getName());
+
+    private static final GroovyAgentCache DEFAULT = new GroovyAgentCache(
+        Integer.parseInt(MainPlugin.getConfigProperty("groovy.agent.cache.size", "128")),
+        Boolean.parseBoolean(MainPlugin.getConfigProperty("groovy.agent.compile.static", "true")));
+
+    /**
+     * How a script was compiled; {@code cached} is true if it had been compiled before.
+     */
+    public static final class CompileResult {
+        public final String hash;
+        public final boolean staticCompiled;
+        public final long compileNanos;
+        public final boolean cached;
+
+        CompileResult(String hash, boolean staticCompiled, long compileNanos, boolean cached) {
+            this.hash = hash;
+            this.staticCompiled = staticCompiled;
+            this.compileNanos = compileNanos;
+            this.cached = cached;
+        }
+    }
+
+    private static final class CompiledScript {
+        final String hash;
+        final GroovyClassLoader loader;
+        final Class<? extends Script> scriptClass;
+        final boolean staticCompiled;
+        final long compileNanos;
+
+        CompiledScript(String hash, GroovyClassLoader loader, Class<? extends Script> scriptClass,
+                       boolean staticCompiled, long compileNanos) {
+            this.hash = hash;
+            this.loader = loader;
+            this.scriptClass = scriptClass;
+            this.staticCompiled = staticCompiled;
+            this.compileNanos = compileNanos;
+        }
+    }
+
+    private final int maxEntries;
+    private final boolean staticCompilation;
+    private final Map<String, CompiledScript> scripts;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GroovyAgentCache(int maxEntries) {
+        this(maxEntries, false);
+    }
+
+    public GroovyAgentCache(int maxEntries, boolean staticCompilation) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.staticCompilation = staticCompilation;
+        this.scripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                if (size() > GroovyAgentCache.this.maxEntries) {
+                    release(eldest.getValue());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static GroovyAgentCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Runs {@code script} with {@code binding} and returns its result, compiling it only if it
+     * is not cached.
+     */
+    public Object run(String script, Binding binding) {
+        Script instance = InvokerHelper.createScript(compile(script), binding);
+        return instance.run();
+    }
+
+    /**
+     * Returns the compiled class of {@code script}.
+     */
+    public Class<? extends Script> compile(String script) {
+        return lookup(script, null).scriptClass;
+    }
+
+    /**
+     * Compiles {@code script} unless it is cached, and reports how it was compiled.
+     */
+    public CompileResult precompile(String script) {
+        boolean[] compiledNow = new boolean[1];
+        CompiledScript compiled = lookup(script, compiledNow);
+        return new CompileResult(compiled.hash, compiled.staticCompiled, compiled.compileNanos, !compiledNow[0]);
+    }
+
+    private CompiledScript lookup(String script, boolean[] compiledNow) {
+        String hash = KGContentStore.sha256(script.getBytes(StandardCharsets.UTF_8));
+        synchronized (scripts) {
+            CompiledScript cached = scripts.get(hash);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        // Compile outside the lock; if another thread compiled the same script meanwhile, keep theirs
+        CompiledScript compiled = compileScript(hash, script);
+        synchronized (scripts) {
+            CompiledScript existing = scripts.get(hash);
+            if (existing != null) {
+                release(compiled);
+                return existing;
+            }
+            scripts.put(hash, compiled);
+        }
+        if (compiledNow != null) {
+            compiledNow[0] = true;
+        }
+        return compiled;
+    }
+
+    private CompiledScript compileScript(String hash, String script) {
+        long start = System.nanoTime();
+        String fileName = "GroovyAgent_" + hash.substring(0, 16) + ".groovy";
+        if (staticCompilation) {
+            CompilerConfiguration config = interruptible();
+            config.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+            GroovyClassLoader loader = new GroovyClassLoader(GroovyAgentCache.class.getClassLoader(), config);
+            try {
+                Class<? extends Script> scriptClass = parse(loader, script, fileName);
+                return new CompiledScript(hash, loader, scriptClass, true, System.nanoTime() - start);
+            } catch (CompilationFailedException e) {
+                logger.fine("Compiling " + fileName + " dynamically, it does not type check: " + e.getMessage());
+                closeQuietly(loader);
+            }
+        }
+        GroovyClassLoader loader = new GroovyClassLoader(GroovyAgentCache.class.getClassLoader(), interruptible());
+        Class<? extends Script> scriptClass = parse(loader, script, fileName);
+        return new CompiledScript(hash, loader, scriptClass, false, System.nanoTime() - start);
+    }
+
+    private static CompilerConfiguration interruptible() {
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.addCompilationCustomizers(new ASTTransformationCustomizer(ThreadInterrupt.class));
+        return config;
+    }
+
+    private static Class<? extends Script> parse(GroovyClassLoader loader, String script, String fileName) {
+        GroovyCodeSource source = new GroovyCodeSource(script, fileName, "/groovy/script");
+        return loader.parseClass(source, false).asSubclass(Script.class);
+    }
+
+    public int size() {
+        synchronized (scripts) {
+            return scripts.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Drops every cached script.
+     */
+    public void clear() {
+        synchronized (scripts) {
+            for (CompiledScript compiled : scripts.values()) {
+                release(compiled);
+            }
+            scripts.clear();
+        }
+    }
+
+    private static void release(CompiledScript compiled) {
+        for (Class<?> loaded : compiled.loader.getLoadedClasses()) {
+            GroovySystem.getMetaClassRegistry().removeMetaClass(loaded);
+        }
+        closeQuietly(compiled.loader);
+    }
+
+    private static void closeQuietly(GroovyClassLoader loader) {
+        try {
+            loader.close();
+        } catch (IOException e) {
+            logger.warning("Error closing Groovy class loader: " + e.getMessage());
+        }
+    }
+}
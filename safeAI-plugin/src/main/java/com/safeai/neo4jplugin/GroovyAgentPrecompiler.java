@@ -0,0 +1,134 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGDocument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * GroovyAgentPrecompiler compiles the Groovy agents of freshly loaded KGs in the background, so
+ * the first call of an agent does not pay for compilation. The outcome for every agent (compile
+ * time, whether static compilation succeeded, or the compile error) is kept for reporting.
+ */
+public final class GroovyAgentPrecompiler {
+    private static final Logger logger = Logger.getLogger(GroovyAgentPrecompiler.class.getName());
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "safeai-groovy-precompile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Report> reports = new ConcurrentHashMap<>();
+
+    public static final class Report {
+        public final String agent;
+        public final String kgName;
+        public final boolean staticCompiled;
+        public final double compileMillis;
+        public final boolean cached;
+        public final String error;
+
+        Report(String agent, String kgName, boolean staticCompiled, double compileMillis, boolean cached,
+               String error) {
+            this.agent = agent;
+            this.kgName = kgName;
+            this.staticCompiled = staticCompiled;
+            this.compileMillis = compileMillis;
+            this.cached = cached;
+            this.error = error;
+        }
+    }
+
+    private GroovyAgentPrecompiler() {
+    }
+
+    /**
+     * Queues the Groovy agents of {@code documents} for compilation and returns how many were
+     * queued.
+     */
+    public static int precompileAsync(Collection<KGDocument> documents) {
+        List<Map<String, Object>> agents = groovyAgents(documents);
+        if (!agents.isEmpty()) {
+            executor.execute(() -> precompile(agents, GroovyAgentCache.getDefault()));
+        }
+        return agents.size();
+    }
+
+    /**
+     * Compiles the Groovy agents of {@code documents} on the calling thread.
+     *
+     * @return the reports of this call, in agent order
+     */
+    static List<Report> precompile(Collection<KGDocument> documents, GroovyAgentCache cache) {
+        return precompile(groovyAgents(documents), cache);
+    }
+
+    /**
+     * The latest compile report of every precompiled agent, ordered by KG and agent name.
+     */
+    public static List<Report> reports() {
+        List<Report> result = new ArrayList<>(reports.values());
+        result.sort(Comparator.comparing((Report report) -> String.valueOf(report.kgName))
+            .thenComparing(report -> report.agent));
+        return result;
+    }
+
+    private static List<Report> precompile(List<Map<String, Object>> agents, GroovyAgentCache cache) {
+        List<Report> callReports = new ArrayList<>(agents.size());
+        int compiled = 0;
+        int compiledStatic = 0;
+        for (Map<String, Object> agent : agents) {
+            String name = String.valueOf(agent.get("name"));
+            String kgName = (String) agent.get("kgName");
+            Report report;
+            try {
+                GroovyAgentCache.CompileResult result = cache.precompile(script(agent));
+                report = new Report(name, kgName, result.staticCompiled, result.compileNanos / 1e6, result.cached, null);
+                compiled++;
+                if (result.staticCompiled) {
+                    compiledStatic++;
+                }
+            } catch (RuntimeException | LinkageError e) {
+                report = new Report(name, kgName, false, 0, false, e.getMessage());
+                logger.warning("Could not compile Groovy agent " + name + ": " + e.getMessage());
+            }
+            reports.put(kgName + "/" + name, report);
+            callReports.add(report);
+        }
+        logger.info("Precompiled " + compiled + " of " + agents.size() + " Groovy agents, " +
+                compiledStatic + " statically");
+        return callReports;
+    }
+
+    private static List<Map<String, Object>> groovyAgents(Collection<KGDocument> documents) {
+        List<Map<String, Object>> agents = new ArrayList<>();
+        for (KGDocument document : documents) {
+            for (Map<String, Object> agent : document.getAgents()) {
+                if (script(agent) != null) {
+                    agents.add(agent);
+                }
+            }
+        }
+        return agents;
+    }
+
+    // Same precedence as DynamicAgentCreator
+    private static String script(Map<String, Object> agent) {
+        if (agent.get("class") != null) {
+            return null;
+        }
+        Object script = agent.get("agent_code");
+        if (script == null) {
+            script = agent.get("groovyScript");
+        }
+        return script instanceof String ? (String) script : null;
+    }
+}
@@ -1,11 +1,13 @@
 package com.safeai.neo4jplugin;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import com.safeai.neo4jplugin.kg.KGResourceCache;
 
 public class InternalKGService {
     private static final String AUTHORIZED_TOKEN = "AUTHORIZED";
@@ -20,6 +22,36 @@ public class InternalKGService {
         "AdvancedMathProof_KG.json",
         "Math_KG.json"
     };
+    private static final Set<String> ALLOWED_KGS = new HashSet<>(List.of(AVAILABLE_KGS));
+
+    /**
+     * One page of a KG, split on line boundaries.
+     */
+    public static class KGPage {
+        public final String fileName;
+        public final int page;
+        public final int totalPages;
+        public final String etag;
+        public final String content;
+
+        public KGPage(String fileName, int page, int totalPages, String etag, String content) {
+            this.fileName = fileName;
+            this.page = page;
+            this.totalPages = totalPages;
+            this.etag = etag;
+            this.content = content;
+        }
+    }
+
+    private final KGResourceCache cache;
+
+    public InternalKGService() {
+        this(KGResourceCache.getDefault());
+    }
+
+    public InternalKGService(KGResourceCache cache) {
+        this.cache = cache;
+    }
 
     private boolean isAuthorized(String token) {
         return AUTHORIZED_TOKEN.equals(token);
@@ -37,32 +69,64 @@ public class InternalKGService {
     }
 
     public String readKG(String fileName, String securityToken) {
+        return StandardCharsets.UTF_8.decode(readKGBuffer(fileName, securityToken)).toString();
+    }
+
+    /**
+     * Returns the KG as a read-only view of the cached bytes; nothing is copied.
+     */
+    public ByteBuffer readKGBuffer(String fileName, String securityToken) {
+        return entry(fileName, securityToken).content();
+    }
+
+    /**
+     * Returns {@code length} bytes of the KG starting at {@code offset}, clipped to its end.
+     */
+    public ByteBuffer readKGRange(String fileName, long offset, long length, String securityToken) {
+        return entry(fileName, securityToken).range(offset, length);
+    }
+
+    /**
+     * Returns page {@code page} (zero based) of the KG with {@code linesPerPage} lines per page.
+     */
+    public KGPage readKGPage(String fileName, int page, int linesPerPage, String securityToken) {
+        if (page < 0 || linesPerPage <= 0) {
+            throw new IllegalArgumentException("Invalid page " + page + " of " + linesPerPage + " lines");
+        }
+        KGResourceCache.Entry entry = entry(fileName, securityToken);
+        int totalPages = Math.max(1, (entry.lineCount() + linesPerPage - 1) / linesPerPage);
+        if (page >= totalPages) {
+            throw new IllegalArgumentException("Page " + page + " is past the last page " + (totalPages - 1));
+        }
+        ByteBuffer lines = entry.lines(page * linesPerPage, linesPerPage);
+        return new KGPage(fileName, page, totalPages, entry.etag(), StandardCharsets.UTF_8.decode(lines).toString());
+    }
+
+    /**
+     * Returns the strong ETag of the KG content, for conditional requests.
+     */
+    public String getETag(String fileName, String securityToken) {
+        return entry(fileName, securityToken).etag();
+    }
+
+    /**
+     * True if {@code etag} (as sent in If-None-Match) no longer matches the KG content.
+     */
+    public boolean isModified(String fileName, String etag, String securityToken) {
+        return !entry(fileName, securityToken).etag().equals(etag);
+    }
+
+    private KGResourceCache.Entry entry(String fileName, String securityToken) {
         if (!isAuthorized(securityToken)) {
             throw new SecurityException("Access denied: invalid security token.");
         }
-        boolean valid = false;
-        for (String kg : AVAILABLE_KGS) {
-            if (kg.equals(fileName)) {
-                valid = true;
-                break;
-            }
-        }
-        if (!valid) {
+        if (!ALLOWED_KGS.contains(fileName)) {
             throw new IllegalArgumentException("Requested KG file is not available.");
         }
-        InputStream is = getClass().getClassLoader().getResourceAsStream(fileName);
-        if (is == null) {
+        KGResourceCache.Entry entry = cache.get(fileName);
+        if (entry == null) {
             throw new IllegalArgumentException("File " + fileName + " not found in resources.");
         }
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-            return content.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error reading file " + fileName, e);
-        }
+        return entry;
     }
 }
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Scanner;
 
 public class InternalKGViewer {
+    private static final int LINES_PER_PAGE = 40;
+
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         InternalKGService service = new InternalKGService();
@@ -23,9 +25,21 @@ public class InternalKGViewer {
 
             while (!fileName.equalsIgnoreCase("exit")) {
                 try {
-                    String content = service.readKG(fileName, token);
                     System.out.println("Content of " + fileName + ":");
-                    System.out.println(content);
+                    int page = 0;
+                    InternalKGService.KGPage kgPage;
+                    do {
+                        kgPage = service.readKGPage(fileName, page, LINES_PER_PAGE, token);
+                        System.out.print(kgPage.content);
+                        page++;
+                        if (page < kgPage.totalPages) {
+                            System.out.print("-- page " + page + "/" + kgPage.totalPages + ", Enter for more or 'q' to stop: ");
+                            if (scanner.nextLine().equalsIgnoreCase("q")) {
+                                break;
+                            }
+                        }
+                    } while (page < kgPage.totalPages);
+                    System.out.println();
                 } catch (Exception e) {
                     System.out.println("Error: " + e.getMessage());
                 }
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import com.safeai.neo4jplugin.blockchain.BlockchainConnector;
@@ -150,6 +151,24 @@ public class MainPlugin {
         return config.getProperty(key, defaultValue);
     }
     
+    /**
+     * Resolves a path supplied by a caller against a configured directory. Relative paths are
+     * resolved against the directory; absolute paths are accepted only if they lie inside it.
+     *
+     * @param dir The directory the path must stay within
+     * @param path The path to resolve
+     * @return The normalized absolute path
+     * @throws IllegalArgumentException if the path escapes the directory
+     */
+    public static Path resolveWithin(String dir, String path) {
+        Path base = Paths.get(dir).toAbsolutePath().normalize();
+        Path resolved = base.resolve(path).normalize();
+        if (!resolved.startsWith(base)) {
+            throw new IllegalArgumentException("Path " + path + " is outside " + base);
+        }
+        return resolved;
+    }
+    
     /**
      * Main method for direct execution.
      * Primarily used for testing the plugin configuration and initialization.
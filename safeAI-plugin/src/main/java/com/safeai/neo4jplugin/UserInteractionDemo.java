@@ -65,13 +65,15 @@ public class UserInteractionDemo {
                     String agentName = agentDef.getString("name");
                     logger.info("Creating agent: " + agentName);
                     
-                    Object agentInstance = DynamicAgentCreator.createAgent(agentDef, graphRAG);
+                    CandidateGenerator agentInstance = DynamicAgentCreator.createAgent(agentDef, graphRAG);
                     logger.info("Successfully loaded agent: " + agentName);
                     
-                    java.lang.reflect.Method method = agentInstance.getClass().getMethod("generate_candidate", List.class);
-                    Object candidate = method.invoke(agentInstance, puzzleGrid);
+                    AgentExecutor executor = AgentExecutor.getDefault();
+                    AgentExecutor.Execution<Object> execution = executor.invokeCandidate(agentName, agentInstance, puzzleGrid);
+                    graphRAG.recordAgentExecution(execution, agentDef.optString("kgName", null),
+                        executor.quarantinedUntil(agentName));
                     
-                    logger.info("Agent " + agentName + " generated candidate: " + candidate);
+                    logger.info("Agent " + agentName + " generated candidate: " + execution.get());
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, "Error processing agent " + agentDef.getString("name"), e);
                 }
@@ -0,0 +1,43 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.learning.PuzzleRunWriter;
+import com.safeai.neo4jplugin.usage.AgentUsageCounters;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+/**
+ * WriteBehindExtensionFactory writes out what the plugin buffers for the graph, such as puzzle
+ * runs and agent usage counts, when a user database stops. Extensions stop before their database, so the writes still
+ * land; a JVM shutdown hook would race Neo4j's own and find the database gone. It is loaded by
+ * Neo4j through {@code META-INF/services/org.neo4j.kernel.extension.ExtensionFactory}.
+ */
+public class WriteBehindExtensionFactory extends ExtensionFactory<WriteBehindExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        GraphDatabaseAPI graphdatabaseAPI();
+    }
+
+    public WriteBehindExtensionFactory() {
+        super(ExtensionType.DATABASE, "safeai.writeBehind");
+    }
+
+    @Override
+    public Lifecycle newInstance(ExtensionContext context, Dependencies dependencies) {
+        String databaseName = dependencies.graphdatabaseAPI().databaseName();
+        return new LifecycleAdapter() {
+            @Override
+            public void stop() {
+                if ("system".equals(databaseName)) {
+                    return;
+                }
+                // Buffers are not kept per database; flushing them all early does no harm
+                PuzzleRunWriter.flushAll();
+                AgentUsageCounters.flushAll();
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+
+import com.safeai.neo4jplugin.MainPlugin;
+import com.safeai.neo4jplugin.kg.KGWriter;
+
+/**
+ * Runs GraphRAG queries through a Neo4j driver. The driver, and with it the connection pool,
+ * is only created on first use. After the server is found unreachable, calls fail fast for
+ * {@code graphrag.retry.ms} instead of waiting for a connection timeout each time.
+ */
+class DriverBackend implements GraphBackend {
+    private static final Logger logger = Logger.getLogger(DriverBackend.class.getName());
+
+    private final String uri;
+    private final String username;
+    private final String password;
+    private final long retryMillis;
+    private volatile Driver driver;
+    private volatile long unavailableUntil;
+
+    DriverBackend(String uri, String username, String password) {
+        this.uri = uri;
+        this.username = username;
+        this.password = password;
+        this.retryMillis = Long.parseLong(MainPlugin.getConfigProperty("graphrag.retry.ms", "30000"));
+    }
+
+    @Override
+    public String id() {
+        return uri + "|" + username;
+    }
+
+    @Override
+    public List<Map<String, Object>> read(String query, Map<String, Object> params) {
+        return call(session -> session.executeRead(tx -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Record record : tx.run(query, params).list()) {
+                rows.add(record.asMap());
+            }
+            return rows;
+        }));
+    }
+
+    @Override
+    public void write(Consumer<KGWriter.StatementRunner> work) {
+        call(session -> session.executeWrite(tx -> {
+            work.accept((statement, params) -> tx.run(statement, params).consume());
+            return null;
+        }));
+    }
+
+    @Override
+    public List<Map<String, Object>> write(String query, Map<String, Object> params) {
+        return call(session -> session.executeWrite(tx -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Record record : tx.run(query, params).list()) {
+                rows.add(record.asMap());
+            }
+            return rows;
+        }));
+    }
+
+    private <T> T call(Function<Session, T> work) {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            throw new ServiceUnavailableException("Neo4j at " + uri + " was unreachable; retrying after " + retryMillis + " ms");
+        }
+        try (Session session = driver().session()) {
+            return work.apply(session);
+        } catch (ServiceUnavailableException e) {
+            unavailableUntil = System.currentTimeMillis() + retryMillis;
+            logger.warning("Neo4j at " + uri + " is unavailable: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private Driver driver() {
+        Driver d = driver;
+        if (d == null) {
+            synchronized (this) {
+                d = driver;
+                if (d == null) {
+                    Config config = Config.builder()
+                        .withMaxConnectionPoolSize(Integer.parseInt(MainPlugin.getConfigProperty("graphrag.pool.size", "20")))
+                        .withConnectionTimeout(Long.parseLong(MainPlugin.getConfigProperty("graphrag.connection.timeout.ms", "5000")), TimeUnit.MILLISECONDS)
+                        .withConnectionAcquisitionTimeout(Long.parseLong(MainPlugin.getConfigProperty("graphrag.acquisition.timeout.ms", "10000")), TimeUnit.MILLISECONDS)
+                        .build();
+                    d = GraphDatabase.driver(uri, AuthTokens.basic(username, password), config);
+                    driver = d;
+                }
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (driver != null) {
+            driver.close();
+            driver = null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import com.safeai.neo4jplugin.kg.KGWriter;
+
+/**
+ * Runs GraphRAG queries in transactions of the database a procedure was called on.
+ */
+class EmbeddedBackend implements GraphBackend {
+    private final GraphDatabaseService db;
+
+    EmbeddedBackend(GraphDatabaseService db) {
+        this.db = db;
+    }
+
+    @Override
+    public String id() {
+        return "embedded:" + db.databaseName();
+    }
+
+    @Override
+    public List<Map<String, Object>> read(String query, Map<String, Object> params) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Transaction tx = db.beginTx(); Result result = tx.execute(query, params)) {
+            while (result.hasNext()) {
+                rows.add(new HashMap<>(result.next()));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void write(Consumer<KGWriter.StatementRunner> work) {
+        try (Transaction tx = db.beginTx()) {
+            work.accept(tx::execute);
+            tx.commit();
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> write(String query, Map<String, Object> params) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            try (Result result = tx.execute(query, params)) {
+                while (result.hasNext()) {
+                    rows.add(new HashMap<>(result.next()));
+                }
+            }
+            tx.commit();
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        // The database belongs to Neo4j
+    }
+}
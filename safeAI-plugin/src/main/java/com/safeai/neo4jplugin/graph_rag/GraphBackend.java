@@ -0,0 +1,34 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.safeai.neo4jplugin.kg.KGWriter;
+
+/**
+ * Where GraphRAG runs its Cypher: an in-procedure transaction or a pooled driver connection.
+ * Read queries must only return plain values (ids, label lists, property maps).
+ */
+interface GraphBackend extends AutoCloseable {
+
+    /**
+     * Identifies the graph, so cached subgraphs from different databases never mix.
+     */
+    String id();
+
+    List<Map<String, Object>> read(String query, Map<String, Object> params);
+
+    /**
+     * Runs every statement issued by {@code work} in one write transaction.
+     */
+    void write(Consumer<KGWriter.StatementRunner> work);
+
+    /**
+     * Runs a single statement in its own write transaction and returns its rows.
+     */
+    List<Map<String, Object>> write(String query, Map<String, Object> params);
+
+    @Override
+    void close();
+}
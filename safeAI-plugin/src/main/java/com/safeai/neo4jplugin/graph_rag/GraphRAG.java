@@ -1,45 +1,596 @@
 package com.safeai.neo4jplugin.graph_rag;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import com.safeai.neo4jplugin.AgentExecutor;
+import com.safeai.neo4jplugin.GroovyAgentPrecompiler;
+import com.safeai.neo4jplugin.MainPlugin;
+import com.safeai.neo4jplugin.kg.KGContentStore;
+import com.safeai.neo4jplugin.kg.KGDocument;
+import com.safeai.neo4jplugin.kg.KGSchemaValidator;
+import com.safeai.neo4jplugin.kg.KGWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
 
+/**
+ * GraphRAG retrieves grounded context for agents from the Knowledge Graph.
+ *
+ * Retrieval starts from seed nodes (by name, or found by matching query terms against names
+ * and descriptions) and expands their neighbourhood breadth first. Each level is a single
+ * query in which a {@code CALL {}} subquery takes at most {@code fanout} neighbours per node,
+ * preferring frequently used ones; expansion stops at {@code depth} levels or {@code maxNodes}
+ * nodes. Nodes are ranked by how strongly they connect to the seeds, and the resulting
+ * subgraphs are kept in a shared LRU cache with a time-to-live.
+ *
+ * GraphRAG works either inside a procedure, on the procedure's database, or against a server
+ * through a lazily created, pooled driver.
+ */
 public class GraphRAG {
-    private String uri;
-    private String username;
-    private String password;
+    private static final Logger logger = Logger.getLogger(GraphRAG.class.getName());
+
+    // Score a node passes on to each neighbour it leads to
+    private static final double DECAY = 0.5;
+
+    static final String SEEDS_BY_NAME =
+        "MATCH (n) WHERE n.name IN $names " +
+        "RETURN elementId(n) AS id, labels(n) AS labels, properties(n) AS props";
+
+    static final String SEEDS_BY_TERMS =
+        "UNWIND $terms AS term " +
+        "MATCH (n) WHERE (n:Agent OR n:Capability OR n:KnowledgeGraph) " +
+        "AND (toLower(n.name) CONTAINS term OR toLower(coalesce(n.description, '')) CONTAINS term) " +
+        "WITH n, count(DISTINCT term) AS hits " +
+        "ORDER BY hits DESC LIMIT $limit " +
+        "RETURN elementId(n) AS id, labels(n) AS labels, properties(n) AS props, hits";
+
+    static final String EXPAND =
+        "UNWIND $frontier AS sourceId " +
+        "MATCH (n) WHERE elementId(n) = sourceId " +
+        "CALL { " +
+        "  WITH n " +
+        "  MATCH (n)-[r]-(m) " +
+        "  WHERE NOT elementId(m) IN $visited " +
+        "  RETURN r, m ORDER BY coalesce(m.usageCount, 0) DESC LIMIT $fanout " +
+        "} " +
+        "RETURN sourceId, elementId(m) AS id, labels(m) AS labels, properties(m) AS props, type(r) AS type, " +
+        "elementId(startNode(r)) = sourceId AS outgoing";
+
+    // Agents merge by name, or by name and kgName if they belong to a KG. A new node is marked
+    // with an empty definitionHash so the status can tell it apart from an agent that was
+    // created elsewhere (e.g. by a KG load) and has no hash yet. A changed definition replaces
+    // the agent's properties, keeping only its keys, creation time and recorded stats, and its
+    // capabilities, dropping links to capabilities it no longer lists.
+    private static final String STORE_AGENTS =
+        "UNWIND $agents AS agent " +
+        "MERGE (a:Agent {%s}) ON CREATE SET a.created_at = datetime(), a.definitionHash = '' " +
+        "WITH a, agent, CASE WHEN a.definitionHash = '' THEN 'created' " +
+        "  WHEN a.definitionHash = agent.hash THEN 'unchanged' ELSE 'updated' END AS status " +
+        "CALL { " +
+        "  WITH a, agent, status " +
+        "  WITH a, agent, status WHERE status <> 'unchanged' " +
+        "  WITH a, agent, a {.name, .kgName, .created_at, .usageCount, .successCount, .executionCount, " +
+        "    .executionFailures, .budgetViolations, .totalWallMillis, .maxWallMillis, .totalCpuMillis, " +
+        "    .maxCpuMillis, .totalAllocatedBytes, .maxAllocatedBytes, .lastExecutionOutcome, .lastExecutedAt, " +
+        "    .quarantinedUntil} AS kept " +
+        "  SET a = agent.props " +
+        "  SET a += kept, a.definitionHash = agent.hash " +
+        "  WITH a, agent " +
+        "  OPTIONAL MATCH (a)-[stale:HAS_CAPABILITY]->(old:Capability) WHERE NOT old.name IN agent.capabilities%s " +
+        "  DELETE stale " +
+        "  WITH DISTINCT a, agent UNWIND agent.capabilities AS capability " +
+        "  %s MERGE (a)-[:HAS_CAPABILITY]->(c) " +
+        "} " +
+        "RETURN status, count(*) AS count";
+
+    static final String STORE_AGENTS_BY_NAME = String.format(STORE_AGENTS, "name: agent.name", "",
+        "MERGE (c:Capability {name: capability})");
+
+    // Capabilities are only unique within their KG, so they are merged through it as KGWriter does
+    static final String STORE_KG_AGENTS = String.format(STORE_AGENTS, "name: agent.name, kgName: agent.kgName",
+        " OR NOT EXISTS { (:KnowledgeGraph {name: agent.kgName})-[:HAS_CAPABILITY]->(old) }",
+        "MERGE (kg:KnowledgeGraph {name: agent.kgName}) MERGE (kg)-[:HAS_CAPABILITY]->(c:Capability {name: capability})");
+
+    static final String FETCH_AGENTS =
+        "MATCH (a:Agent) RETURN properties(a) AS props ORDER BY a.name";
+
+    // Without a kgName, every agent of that name is updated
+    static final String RECORD_EXECUTION =
+        "MATCH (a:Agent {name: $name}) WHERE $kgName IS NULL OR a.kgName = $kgName " +
+        "SET a.executionCount = coalesce(a.executionCount, 0) + $ran, " +
+        "a.executionFailures = coalesce(a.executionFailures, 0) + $failed, " +
+        "a.budgetViolations = coalesce(a.budgetViolations, 0) + $violation, " +
+        "a.totalWallMillis = coalesce(a.totalWallMillis, 0) + $wallMillis, " +
+        "a.maxWallMillis = CASE WHEN coalesce(a.maxWallMillis, 0) < $wallMillis THEN $wallMillis ELSE a.maxWallMillis END, " +
+        "a.totalCpuMillis = coalesce(a.totalCpuMillis, 0) + $cpuMillis, " +
+        "a.maxCpuMillis = CASE WHEN coalesce(a.maxCpuMillis, 0) < $cpuMillis THEN $cpuMillis ELSE a.maxCpuMillis END, " +
+        "a.totalAllocatedBytes = coalesce(a.totalAllocatedBytes, 0) + $allocatedBytes, " +
+        "a.maxAllocatedBytes = CASE WHEN coalesce(a.maxAllocatedBytes, 0) < $allocatedBytes " +
+        "THEN $allocatedBytes ELSE a.maxAllocatedBytes END, " +
+        "a.lastExecutionOutcome = $outcome, " +
+        "a.lastExecutedAt = CASE WHEN $ran = 1 THEN datetime() ELSE a.lastExecutedAt END, " +
+        "a.quarantinedUntil = CASE WHEN $quarantinedUntil > 0 THEN datetime({epochMillis: $quarantinedUntil}) END";
+
+    // Rows without a kgName update every agent of that name, as RECORD_EXECUTION does
+    static final String RECORD_USAGE =
+        "UNWIND $agents AS agent " +
+        "MATCH (a:Agent {name: agent.name}) WHERE agent.kgName IS NULL OR a.kgName = agent.kgName " +
+        "SET a.usageCount = coalesce(a.usageCount, 0) + agent.usage, " +
+        "a.successCount = coalesce(a.successCount, 0) + agent.success";
+
+    // One Puzzle_Run per solve. The Puzzle holds its canonical test input and, if known, expected
+    // output, and its AI_Solved Solution the canonical answer (see CanonicalPuzzle); a
+    // Counterexample marks a puzzle the solver got wrong. Grids are GridCodec bytes, and the
+    // unpacked cells of Solutions written before the codec are dropped on rewrite
+    static final String RECORD_RUNS =
+        "UNWIND $runs AS run " +
+        "MERGE (p:Puzzle {puzzle_hash: run.hash}) ON CREATE SET p.created_at = datetime() " +
+        "SET p.puzzle_id = run.puzzleId, p += run.puzzle " +
+        "CREATE (p)-[:HAS_RUN]->(r:Puzzle_Run {run_id: run.runId}) " +
+        "SET r += run.props, r.recorded_at = datetime({epochMillis: run.recordedAt}) " +
+        "MERGE (p)-[:HAS_SOLUTION]->(s:Solution {solution_type: run.solutionType}) " +
+        "SET s.agent = run.props.agent, s.score = run.props.score, s += run.answer, " +
+        "s.updated_at = datetime({epochMillis: run.recordedAt}) " +
+        "REMOVE s.cells " +
+        "CREATE (r)-[:PRODUCED]->(s)";
+
+    static final String FIND_SOLUTION =
+        "MATCH (:Puzzle {puzzle_hash: $hash})-[:HAS_SOLUTION]->(s:Solution {solution_type: 'AI_Solved'}) " +
+        "RETURN s.agent AS agent, s.score AS score, s.grid AS grid, s.width AS width, s.height AS height, " +
+        "s.cells AS cells " +
+        "LIMIT 1";
+
+    private static final SubgraphCache cache = new SubgraphCache(
+        Integer.parseInt(MainPlugin.getConfigProperty("graphrag.cache.size", "256")),
+        Long.parseLong(MainPlugin.getConfigProperty("graphrag.cache.ttl.ms", "60000")));
+
+    private final GraphBackend backend;
+    private final int defaultDepth;
+    private final int defaultFanout;
+    private final int maxNodes;
 
     public GraphRAG(String uri, String username, String password) {
-        this.uri = uri;
-        this.username = username;
-        this.password = password;
+        this(new DriverBackend(uri, username, password));
+    }
+
+    /**
+     * Runs retrieval in transactions of the given database; for use inside procedures.
+     */
+    public GraphRAG(GraphDatabaseService db) {
+        this(new EmbeddedBackend(db));
+    }
+
+    GraphRAG(GraphBackend backend) {
+        this.backend = backend;
+        this.defaultDepth = Integer.parseInt(MainPlugin.getConfigProperty("graphrag.max.depth", "2"));
+        this.defaultFanout = Integer.parseInt(MainPlugin.getConfigProperty("graphrag.max.fanout", "25"));
+        this.maxNodes = Integer.parseInt(MainPlugin.getConfigProperty("graphrag.max.nodes", "200"));
+    }
+
+    /**
+     * Retrieves the neighbourhood of the named nodes with the configured depth and fanout.
+     */
+    public Subgraph retrieve(Collection<String> seedNames) {
+        return retrieve(seedNames, defaultDepth, defaultFanout);
+    }
+
+    public Subgraph retrieve(Collection<String> seedNames, int depth, int fanout) {
+        String key = backend.id() + "|names|" + new TreeSet<>(seedNames) + "|" + depth + "|" + fanout + "|" + maxNodes;
+        Subgraph cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> seeds = backend.read(SEEDS_BY_NAME, Map.of("names", new ArrayList<>(seedNames)));
+        Map<String, Double> seedScores = new HashMap<>();
+        for (Map<String, Object> seed : seeds) {
+            seedScores.put((String) seed.get("id"), 1.0);
+        }
+        Subgraph subgraph = expand(seeds, seedScores, depth, fanout);
+        cache.put(key, subgraph);
+        return subgraph;
+    }
+
+    /**
+     * Finds up to {@code seedLimit} nodes whose name or description mention the query's terms
+     * and retrieves their neighbourhood. Seeds matching more terms rank higher.
+     */
+    public Subgraph search(String query, int seedLimit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return new Subgraph(List.of(), List.of());
+        }
+        String key = backend.id() + "|terms|" + terms + "|" + seedLimit + "|" + defaultDepth + "|" + defaultFanout + "|" + maxNodes;
+        Subgraph cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> seeds = backend.read(SEEDS_BY_TERMS, Map.of("terms", terms, "limit", seedLimit));
+        Map<String, Double> seedScores = new HashMap<>();
+        for (Map<String, Object> seed : seeds) {
+            seedScores.put((String) seed.get("id"), ((Number) seed.get("hits")).doubleValue() / terms.size());
+        }
+        Subgraph subgraph = expand(seeds, seedScores, defaultDepth, defaultFanout);
+        cache.put(key, subgraph);
+        return subgraph;
+    }
+
+    private Subgraph expand(List<Map<String, Object>> seeds, Map<String, Double> seedScores, int depth, int fanout) {
+        Map<String, Map<String, Object>> nodes = new LinkedHashMap<>();
+        Map<String, Integer> depths = new HashMap<>();
+        Map<String, Double> scores = new HashMap<>(seedScores);
+        List<Subgraph.ContextEdge> edges = new ArrayList<>();
+        List<String> frontier = new ArrayList<>();
+        for (Map<String, Object> seed : seeds) {
+            String id = (String) seed.get("id");
+            if (nodes.putIfAbsent(id, seed) == null) {
+                depths.put(id, 0);
+                frontier.add(id);
+            }
+        }
+
+        for (int level = 1; level <= depth && !frontier.isEmpty() && nodes.size() < maxNodes; level++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("frontier", frontier);
+            params.put("visited", new ArrayList<>(nodes.keySet()));
+            params.put("fanout", fanout);
+            List<String> next = new ArrayList<>();
+            for (Map<String, Object> row : backend.read(EXPAND, params)) {
+                String source = (String) row.get("sourceId");
+                String id = (String) row.get("id");
+                if (!nodes.containsKey(id)) {
+                    if (nodes.size() >= maxNodes) {
+                        continue;
+                    }
+                    nodes.put(id, row);
+                    depths.put(id, level);
+                    next.add(id);
+                }
+                // Nodes reachable from several places collect score from each of them
+                if (depths.get(id) == level) {
+                    scores.merge(id, scores.getOrDefault(source, 0.0) * DECAY, Double::sum);
+                }
+                boolean outgoing = Boolean.TRUE.equals(row.get("outgoing"));
+                edges.add(outgoing ? new Subgraph.ContextEdge(source, id, (String) row.get("type"))
+                                   : new Subgraph.ContextEdge(id, source, (String) row.get("type")));
+            }
+            frontier = next;
+        }
+
+        List<Subgraph.ContextNode> ranked = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> entry : nodes.entrySet()) {
+            @SuppressWarnings("unchecked")
+            List<String> labels = new ArrayList<>((List<String>) entry.getValue().get("labels"));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> props = new HashMap<>((Map<String, Object>) entry.getValue().get("props"));
+            double score = scores.getOrDefault(entry.getKey(), 0.0) * (1 + 0.5 * successRate(props));
+            ranked.add(new Subgraph.ContextNode(entry.getKey(), labels, props, depths.get(entry.getKey()), score));
+        }
+        ranked.sort(Comparator.comparingDouble(Subgraph.ContextNode::getScore).reversed()
+                .thenComparingInt(Subgraph.ContextNode::getDepth)
+                .thenComparing(Subgraph.ContextNode::getName));
+        return new Subgraph(ranked, edges);
+    }
+
+    private static double successRate(Map<String, Object> props) {
+        Object usage = props.get("usageCount");
+        Object success = props.get("successCount");
+        if (usage instanceof Number && success instanceof Number && ((Number) usage).doubleValue() > 0) {
+            return Math.min(1.0, ((Number) success).doubleValue() / ((Number) usage).doubleValue());
+        }
+        return 0.0;
+    }
+
+    static List<String> terms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= 3) {
+                terms.add(token);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Drops cached subgraphs of this graph; called after every write made through GraphRAG.
+     */
+    public void invalidateCache() {
+        cache.invalidate(backend.id() + "|");
     }
 
+    /**
+     * Validates a KG definition and merges it into the graph. Loading the same KG again updates
+     * it in place.
+     */
     public void initializeARCkg(JSONObject arcKG) {
-        System.out.println("ARC KG initialized.");
+        List<KGSchemaValidator.Violation> violations = KGSchemaValidator.getDefault().validate(arcKG);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Invalid KG structure: " + violations);
+        }
+        byte[] raw = arcKG.toString().getBytes(StandardCharsets.UTF_8);
+        String sourceFile = (arcKG.has("domain") ? arcKG.getString("domain") : arcKG.getString("name")) + "_KG.json";
+        KGDocument document = KGDocument.fromJson(arcKG, sourceFile, KGContentStore.sha256(raw), raw.length);
+        backend.write(runner -> KGWriter.mergeRange(runner, document, 0, KGWriter.entityCount(document)));
+        try {
+            KGContentStore.getDefault().put(raw);
+        } catch (IOException e) {
+            logger.warning("KG " + document.getName() + " was loaded but its JSON could not be stored: " + e.getMessage());
+        }
+        invalidateCache();
+        GroovyAgentPrecompiler.precompileAsync(List.of(document));
+        logger.info("ARC KG initialized: " + document.getName());
     }
 
     public void close() {
-        System.out.println("GraphRAG connection closed.");
+        backend.close();
+        logger.info("GraphRAG connection closed.");
+    }
+
+    /**
+     * Counts of agent definitions by what storing them did to the graph.
+     */
+    public static final class StoreCounts {
+        public final int created;
+        public final int updated;
+        public final int unchanged;
+
+        StoreCounts(int created, int updated, int unchanged) {
+            this.created = created;
+            this.updated = updated;
+            this.unchanged = unchanged;
+        }
+
+        @Override
+        public String toString() {
+            return "created=" + created + ", updated=" + updated + ", unchanged=" + unchanged;
+        }
     }
 
-    public void storeAgentDefinition(JSONObject agent) {
-        System.out.println("Stored agent definition: " + agent.toString());
+    public StoreCounts storeAgentDefinition(JSONObject agent) {
+        return storeAgentDefinitions(List.of(agent));
     }
 
-    public void storeAgentDefinitions(List<JSONObject> agents) {
+    /**
+     * Merges agent definitions with one {@code UNWIND} statement per batch. Definitions are keyed
+     * by name (and kgName, if set); when a key occurs more than once the last definition wins.
+     * Each agent node records a hash of its definition, so storing an unchanged definition
+     * again writes nothing, while a changed one replaces the properties and capabilities the
+     * agent had before.
+     */
+    public StoreCounts storeAgentDefinitions(List<JSONObject> agents) {
+        Map<List<String>, Map<String, Object>> rows = new LinkedHashMap<>();
         for (JSONObject agent : agents) {
-            storeAgentDefinition(agent);
+            Map<String, Object> row = agentRow(agent);
+            rows.put(Arrays.asList((String) row.get("name"), (String) row.get("kgName")), row);
+        }
+        List<Map<String, Object>> byName = new ArrayList<>();
+        List<Map<String, Object>> byKG = new ArrayList<>();
+        for (Map<String, Object> row : rows.values()) {
+            (row.get("kgName") == null ? byName : byKG).add(row);
+        }
+        int batchSize = Integer.parseInt(MainPlugin.getConfigProperty("graphrag.store.batch.size", "500"));
+        Map<String, Integer> counts = new HashMap<>();
+        storeBatches(STORE_AGENTS_BY_NAME, byName, batchSize, counts);
+        storeBatches(STORE_KG_AGENTS, byKG, batchSize, counts);
+        StoreCounts result = new StoreCounts(counts.getOrDefault("created", 0),
+            counts.getOrDefault("updated", 0), counts.getOrDefault("unchanged", 0));
+        if (result.created > 0 || result.updated > 0) {
+            invalidateCache();
+        }
+        logger.fine("Stored " + rows.size() + " agent definitions: " + result);
+        return result;
+    }
+
+    private void storeBatches(String statement, List<Map<String, Object>> rows, int batchSize,
+                              Map<String, Integer> counts) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Map<String, Object>> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            for (Map<String, Object> row : backend.write(statement, Map.of("agents", batch))) {
+                counts.merge((String) row.get("status"), ((Number) row.get("count")).intValue(), Integer::sum);
+            }
+        }
+    }
+
+    static Map<String, Object> agentRow(JSONObject agent) {
+        Map<String, Object> props = storableProperties(agent);
+        List<String> capabilities = new ArrayList<>();
+        JSONArray caps = agent.optJSONArray("capabilities");
+        if (caps != null) {
+            for (int i = 0; i < caps.length(); i++) {
+                capabilities.add(caps.getString(i));
+            }
+        }
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", agent.getString("name"));
+        row.put("kgName", agent.has("kgName") ? agent.getString("kgName") : null);
+        row.put("props", props);
+        row.put("capabilities", capabilities);
+        row.put("hash", definitionHash(props, capabilities));
+        return row;
+    }
+
+    /**
+     * SHA-256 of the stored form of a definition, independent of key and capability order.
+     */
+    static String definitionHash(Map<String, Object> props, List<String> capabilities) {
+        StringBuilder canonical = new StringBuilder();
+        for (Map.Entry<String, Object> entry : new TreeMap<>(props).entrySet()) {
+            canonical.append(JSONObject.quote(entry.getKey())).append(':');
+            appendCanonical(canonical, entry.getValue());
+            canonical.append('\n');
         }
+        canonical.append("capabilities:");
+        appendCanonical(canonical, new ArrayList<>(new TreeSet<>(capabilities)));
+        return KGContentStore.sha256(canonical.toString().getBytes(StandardCharsets.UTF_8));
     }
 
+    private static void appendCanonical(StringBuilder out, Object value) {
+        if (value instanceof List) {
+            out.append('[');
+            for (Object element : (List<?>) value) {
+                appendCanonical(out, element);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (value instanceof String) {
+            out.append(JSONObject.quote((String) value));
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Adds what an agent invocation consumed to the execution stats on the agent's nodes: counts
+     * of executions, failures and budget violations, total and peak wall time, CPU time and
+     * allocated bytes, the last outcome, and the end of its quarantine if it is quarantined.
+     * Executions that were refused only update the outcome and quarantine. Failing to record is
+     * logged, so stats never break an agent call.
+     *
+     * This is one write per invocation, unlike the batched usage counts of the puzzle solver:
+     * peaks, the last outcome and the quarantine end describe a single invocation and cannot be
+     * summed into a delta.
+     */
+    public void recordAgentExecution(AgentExecutor.Execution<?> execution, long quarantinedUntil) {
+        recordAgentExecution(execution, null, quarantinedUntil);
+    }
+
+    /**
+     * Records the execution on the agent of the given KG only, as agent names are unique per KG;
+     * a null kgName updates every agent of that name.
+     */
+    public void recordAgentExecution(AgentExecutor.Execution<?> execution, String kgName, long quarantinedUntil) {
+        try {
+            backend.write(RECORD_EXECUTION, executionRow(execution, kgName, quarantinedUntil));
+        } catch (RuntimeException e) {
+            logger.warning("Could not record execution of agent " + execution.agentName + ": " + e.getMessage());
+        }
+    }
+
+    static Map<String, Object> executionRow(AgentExecutor.Execution<?> execution, String kgName,
+                                            long quarantinedUntil) {
+        boolean ran = execution.outcome != AgentExecutor.Outcome.REJECTED
+            && execution.outcome != AgentExecutor.Outcome.QUARANTINED;
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", execution.agentName);
+        row.put("kgName", kgName);
+        row.put("ran", ran ? 1 : 0);
+        row.put("failed", ran && !execution.isCompleted() ? 1 : 0);
+        row.put("violation", execution.isBudgetViolation() ? 1 : 0);
+        row.put("wallMillis", execution.wallNanos / 1e6);
+        row.put("cpuMillis", execution.cpuNanos / 1e6);
+        row.put("allocatedBytes", execution.allocatedBytes);
+        row.put("outcome", execution.outcome.name());
+        row.put("quarantinedUntil", quarantinedUntil);
+        return row;
+    }
+
+    /**
+     * Adds the {@code usage} and {@code success} deltas of each named agent to its node's
+     * {@code usageCount} and {@code successCount}, in one transaction. A row without a
+     * {@code kgName} updates every agent of its name.
+     *
+     * @throws RuntimeException if the write fails
+     */
+    public void recordAgentUsage(List<Map<String, Object>> agents) {
+        backend.write(RECORD_USAGE, Map.of("agents", agents));
+    }
+
+    /**
+     * Writes a batch of puzzle runs, as built by {@code PuzzleRunWriter}, in one transaction.
+     *
+     * @throws RuntimeException if the write fails; the caller decides whether to retry
+     */
+    public void recordPuzzleRuns(List<Map<String, Object>> runs) {
+        backend.write(RECORD_RUNS, Map.of("runs", runs));
+    }
+
+    /**
+     * Returns the stored answer for the canonical hash as its {@code agent}, {@code score} and grid
+     * properties; null if there is none or the graph cannot be read.
+     */
+    public Map<String, Object> findSolution(String puzzleHash) {
+        try {
+            List<Map<String, Object>> rows = backend.read(FIND_SOLUTION, Map.of("hash", puzzleHash));
+            return rows.isEmpty() ? null : rows.get(0);
+        } catch (RuntimeException e) {
+            logger.warning("Could not look up solution " + puzzleHash + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns every Agent node in the graph. If the graph cannot be reached, the built-in
+     * Rotate90Agent definition is returned so callers still have an agent to run.
+     */
     public List<JSONObject> fetchAgentDefinitions() {
-        List<JSONObject> agents = new ArrayList<>();
-        JSONObject agent = new JSONObject();
-        agent.put("name", "Rotate90Agent");
-        agent.put("description", "Rotates the puzzle grid 90 degrees clockwise.");
-        agent.put("class", "com.safeai.neo4jplugin.specialized_agents.Rotate90Agent");
-        agents.add(agent);
-        return agents;
+        try {
+            List<JSONObject> agents = new ArrayList<>();
+            for (Map<String, Object> row : backend.read(FETCH_AGENTS, Map.of())) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> props = (Map<String, Object>) row.get("props");
+                JSONObject agent = new JSONObject();
+                for (Map.Entry<String, Object> entry : props.entrySet()) {
+                    Object value = entry.getValue();
+                    agent.put(entry.getKey(), value instanceof TemporalAccessor ? value.toString() : value);
+                }
+                agents.add(agent);
+            }
+            return agents;
+        } catch (RuntimeException e) {
+            logger.warning("Could not fetch agent definitions from the graph: " + e.getMessage());
+            List<JSONObject> agents = new ArrayList<>();
+            JSONObject agent = new JSONObject();
+            agent.put("name", "Rotate90Agent");
+            agent.put("description", "Rotates the puzzle grid 90 degrees clockwise.");
+            agent.put("class", "com.safeai.neo4jplugin.specialized_agents.Rotate90Agent");
+            agents.add(agent);
+            return agents;
+        }
+    }
+
+    /**
+     * Agent properties as Neo4j can store them: capabilities become relationships, nested
+     * objects and lists of objects are kept as JSON text.
+     */
+    static Map<String, Object> storableProperties(JSONObject agent) {
+        Map<String, Object> props = new HashMap<>();
+        for (String key : agent.keySet()) {
+            Object value = agent.get(key);
+            if (key.equals("capabilities") || value == JSONObject.NULL) {
+                continue;
+            }
+            if (value instanceof JSONObject) {
+                props.put(key, value.toString());
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                List<Object> list = new ArrayList<>();
+                boolean scalar = true;
+                for (int i = 0; i < array.length() && scalar; i++) {
+                    Object element = array.get(i);
+                    scalar = !(element instanceof JSONObject || element instanceof JSONArray || element == JSONObject.NULL);
+                    list.add(element);
+                }
+                props.put(key, scalar ? list : array.toString());
+            } else {
+                props.put(key, value);
+            }
+        }
+        return props;
     }
 }
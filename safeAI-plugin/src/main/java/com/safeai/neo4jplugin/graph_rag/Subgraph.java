@@ -0,0 +1,116 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ranked neighbourhood retrieved by {@link GraphRAG}. Nodes are ordered by score, best first;
+ * seeds have depth 0. Instances are immutable and may be shared through the subgraph cache.
+ */
+public final class Subgraph {
+
+    public static final class ContextNode {
+        private final String id;
+        private final List<String> labels;
+        private final Map<String, Object> properties;
+        private final int depth;
+        private final double score;
+
+        public ContextNode(String id, List<String> labels, Map<String, Object> properties, int depth, double score) {
+            this.id = id;
+            this.labels = Collections.unmodifiableList(labels);
+            this.properties = Collections.unmodifiableMap(properties);
+            this.depth = depth;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public List<String> getLabels() {
+            return labels;
+        }
+
+        public Map<String, Object> getProperties() {
+            return properties;
+        }
+
+        public String getName() {
+            Object name = properties.get("name");
+            return name == null ? id : name.toString();
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    public static final class ContextEdge {
+        private final String source;
+        private final String target;
+        private final String type;
+
+        public ContextEdge(String source, String target, String type) {
+            this.source = source;
+            this.target = target;
+            this.type = type;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+
+    private final List<ContextNode> nodes;
+    private final List<ContextEdge> edges;
+
+    public Subgraph(List<ContextNode> nodes, List<ContextEdge> edges) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.edges = Collections.unmodifiableList(edges);
+    }
+
+    public List<ContextNode> getNodes() {
+        return nodes;
+    }
+
+    public List<ContextEdge> getEdges() {
+        return edges;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Renders the best {@code limit} nodes as one line each ("Label name: description"),
+     * for grounding LLM prompts.
+     */
+    public String toContextText(int limit) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(limit, nodes.size()); i++) {
+            ContextNode node = nodes.get(i);
+            sb.append(node.getLabels().isEmpty() ? "Node" : node.getLabels().get(0))
+              .append(' ').append(node.getName());
+            Object description = node.getProperties().get("description");
+            if (description != null) {
+                sb.append(": ").append(description);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
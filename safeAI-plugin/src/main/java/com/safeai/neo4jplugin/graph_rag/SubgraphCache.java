@@ -0,0 +1,71 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of retrieved subgraphs whose entries also expire after a fixed time,
+ * so changes made outside GraphRAG are picked up without explicit invalidation.
+ */
+public class SubgraphCache {
+    private static final class Entry {
+        final Subgraph subgraph;
+        final long expiresAt;
+
+        Entry(Subgraph subgraph, long expiresAt) {
+            this.subgraph = subgraph;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    public SubgraphCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized Subgraph get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.subgraph;
+    }
+
+    public synchronized void put(String key, Subgraph subgraph) {
+        entries.put(key, new Entry(subgraph, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Drops every entry whose key starts with {@code prefix}.
+     */
+    public synchronized void invalidate(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,250 @@
+package com.safeai.neo4jplugin.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid is an immutable ARC puzzle grid: {@code height} rows of {@code width} cells, stored row by
+ * row in one {@code byte[]}. ARC grids are at most 30x30 with colors 0-9; colors up to 15 are
+ * accepted because some bundled examples use them.
+ *
+ * Agents and puzzles exchange grids as {@code List<List<Integer>>}; {@link #fromList} and
+ * {@link #toList} convert at those boundaries. In the graph a grid is stored as the
+ * {@code width}, {@code height} and {@code grid} properties returned by {@link #toProperties},
+ * the last in the packed form of {@link GridCodec}.
+ */
+public final class Grid {
+    public static final int MAX_SIZE = 30;
+    public static final int MAX_COLOR = 15;
+
+    static final Grid EMPTY = new Grid(0, 0, new byte[0]);
+
+    final int width;
+    final int height;
+    final byte[] cells;
+    private int hash;
+
+    /**
+     * Wraps {@code cells} without copying; callers in this package hand over arrays they no
+     * longer write to.
+     */
+    Grid(int width, int height, byte[] cells) {
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    /**
+     * Returns a grid with a copy of {@code cells}, given row by row.
+     */
+    public static Grid of(int width, int height, byte[] cells) {
+        checkSize(width, height);
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " cells, got " + cells.length);
+        }
+        for (byte cell : cells) {
+            checkColor(cell);
+        }
+        return new Grid(width, height, cells.clone());
+    }
+
+    public static Grid filled(int width, int height, int color) {
+        checkSize(width, height);
+        checkColor(color);
+        byte[] cells = new byte[width * height];
+        Arrays.fill(cells, (byte) color);
+        return new Grid(width, height, cells);
+    }
+
+    /**
+     * Converts a list of rows of numbers, as used by agents and returned by Cypher.
+     *
+     * @throws IllegalArgumentException if the rows are ragged, too large or hold invalid colors
+     */
+    public static Grid fromList(List<? extends List<?>> rows) {
+        int height = rows.size();
+        if (height == 0) {
+            return EMPTY;
+        }
+        int width = rows.get(0).size();
+        checkSize(width, height);
+        byte[] cells = new byte[width * height];
+        int i = 0;
+        for (List<?> row : rows) {
+            if (row.size() != width) {
+                throw new IllegalArgumentException("Grid rows differ in length: " + width + " and " + row.size());
+            }
+            for (Object cell : row) {
+                if (!(cell instanceof Number)) {
+                    throw new IllegalArgumentException("Grid cell is not a number: " + cell);
+                }
+                long value = ((Number) cell).longValue();
+                checkColor(value);
+                cells[i++] = (byte) value;
+            }
+        }
+        return new Grid(width, height, cells);
+    }
+
+    /**
+     * Converts a grid given in any of the forms agents and the graph use: a Grid, a list of
+     * rows, or a map of grid properties.
+     */
+    @SuppressWarnings("unchecked")
+    public static Grid from(Object value) {
+        if (value instanceof Grid) {
+            return (Grid) value;
+        }
+        if (value instanceof List) {
+            for (Object row : (List<?>) value) {
+                if (!(row instanceof List)) {
+                    throw new IllegalArgumentException("Grid row is not a list: " + row);
+                }
+            }
+            return fromList((List<? extends List<?>>) value);
+        }
+        if (value instanceof Map) {
+            return fromProperties((Map<String, ?>) value);
+        }
+        throw new IllegalArgumentException("Not a grid: " + value);
+    }
+
+    /**
+     * Reads a grid from the properties written by {@link #toProperties}, or from the unpacked
+     * {@code cells} property, one byte per cell, that nodes written before {@link GridCodec} hold.
+     */
+    public static Grid fromProperties(Map<String, ?> properties) {
+        Object grid = properties.get("grid");
+        if (grid instanceof byte[]) {
+            return GridCodec.decode((byte[]) grid);
+        }
+        Object width = properties.get("width");
+        Object height = properties.get("height");
+        Object cells = properties.get("cells");
+        if (!(width instanceof Number) || !(height instanceof Number) || !(cells instanceof byte[])) {
+            throw new IllegalArgumentException("Grid properties need a byte[] grid, or numeric width and height " +
+                    "and byte[] cells");
+        }
+        return of(((Number) width).intValue(), ((Number) height).intValue(), (byte[]) cells);
+    }
+
+    public Map<String, Object> toProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("width", (long) width);
+        properties.put("height", (long) height);
+        properties.put("grid", GridCodec.encode(this));
+        return properties;
+    }
+
+    /**
+     * Returns the rows as mutable lists. Cell values are small, so the Integers are shared
+     * cached instances.
+     */
+    public List<List<Integer>> toList() {
+        List<List<Integer>> rows = new ArrayList<>(height);
+        for (int r = 0; r < height; r++) {
+            List<Integer> row = new ArrayList<>(width);
+            for (int c = 0, i = r * width; c < width; c++, i++) {
+                row.add((int) cells[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int get(int row, int column) {
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") outside " + height + "x" + width);
+        }
+        return cells[row * width + column];
+    }
+
+    /**
+     * A copy of the cells, row by row.
+     */
+    public byte[] cells() {
+        return cells.clone();
+    }
+
+    /**
+     * The fraction of cells equal in both grids, or 0 if their sizes differ.
+     */
+    public double similarity(Grid other) {
+        if (width != other.width || height != other.height) {
+            return 0;
+        }
+        if (cells.length == 0) {
+            return 1;
+        }
+        int equal = 0;
+        byte[] a = cells;
+        byte[] b = other.cells;
+        for (int i = 0; i < a.length; i++) {
+            equal += a[i] == b[i] ? 1 : 0;
+        }
+        return (double) equal / a.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Grid)) {
+            return false;
+        }
+        Grid grid = (Grid) other;
+        return width == grid.width && height == grid.height && Arrays.equals(cells, grid.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * (31 * width + height) + Arrays.hashCode(cells);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Rows of hexadecimal digits separated by {@code /}, e.g. {@code 012/345}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(cells.length + height);
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0 && i % width == 0) {
+                out.append('/');
+            }
+            out.append(Character.forDigit(cells[i], 16));
+        }
+        return out.toString();
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width < 0 || height < 0 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Grid size " + height + "x" + width + " outside 0.." + MAX_SIZE);
+        }
+        if ((width == 0) != (height == 0)) {
+            throw new IllegalArgumentException("Grid size " + height + "x" + width + " has an empty dimension");
+        }
+    }
+
+    static void checkColor(long color) {
+        if (color < 0 || color > MAX_COLOR) {
+            throw new IllegalArgumentException("Grid color " + color + " outside 0.." + MAX_COLOR);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.safeai.neo4jplugin.grid;
+
+/**
+ * GridFeatures summarizes a grid for deciding, without running an agent, whether the agent can
+ * turn one grid into another: its size, how many cells have each color, whether it is
+ * symmetric, and how many objects it holds. Everything but the object count, which needs a
+ * pass of connected-component labelling, is computed up front.
+ */
+public final class GridFeatures {
+    private final int width;
+    private final int height;
+    private final int[] histogram;
+    private final int colorMask;
+    private final boolean mirrorSymmetric;
+    private final boolean flipSymmetric;
+    private final boolean pointSymmetric;
+    private final Grid grid;
+    private volatile int objects = -1;
+
+    private GridFeatures(Grid grid) {
+        this.grid = grid;
+        this.width = grid.width;
+        this.height = grid.height;
+        byte[] cells = grid.cells;
+        int[] counts = new int[Grid.MAX_COLOR + 1];
+        int mask = 0;
+        for (byte cell : cells) {
+            counts[cell]++;
+            mask |= 1 << cell;
+        }
+        this.histogram = counts;
+        this.colorMask = mask;
+        boolean mirror = true;
+        boolean flip = true;
+        for (int r = 0; r < height && (mirror || flip); r++) {
+            int row = r * width;
+            int flipped = (height - 1 - r) * width;
+            for (int c = 0; c < width; c++) {
+                byte cell = cells[row + c];
+                mirror &= cell == cells[row + width - 1 - c];
+                flip &= cell == cells[flipped + c];
+            }
+        }
+        this.mirrorSymmetric = mirror;
+        this.flipSymmetric = flip;
+        boolean point = true;
+        for (int i = 0, j = cells.length - 1; i < j && point; i++, j--) {
+            point = cells[i] == cells[j];
+        }
+        this.pointSymmetric = point;
+    }
+
+    public static GridFeatures of(Grid grid) {
+        return new GridFeatures(grid);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int cellCount() {
+        return width * height;
+    }
+
+    /**
+     * The number of cells of the color.
+     */
+    public int count(int color) {
+        return histogram[color];
+    }
+
+    /**
+     * Bit c is set if color c occurs, as in {@link GridTransforms#colorMask}.
+     */
+    public int colorMask() {
+        return colorMask;
+    }
+
+    /**
+     * True if the grid equals its left-right mirror image.
+     */
+    public boolean isMirrorSymmetric() {
+        return mirrorSymmetric;
+    }
+
+    /**
+     * True if the grid equals its top-bottom mirror image.
+     */
+    public boolean isFlipSymmetric() {
+        return flipSymmetric;
+    }
+
+    /**
+     * True if the grid equals its 180° rotation.
+     */
+    public boolean isPointSymmetric() {
+        return pointSymmetric;
+    }
+
+    /**
+     * The number of objects found by {@link GridTransforms#objects}; computed on first use.
+     */
+    public int objectCount() {
+        int count = objects;
+        if (count < 0) {
+            count = GridTransforms.objects(grid).size();
+            objects = count;
+        }
+        return count;
+    }
+
+    /**
+     * True if both grids have the same number of cells of each color.
+     */
+    public boolean sameHistogram(GridFeatures other) {
+        for (int c = 0; c <= Grid.MAX_COLOR; c++) {
+            if (histogram[c] != other.histogram[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.safeai.neo4jplugin.grid;
+
+/**
+ * A connected region of cells of one color, as found by {@link GridTransforms#objects}.
+ * {@code shape} is the object cropped to its bounding box, with cells outside the object set to
+ * the background color 0.
+ */
+public final class GridObject {
+    public final int color;
+    public final int size;
+    public final int top;
+    public final int left;
+    public final Grid shape;
+
+    GridObject(int color, int size, int top, int left, Grid shape) {
+        this.color = color;
+        this.size = size;
+        this.top = top;
+        this.left = left;
+        this.shape = shape;
+    }
+
+    @Override
+    public String toString() {
+        return "GridObject{color=" + color + ", size=" + size + ", at=(" + top + ", " + left + "), shape=" + shape + "}";
+    }
+}
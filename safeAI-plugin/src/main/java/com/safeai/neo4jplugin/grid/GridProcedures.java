@@ -0,0 +1,40 @@
+package com.safeai.neo4jplugin.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserFunction;
+
+/**
+ * GridProcedures let Cypher convert between grids as lists of rows and the {@link GridCodec}
+ * bytes they are stored as.
+ */
+public class GridProcedures {
+
+    @UserFunction(name = "safeai.grid.encode")
+    @Description("safeai.grid.encode([[0, 1], [2, 3]]) - Packs a grid, given as a list of rows or a map of grid " +
+                 "properties, into the bytes grids are stored as.")
+    public byte[] encode(@Name("grid") Object grid) {
+        return grid == null ? null : GridCodec.encode(Grid.from(grid));
+    }
+
+    @UserFunction(name = "safeai.grid.decode")
+    @Description("safeai.grid.decode(s.grid) - Unpacks stored grid bytes into a list of rows.")
+    public List<List<Long>> decode(@Name("bytes") byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        Grid grid = GridCodec.decode(bytes);
+        List<List<Long>> rows = new ArrayList<>(grid.height);
+        for (int r = 0; r < grid.height; r++) {
+            List<Long> row = new ArrayList<>(grid.width);
+            for (int c = 0, i = r * grid.width; c < grid.width; c++, i++) {
+                row.add((long) grid.cells[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package com.safeai.neo4jplugin.grid;
+
+/**
+ * A transformation from one grid to another, such as a rotation or a color map.
+ */
+@FunctionalInterface
+public interface GridTransform {
+
+    /**
+     * Returns the transformed grid.
+     *
+     * @throws IllegalArgumentException if the transformation does not apply to {@code grid},
+     *         for example because the result would exceed {@link Grid#MAX_SIZE}
+     */
+    Grid apply(Grid grid);
+
+    default GridTransform andThen(GridTransform next) {
+        return grid -> next.apply(apply(grid));
+    }
+}
@@ -0,0 +1,632 @@
+package com.safeai.neo4jplugin.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GridTransforms implements the standard ARC grid transformations on packed grids.
+ *
+ * Every transformation writes a fresh {@code byte[]} once and wraps it without copying. The
+ * loops are written over flat arrays with the index arithmetic hoisted out of the inner loop,
+ * and row-preserving operations (flips, shifts, crops, tiling) move whole rows with
+ * {@code System.arraycopy}. Color 0 is the background wherever a transformation needs one.
+ */
+public final class GridTransforms {
+
+    private GridTransforms() {
+    }
+
+    // Rotations and reflections
+
+    /**
+     * Rotates 90 degrees clockwise.
+     */
+    public static Grid rotate90(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int r = 0; r < h; r++) {
+            int column = h - 1 - r;
+            for (int c = 0, i = r * w; c < w; c++, i++) {
+                out[c * h + column] = in[i];
+            }
+        }
+        return new Grid(h, w, out);
+    }
+
+    public static Grid rotate180(Grid grid) {
+        byte[] in = grid.cells;
+        int n = in.length;
+        byte[] out = new byte[n];
+        for (int i = 0; i < n; i++) {
+            out[n - 1 - i] = in[i];
+        }
+        return new Grid(grid.width, grid.height, out);
+    }
+
+    /**
+     * Rotates 270 degrees clockwise, that is 90 degrees counterclockwise.
+     */
+    public static Grid rotate270(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0, i = r * w; c < w; c++, i++) {
+                out[(w - 1 - c) * h + r] = in[i];
+            }
+        }
+        return new Grid(h, w, out);
+    }
+
+    /**
+     * Mirrors left to right.
+     */
+    public static Grid reflectHorizontal(Grid grid) {
+        int w = grid.width;
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int start = 0; start < in.length; start += w) {
+            int last = start + w - 1;
+            for (int c = 0; c < w; c++) {
+                out[last - c] = in[start + c];
+            }
+        }
+        return new Grid(w, grid.height, out);
+    }
+
+    /**
+     * Mirrors top to bottom.
+     */
+    public static Grid reflectVertical(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] out = new byte[grid.cells.length];
+        for (int r = 0; r < h; r++) {
+            System.arraycopy(grid.cells, r * w, out, (h - 1 - r) * w, w);
+        }
+        return new Grid(w, h, out);
+    }
+
+    /**
+     * Reflects along the main diagonal (top left to bottom right).
+     */
+    public static Grid transpose(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0, i = r * w; c < w; c++, i++) {
+                out[c * h + r] = in[i];
+            }
+        }
+        return new Grid(h, w, out);
+    }
+
+    /**
+     * Reflects along the secondary diagonal (top right to bottom left).
+     */
+    public static Grid antiTranspose(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int r = 0; r < h; r++) {
+            int column = h - 1 - r;
+            for (int c = 0, i = r * w; c < w; c++, i++) {
+                out[(w - 1 - c) * h + column] = in[i];
+            }
+        }
+        return new Grid(h, w, out);
+    }
+
+    // Colors
+
+    /**
+     * Replaces every color c with {@code table[c]}; {@code table} needs an entry per color.
+     */
+    public static Grid mapColors(Grid grid, byte[] table) {
+        if (table.length <= Grid.MAX_COLOR) {
+            throw new IllegalArgumentException("Color table needs " + (Grid.MAX_COLOR + 1) + " entries");
+        }
+        for (byte color : table) {
+            if (color < 0 || color > Grid.MAX_COLOR) {
+                throw new IllegalArgumentException("Color table maps to " + color);
+            }
+        }
+        byte[] in = grid.cells;
+        byte[] out = new byte[in.length];
+        for (int i = 0; i < in.length; i++) {
+            out[i] = table[in[i]];
+        }
+        return new Grid(grid.width, grid.height, out);
+    }
+
+    /**
+     * Maps each ARC color x to 9 - x; colors above 9 are left alone.
+     */
+    public static Grid complement(Grid grid) {
+        byte[] table = identity();
+        for (int c = 0; c <= 9; c++) {
+            table[c] = (byte) (9 - c);
+        }
+        return mapColors(grid, table);
+    }
+
+    /**
+     * Swaps the colors present in the grid in reverse order of value: the smallest present color
+     * becomes the largest present one, and so on.
+     */
+    public static Grid invertPresentColors(Grid grid) {
+        int mask = colorMask(grid);
+        byte[] present = new byte[Integer.bitCount(mask)];
+        for (int c = 0, n = 0; c <= Grid.MAX_COLOR; c++) {
+            if ((mask & (1 << c)) != 0) {
+                present[n++] = (byte) c;
+            }
+        }
+        byte[] table = identity();
+        for (int i = 0; i < present.length; i++) {
+            table[present[i]] = present[present.length - 1 - i];
+        }
+        return mapColors(grid, table);
+    }
+
+    /**
+     * Sets colors below {@code threshold} to {@code low} and the others to {@code high}.
+     */
+    public static Grid threshold(Grid grid, int threshold, int low, int high) {
+        byte[] table = new byte[Grid.MAX_COLOR + 1];
+        for (int c = 0; c < table.length; c++) {
+            table[c] = (byte) (c < threshold ? low : high);
+        }
+        return mapColors(grid, table);
+    }
+
+    /**
+     * Bit c is set if color c occurs in the grid.
+     */
+    public static int colorMask(Grid grid) {
+        int mask = 0;
+        for (byte cell : grid.cells) {
+            mask |= 1 << cell;
+        }
+        return mask;
+    }
+
+    // Translation, cropping and scaling
+
+    /**
+     * Moves the content by {@code rows} down and {@code columns} right, filling vacated cells
+     * with {@code fill}; content moved past an edge is dropped.
+     */
+    public static Grid translate(Grid grid, int rows, int columns, int fill) {
+        Grid.checkColor(fill);
+        int w = grid.width;
+        int h = grid.height;
+        byte[] out = new byte[grid.cells.length];
+        if (fill != 0) {
+            Arrays.fill(out, (byte) fill);
+        }
+        int from = Math.max(0, -columns);
+        int to = Math.min(w, w - columns);
+        if (to > from) {
+            for (int r = Math.max(0, rows); r < Math.min(h, h + rows); r++) {
+                System.arraycopy(grid.cells, (r - rows) * w + from, out, r * w + from + columns, to - from);
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    public static Grid crop(Grid grid, int top, int left, int height, int width) {
+        if (top < 0 || left < 0 || height <= 0 || width <= 0
+                || top + height > grid.height || left + width > grid.width) {
+            throw new IllegalArgumentException("Crop " + height + "x" + width + " at (" + top + ", " + left +
+                    ") outside " + grid.height + "x" + grid.width);
+        }
+        byte[] out = new byte[width * height];
+        for (int r = 0; r < height; r++) {
+            System.arraycopy(grid.cells, (top + r) * grid.width + left, out, r * width, width);
+        }
+        return new Grid(width, height, out);
+    }
+
+    /**
+     * Crops to the bounding box of the cells that are not {@code background}; a grid without
+     * such cells is returned unchanged.
+     */
+    public static Grid cropToContent(Grid grid, int background) {
+        int w = grid.width;
+        int top = grid.height;
+        int bottom = -1;
+        int left = w;
+        int right = -1;
+        byte[] in = grid.cells;
+        for (int r = 0; r < grid.height; r++) {
+            for (int c = 0, i = r * w; c < w; c++, i++) {
+                if (in[i] != background) {
+                    top = Math.min(top, r);
+                    bottom = r;
+                    left = Math.min(left, c);
+                    right = Math.max(right, c);
+                }
+            }
+        }
+        return bottom < 0 ? grid : crop(grid, top, left, bottom - top + 1, right - left + 1);
+    }
+
+    /**
+     * Enlarges every cell to a {@code factor} x {@code factor} block.
+     */
+    public static Grid scaleUp(Grid grid, int factor) {
+        checkFactor(factor);
+        int w = grid.width * factor;
+        int h = grid.height * factor;
+        checkSize(w, h);
+        byte[] out = new byte[w * h];
+        for (int r = 0; r < grid.height; r++) {
+            int start = r * factor * w;
+            for (int c = 0, i = r * grid.width; c < grid.width; c++, i++) {
+                Arrays.fill(out, start + c * factor, start + (c + 1) * factor, grid.cells[i]);
+            }
+            for (int k = 1; k < factor; k++) {
+                System.arraycopy(out, start, out, start + k * w, w);
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    /**
+     * Shrinks every {@code factor} x {@code factor} block to its top left cell.
+     */
+    public static Grid scaleDown(Grid grid, int factor) {
+        if (factor <= 0 || grid.width % factor != 0 || grid.height % factor != 0) {
+            throw new IllegalArgumentException("Grid " + grid.height + "x" + grid.width +
+                    " is not divisible by " + factor);
+        }
+        int w = grid.width / factor;
+        int h = grid.height / factor;
+        byte[] out = new byte[w * h];
+        for (int r = 0; r < h; r++) {
+            int start = r * factor * grid.width;
+            for (int c = 0; c < w; c++) {
+                out[r * w + c] = grid.cells[start + c * factor];
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    /**
+     * Repeats the grid {@code rows} times down and {@code columns} times across.
+     */
+    public static Grid tile(Grid grid, int rows, int columns) {
+        checkFactor(rows);
+        checkFactor(columns);
+        int gw = grid.width;
+        int w = gw * columns;
+        int h = grid.height * rows;
+        checkSize(w, h);
+        byte[] out = new byte[w * h];
+        for (int r = 0; r < grid.height; r++) {
+            for (int k = 0; k < columns; k++) {
+                System.arraycopy(grid.cells, r * gw, out, r * w + k * gw, gw);
+            }
+        }
+        int block = grid.height * w;
+        for (int k = 1; k < rows; k++) {
+            System.arraycopy(out, 0, out, k * block, block);
+        }
+        return new Grid(w, h, out);
+    }
+
+    // Composition
+
+    /**
+     * Puts the non-background cells of {@code top} over {@code base}; both need the same size.
+     */
+    public static Grid overlay(Grid base, Grid top) {
+        if (base.width != top.width || base.height != top.height) {
+            throw new IllegalArgumentException("Cannot overlay " + top.height + "x" + top.width +
+                    " on " + base.height + "x" + base.width);
+        }
+        byte[] out = new byte[base.cells.length];
+        for (int i = 0; i < out.length; i++) {
+            byte t = top.cells[i];
+            out[i] = t != 0 ? t : base.cells[i];
+        }
+        return new Grid(base.width, base.height, out);
+    }
+
+    /**
+     * Copies the left half onto the right half, mirrored, so the grid is left-right symmetric.
+     */
+    public static Grid mirrorLeftHalf(Grid grid) {
+        int w = grid.width;
+        byte[] out = grid.cells.clone();
+        for (int start = 0; start < out.length; start += w) {
+            int last = start + w - 1;
+            for (int c = 0; c < w / 2; c++) {
+                out[last - c] = out[start + c];
+            }
+        }
+        return new Grid(w, grid.height, out);
+    }
+
+    /**
+     * Splits the grid into four equal quadrants, ignoring a middle separator row or column when
+     * the size is odd, and overlays them; where quadrants overlap, the first non-background cell
+     * in the order top left, top right, bottom left, bottom right wins.
+     */
+    public static Grid mergeQuadrants(Grid grid) {
+        int w = grid.width / 2;
+        int h = grid.height / 2;
+        if (w == 0 || h == 0) {
+            throw new IllegalArgumentException("Grid " + grid.height + "x" + grid.width + " has no quadrants");
+        }
+        int right = grid.width - w;
+        int bottom = grid.height - h;
+        byte[] in = grid.cells;
+        byte[] out = new byte[w * h];
+        for (int r = 0; r < h; r++) {
+            int upper = r * grid.width;
+            int lower = (r + bottom) * grid.width;
+            for (int c = 0; c < w; c++) {
+                byte v = in[upper + c];
+                if (v == 0) {
+                    v = in[upper + right + c];
+                }
+                if (v == 0) {
+                    v = in[lower + c];
+                }
+                if (v == 0) {
+                    v = in[lower + right + c];
+                }
+                out[r * w + c] = v;
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    // Regions
+
+    /**
+     * Recolors the 4-connected region of same-colored cells containing ({@code row}, {@code column}).
+     */
+    public static Grid floodFill(Grid grid, int row, int column, int color) {
+        Grid.checkColor(color);
+        int start = row * grid.width + column;
+        if (row < 0 || row >= grid.height || column < 0 || column >= grid.width) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") outside " + grid.height + "x" + grid.width);
+        }
+        byte[] out = grid.cells.clone();
+        byte target = out[start];
+        if (target != color) {
+            int[] stack = new int[out.length];
+            fill(out, grid.width, grid.height, start, target, (byte) color, stack);
+        }
+        return new Grid(grid.width, grid.height, out);
+    }
+
+    /**
+     * Fills every background region that does not touch the border with the color of a cell
+     * next to it.
+     */
+    public static Grid fillEnclosed(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] out = grid.cells.clone();
+        int[] stack = new int[out.length];
+        // Mark background reachable from the border with a temporary color outside 0..15
+        byte outside = -1;
+        for (int i = 0; i < out.length; i++) {
+            int r = i / w;
+            int c = i - r * w;
+            if (out[i] == 0 && (r == 0 || c == 0 || r == h - 1 || c == w - 1)) {
+                fill(out, w, h, i, (byte) 0, outside, stack);
+            }
+        }
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] == 0) {
+                byte color = neighbourColor(out, w, h, i);
+                if (color != 0) {
+                    fill(out, w, h, i, (byte) 0, color, stack);
+                }
+            }
+        }
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] == outside) {
+                out[i] = 0;
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    /**
+     * Fills background cells between two cells of the same color in a row with that color.
+     */
+    public static Grid fillHorizontalGaps(Grid grid) {
+        int w = grid.width;
+        byte[] out = grid.cells.clone();
+        for (int start = 0; start < out.length; start += w) {
+            int last = -1;
+            for (int c = 0; c < w; c++) {
+                byte v = out[start + c];
+                if (v != 0) {
+                    if (last >= 0 && out[start + last] == v) {
+                        Arrays.fill(out, start + last + 1, start + c, v);
+                    }
+                    last = c;
+                }
+            }
+        }
+        return new Grid(w, grid.height, out);
+    }
+
+    /**
+     * Clears the interior of every object, keeping the cells that touch another color or the
+     * edge of the grid.
+     */
+    public static Grid outline(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        byte[] out = in.clone();
+        for (int r = 1; r < h - 1; r++) {
+            for (int c = 1, i = r * w + 1; c < w - 1; c++, i++) {
+                byte v = in[i];
+                if (v != 0 && in[i - 1] == v && in[i + 1] == v && in[i - w] == v && in[i + w] == v) {
+                    out[i] = 0;
+                }
+            }
+        }
+        return new Grid(w, h, out);
+    }
+
+    /**
+     * The 4-connected single-color objects on the background color 0, in the order of their
+     * first cell row by row.
+     */
+    public static List<GridObject> objects(Grid grid) {
+        int w = grid.width;
+        int h = grid.height;
+        byte[] in = grid.cells;
+        boolean[] seen = new boolean[in.length];
+        int[] stack = new int[in.length];
+        int[] members = new int[in.length];
+        List<GridObject> objects = new ArrayList<>();
+        for (int startCell = 0; startCell < in.length; startCell++) {
+            byte color = in[startCell];
+            if (color == 0 || seen[startCell]) {
+                continue;
+            }
+            int size = 0;
+            int top = h;
+            int bottom = 0;
+            int left = w;
+            int right = 0;
+            int sp = 0;
+            stack[sp++] = startCell;
+            seen[startCell] = true;
+            while (sp > 0) {
+                int i = stack[--sp];
+                members[size++] = i;
+                int r = i / w;
+                int c = i - r * w;
+                top = Math.min(top, r);
+                bottom = Math.max(bottom, r);
+                left = Math.min(left, c);
+                right = Math.max(right, c);
+                if (c > 0 && !seen[i - 1] && in[i - 1] == color) {
+                    seen[i - 1] = true;
+                    stack[sp++] = i - 1;
+                }
+                if (c < w - 1 && !seen[i + 1] && in[i + 1] == color) {
+                    seen[i + 1] = true;
+                    stack[sp++] = i + 1;
+                }
+                if (r > 0 && !seen[i - w] && in[i - w] == color) {
+                    seen[i - w] = true;
+                    stack[sp++] = i - w;
+                }
+                if (r < h - 1 && !seen[i + w] && in[i + w] == color) {
+                    seen[i + w] = true;
+                    stack[sp++] = i + w;
+                }
+            }
+            int sw = right - left + 1;
+            byte[] shape = new byte[sw * (bottom - top + 1)];
+            for (int k = 0; k < size; k++) {
+                int r = members[k] / w;
+                int c = members[k] - r * w;
+                shape[(r - top) * sw + c - left] = color;
+            }
+            objects.add(new GridObject(color, size, top, left, new Grid(sw, bottom - top + 1, shape)));
+        }
+        return objects;
+    }
+
+    /**
+     * Recolors the 4-connected region of {@code target} cells containing {@code start}.
+     */
+    private static void fill(byte[] cells, int w, int h, int start, byte target, byte color, int[] stack) {
+        int sp = 0;
+        cells[start] = color;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int i = stack[--sp];
+            int r = i / w;
+            int c = i - r * w;
+            if (c > 0 && cells[i - 1] == target) {
+                cells[i - 1] = color;
+                stack[sp++] = i - 1;
+            }
+            if (c < w - 1 && cells[i + 1] == target) {
+                cells[i + 1] = color;
+                stack[sp++] = i + 1;
+            }
+            if (r > 0 && cells[i - w] == target) {
+                cells[i - w] = color;
+                stack[sp++] = i - w;
+            }
+            if (r < h - 1 && cells[i + w] == target) {
+                cells[i + w] = color;
+                stack[sp++] = i + w;
+            }
+        }
+    }
+
+    /**
+     * A non-background color next to the background region containing {@code start}, found
+     * by walking the region; 0 if the region only touches the marked outside.
+     */
+    private static byte neighbourColor(byte[] cells, int w, int h, int start) {
+        boolean[] seen = new boolean[cells.length];
+        int[] stack = new int[cells.length];
+        int sp = 0;
+        stack[sp++] = start;
+        seen[start] = true;
+        while (sp > 0) {
+            int i = stack[--sp];
+            int r = i / w;
+            int c = i - r * w;
+            int[] neighbours = {c > 0 ? i - 1 : -1, c < w - 1 ? i + 1 : -1, r > 0 ? i - w : -1, r < h - 1 ? i + w : -1};
+            for (int n : neighbours) {
+                if (n < 0 || seen[n]) {
+                    continue;
+                }
+                if (cells[n] > 0) {
+                    return cells[n];
+                }
+                if (cells[n] == 0) {
+                    seen[n] = true;
+                    stack[sp++] = n;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] identity() {
+        byte[] table = new byte[Grid.MAX_COLOR + 1];
+        for (int c = 0; c < table.length; c++) {
+            table[c] = (byte) c;
+        }
+        return table;
+    }
+
+    private static void checkFactor(int factor) {
+        if (factor <= 0) {
+            throw new IllegalArgumentException("Factor must be positive: " + factor);
+        }
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width > Grid.MAX_SIZE || height > Grid.MAX_SIZE) {
+            throw new IllegalArgumentException("Result " + height + "x" + width + " exceeds " + Grid.MAX_SIZE);
+        }
+    }
+}
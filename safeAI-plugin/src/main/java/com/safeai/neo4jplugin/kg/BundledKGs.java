@@ -0,0 +1,112 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+
+/**
+ * BundledKGs resolves the Knowledge Graphs packaged with the plugin into {@link KGDocument}s.
+ * The precompiled {@link KGSnapshot} is used when the build produced one; otherwise the JSON
+ * resources are parsed. Either way the raw JSON ends up in the {@link KGContentStore}.
+ */
+public final class BundledKGs {
+    private static final String[] FILES = {
+        "CyberSecurity_KG.json",
+        "DataPrivacySecurity_KG.json",
+        "EnergyManagement_KG.json",
+        "EnvironmentalSustainability_KG.json",
+        "Ethics_KG.json",
+        "FinancialAnalytics_KG.json",
+        "FreePress_KG.json",
+        "Internal_KG.json",
+        "LegalCompliance_KG.json",
+        "Math_KG.json",
+        "MedicalSafety_KG.json",
+        "PersonalizedLearning_KG.json",
+        "RiskManagement_KG.json",
+        "SmartCityAnalytics_KG.json",
+        "SupplyChainManagement_KG.json",
+        "UserBehaviorTrust_KG.json",
+        "VirtualAssistant_KG.json",
+        "VirtualMoralEthicalSoldier_KG.json",
+        "VirtualPoliceOfficer_KG.json",
+        "ARC_Puzzle_Agent_Definitions_KG.json"
+    };
+
+    private BundledKGs() {
+    }
+
+    public static String[] files() {
+        return FILES.clone();
+    }
+
+    /**
+     * Loads every bundled KG. Problems with individual files are appended to {@code messages}
+     * and the file is skipped; the returned order is stable between calls.
+     */
+    public static List<KGDocument> load(ClassLoader classLoader, KGContentStore store, List<String> messages) {
+        // Prefer the snapshot compiled at build time; it needs no JSON parsing
+        KGSnapshot snapshot = KGSnapshot.loadBundled(classLoader);
+        if (snapshot == null) {
+            return parse(classLoader, store, messages);
+        }
+        messages.add("Using precompiled KG snapshot with " + snapshot.size() + " KGs");
+        List<KGDocument> documents = new ArrayList<>();
+        for (KGDocument document : snapshot.documents()) {
+            try {
+                ensureContentStored(classLoader, store, document);
+                documents.add(document);
+            } catch (IOException e) {
+                messages.add("Error processing " + document.getSourceFile() + ": " + e.getMessage());
+            }
+        }
+        return documents;
+    }
+
+    private static List<KGDocument> parse(ClassLoader classLoader, KGContentStore store, List<String> messages) {
+        List<KGDocument> documents = new ArrayList<>();
+        for (String kgFile : FILES) {
+            try (InputStream is = classLoader.getResourceAsStream(kgFile)) {
+                if (is == null) {
+                    continue;
+                }
+                // Read and parse KG file
+                byte[] rawContent = is.readAllBytes();
+                JSONObject jsonObj = new JSONObject(new String(rawContent, StandardCharsets.UTF_8));
+
+                // Validate KG structure
+                List<KGSchemaValidator.Violation> violations = KGSchemaValidator.getDefault().validate(jsonObj);
+                if (!violations.isEmpty()) {
+                    for (KGSchemaValidator.Violation violation : violations) {
+                        messages.add("Invalid KG structure in " + kgFile + ": " + violation);
+                    }
+                    continue;
+                }
+
+                // Raw JSON lives in the content store; the node only keeps its hash
+                String contentHash = store.put(rawContent);
+                documents.add(KGDocument.fromJson(jsonObj, kgFile, contentHash, rawContent.length));
+            } catch (Exception e) {
+                messages.add("Error processing " + kgFile + ": " + e.getMessage());
+            }
+        }
+        return documents;
+    }
+
+    private static void ensureContentStored(ClassLoader classLoader, KGContentStore store, KGDocument document)
+            throws IOException {
+        if (document.getContentHash() == null || store.contains(document.getContentHash())) {
+            return;
+        }
+        try (InputStream is = classLoader.getResourceAsStream(document.getSourceFile())) {
+            if (is == null) {
+                throw new IOException("KG resource not found: " + document.getSourceFile());
+            }
+            store.put(is.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.safeai.neo4jplugin.MainPlugin;
+
+/**
+ * KGContentStore keeps raw Knowledge Graph documents on local disk, addressed by the
+ * SHA-256 hash of their bytes. Only the hash is stored on the KnowledgeGraph node, so the
+ * property store and page cache are not burdened with JSON that queries rarely read.
+ *
+ * Blobs are laid out as {@code <root>/<first two hex chars>/<hash>} and are immutable once
+ * written. Reads are memory-mapped; compressed blobs are inflated straight from the mapping.
+ */
+public class KGContentStore {
+    private static final Logger logger = Logger.getLogger(KGContentStore.class.getName());
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String COMPRESSED_SUFFIX = ".deflate";
+    // Small documents are not worth the inflate cost on every read
+    private static final int MIN_COMPRESS_SIZE = 4096;
+
+    private static KGContentStore defaultStore;
+
+    private final Path root;
+    private final boolean compress;
+
+    public KGContentStore(Path root, boolean compress) {
+        this.root = root;
+        this.compress = compress;
+    }
+
+    /**
+     * Returns the store configured by {@code kg.content.store.path} and
+     * {@code kg.content.store.compress}.
+     */
+    public static synchronized KGContentStore getDefault() {
+        if (defaultStore == null) {
+            String path = MainPlugin.getConfigProperty("kg.content.store.path",
+                    System.getProperty("user.home") + "/.safeai/kg-content");
+            boolean compress = Boolean.parseBoolean(MainPlugin.getConfigProperty("kg.content.store.compress", "true"));
+            defaultStore = new KGContentStore(Paths.get(path), compress);
+            logger.info("KG content store located at " + path + (compress ? " (compressed)" : ""));
+        }
+        return defaultStore;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Stores the given bytes if they are not already present.
+     *
+     * @return the SHA-256 hex hash that addresses the content
+     */
+    public String put(byte[] content) throws IOException {
+        String hash = sha256(content);
+        if (contains(hash)) {
+            return hash;
+        }
+        byte[] payload = content;
+        boolean compressed = false;
+        if (compress && content.length >= MIN_COMPRESS_SIZE) {
+            byte[] deflated = deflate(content);
+            if (deflated.length < content.length) {
+                payload = deflated;
+                compressed = true;
+            }
+        }
+        Path target = pathFor(hash, compressed);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(tmp, payload);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return hash;
+    }
+
+    public String put(String content) throws IOException {
+        return put(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean contains(String hash) {
+        checkHash(hash);
+        return Files.exists(pathFor(hash, false)) || Files.exists(pathFor(hash, true));
+    }
+
+    /**
+     * Returns a read-only view of the stored content, or {@code null} if the hash is unknown.
+     * Uncompressed blobs are returned as the memory mapping itself.
+     */
+    public ByteBuffer get(String hash) throws IOException {
+        checkHash(hash);
+        Path plain = pathFor(hash, false);
+        if (Files.exists(plain)) {
+            return map(plain);
+        }
+        Path packed = pathFor(hash, true);
+        if (Files.exists(packed)) {
+            return ByteBuffer.wrap(inflate(map(packed))).asReadOnlyBuffer();
+        }
+        return null;
+    }
+
+    public String getString(String hash) throws IOException {
+        ByteBuffer buffer = get(hash);
+        return buffer == null ? null : StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    public static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Path pathFor(String hash, boolean compressed) {
+        return root.resolve(hash.substring(0, 2)).resolve(compressed ? hash + COMPRESSED_SUFFIX : hash);
+    }
+
+    private static void checkHash(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash: " + hash);
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+            // Original length leads the blob so reads can size the output buffer exactly
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(content.length).array(), 0, Integer.BYTES);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer packed) throws IOException {
+        int length = packed.getInt();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            byte[] content = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int n = inflater.inflate(content, offset, length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != length) {
+                throw new IOException("Corrupt compressed KG content: expected " + length + " bytes, got " + offset);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed KG content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
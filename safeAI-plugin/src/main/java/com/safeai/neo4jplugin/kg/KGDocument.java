@@ -0,0 +1,176 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * KGDocument is the parsed, graph-ready form of a Knowledge Graph definition: the KG itself,
+ * its capabilities, agents, agent-capability links and relationships, each as property maps
+ * that can be handed to Cypher unchanged.
+ */
+public final class KGDocument {
+    private final String name;
+    private final String description;
+    private final String sourceFile;
+    private final String contentHash;
+    private final long contentSize;
+    private final List<Map<String, Object>> capabilities;
+    private final List<Map<String, Object>> agents;
+    private final List<Map<String, Object>> capabilityLinks;
+    private final List<Map<String, Object>> relationships;
+
+    public KGDocument(String name, String description, String sourceFile, String contentHash, long contentSize,
+                      List<Map<String, Object>> capabilities, List<Map<String, Object>> agents,
+                      List<Map<String, Object>> capabilityLinks, List<Map<String, Object>> relationships) {
+        this.name = name;
+        this.description = description;
+        this.sourceFile = sourceFile;
+        this.contentHash = contentHash;
+        this.contentSize = contentSize;
+        this.capabilities = Collections.unmodifiableList(capabilities);
+        this.agents = Collections.unmodifiableList(agents);
+        this.capabilityLinks = Collections.unmodifiableList(capabilityLinks);
+        this.relationships = Collections.unmodifiableList(relationships);
+    }
+
+    /**
+     * Builds a document from a parsed KG JSON file.
+     *
+     * @param kg the parsed KG
+     * @param sourceFile the resource the KG was read from
+     * @param contentHash content store hash of the raw JSON
+     * @param contentSize size of the raw JSON in bytes
+     */
+    public static KGDocument fromJson(JSONObject kg, String sourceFile, String contentHash, long contentSize) {
+        String name = kg.has("domain") ? kg.getString("domain") : sourceFile.replace("_KG.json", "");
+        String description = kg.optString("description", "Agentic Knowledge Graph for " + name);
+
+        List<Map<String, Object>> capabilities = new ArrayList<>();
+        if (kg.has("capabilities")) {
+            JSONArray caps = kg.getJSONArray("capabilities");
+            for (int i = 0; i < caps.length(); i++) {
+                capabilities.add(toProperties(caps.getJSONObject(i)));
+            }
+        }
+
+        List<Map<String, Object>> agents = new ArrayList<>();
+        List<Map<String, Object>> links = new ArrayList<>();
+        if (kg.has("agents")) {
+            JSONArray agentArray = kg.getJSONArray("agents");
+            for (int i = 0; i < agentArray.length(); i++) {
+                JSONObject agentObj = agentArray.getJSONObject(i);
+                Map<String, Object> props = new LinkedHashMap<>();
+                for (String key : agentObj.keySet()) {
+                    if (!key.equals("capabilities")) {
+                        props.put(key, convertJson(agentObj.get(key)));
+                    }
+                }
+                props.put("kgName", name);
+                agents.add(props);
+                if (agentObj.has("capabilities")) {
+                    JSONArray agentCaps = agentObj.getJSONArray("capabilities");
+                    for (int j = 0; j < agentCaps.length(); j++) {
+                        links.add(capabilityLink(agentObj.getString("name"), agentCaps.getString(j)));
+                    }
+                }
+            }
+        }
+
+        List<Map<String, Object>> relationships = new ArrayList<>();
+        if (kg.has("relationships")) {
+            JSONArray rels = kg.getJSONArray("relationships");
+            for (int i = 0; i < rels.length(); i++) {
+                JSONObject rel = rels.getJSONObject(i);
+                relationships.add(relationship(rel.getString("from"), rel.getString("to"),
+                        rel.getString("type"), rel.optString("description", "")));
+            }
+        }
+
+        return new KGDocument(name, description, sourceFile, contentHash, contentSize,
+                capabilities, agents, links, relationships);
+    }
+
+    public static Map<String, Object> capabilityLink(String agent, String capability) {
+        Map<String, Object> link = new HashMap<>();
+        link.put("agent", agent);
+        link.put("capability", capability);
+        return link;
+    }
+
+    public static Map<String, Object> relationship(String from, String to, String type, String description) {
+        Map<String, Object> rel = new HashMap<>();
+        rel.put("from", from);
+        rel.put("to", to);
+        rel.put("type", type);
+        rel.put("description", description);
+        return rel;
+    }
+
+    static Map<String, Object> toProperties(JSONObject obj) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        for (String key : obj.keySet()) {
+            props.put(key, convertJson(obj.get(key)));
+        }
+        return props;
+    }
+
+    static Object convertJson(Object o) {
+        if (o instanceof JSONArray) {
+            List<Object> list = new ArrayList<>();
+            JSONArray arr = (JSONArray) o;
+            for (int i = 0; i < arr.length(); i++) {
+                list.add(convertJson(arr.get(i)));
+            }
+            return list;
+        } else if (o instanceof JSONObject) {
+            return toProperties((JSONObject) o);
+        } else if (o == JSONObject.NULL) {
+            return null;
+        } else {
+            return o;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public long getContentSize() {
+        return contentSize;
+    }
+
+    public List<Map<String, Object>> getCapabilities() {
+        return capabilities;
+    }
+
+    public List<Map<String, Object>> getAgents() {
+        return agents;
+    }
+
+    public List<Map<String, Object>> getCapabilityLinks() {
+        return capabilityLinks;
+    }
+
+    public List<Map<String, Object>> getRelationships() {
+        return relationships;
+    }
+}
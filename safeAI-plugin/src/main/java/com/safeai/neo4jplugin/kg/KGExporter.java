@@ -0,0 +1,273 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import com.safeai.neo4jplugin.MainPlugin;
+
+/**
+ * KGExporter streams a loaded Knowledge Graph to NDJSON: a header line, one line per node
+ * (the KG, its capabilities and its agents) and one line per relationship between them. Rows
+ * are written as the query yields them, so memory use does not grow with the size of the KG.
+ *
+ * Nodes and relationship ends are identified by natural keys (see {@link #keyFields}) rather
+ * than internal ids, so {@link KGImporter} can MERGE them into a different database. Capabilities
+ * are only unique within their KG, so their keys also carry the name of the exported KG. Temporal
+ * values are written as ISO strings and tagged in a {@code types} object so they round-trip.
+ */
+public class KGExporter {
+    public static final String FORMAT = "safeai-kg-ndjson";
+    public static final int VERSION = 2;
+
+    // Key field naming the KG that owns a Capability
+    static final String OWNER_FIELD = "kgName";
+
+    // The KG itself plus everything it owns
+    private static final String MEMBERS =
+        "MATCH (kg:KnowledgeGraph {name: $name}) " +
+        "CALL { WITH kg RETURN kg AS member " +
+        "       UNION WITH kg MATCH (kg)-[:HAS_CAPABILITY|HAS_AGENT]->(member) RETURN member } ";
+
+    static final String EXPORT_NODES = MEMBERS + "RETURN DISTINCT member";
+
+    static final String EXPORT_RELATIONSHIPS = MEMBERS +
+        "MATCH (member)-[r]->(other) " +
+        "WHERE other = kg OR (kg)-[:HAS_CAPABILITY|HAS_AGENT]->(other) " +
+        "RETURN DISTINCT r";
+
+    private static final List<String> PRIMARY_LABELS = List.of("KnowledgeGraph", "Agent", "Capability");
+
+    private final GraphDatabaseService db;
+
+    public KGExporter(GraphDatabaseService db) {
+        this.db = db;
+    }
+
+    /**
+     * Writes the named KG to {@code file}, gzip-compressed if requested.
+     *
+     * @return node and relationship counts as {@code [nodes, relationships]}
+     */
+    public long[] export(String name, Path file, boolean gzip) throws IOException {
+        long nodes = 0;
+        long relationships = 0;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+             Transaction tx = db.beginTx()) {
+            JSONObject header = new JSONObject();
+            header.put("type", "header");
+            header.put("format", FORMAT);
+            header.put("version", VERSION);
+            header.put("kg", name);
+            header.put("exportedAt", ZonedDateTime.now().toString());
+            writeLine(writer, header);
+
+            try (Result result = tx.execute(EXPORT_NODES, Map.of("name", name))) {
+                while (result.hasNext()) {
+                    Node node = (Node) result.next().get("member");
+                    writeLine(writer, nodeLine(name, labels(node), node.getAllProperties()));
+                    nodes++;
+                }
+            }
+            if (nodes == 0) {
+                throw new IllegalArgumentException("KnowledgeGraph not found: " + name);
+            }
+            try (Result result = tx.execute(EXPORT_RELATIONSHIPS, Map.of("name", name))) {
+                while (result.hasNext()) {
+                    Relationship rel = (Relationship) result.next().get("r");
+                    Node start = rel.getStartNode();
+                    Node end = rel.getEndNode();
+                    writeLine(writer, relationshipLine(name, rel.getType().name(),
+                            labels(start), start.getAllProperties(),
+                            labels(end), end.getAllProperties(),
+                            rel.getAllProperties()));
+                    relationships++;
+                }
+            }
+        }
+        return new long[] { nodes, relationships };
+    }
+
+    /**
+     * Resolves an export path against {@code kg.export.dir}; paths outside it are rejected so the
+     * export and import procedures cannot touch arbitrary files.
+     *
+     * @throws IllegalArgumentException if the path lies outside {@code kg.export.dir}
+     */
+    public static Path resolve(String path) {
+        String dir = MainPlugin.getConfigProperty("kg.export.dir",
+                Paths.get(System.getProperty("user.home"), ".safeai", "kg-export").toString());
+        return MainPlugin.resolveWithin(dir, path);
+    }
+
+    static JSONObject nodeLine(String kgName, List<String> labels, Map<String, Object> properties) {
+        JSONObject line = new JSONObject();
+        line.put("type", "node");
+        line.put("labels", new JSONArray(labels));
+        line.put("key", key(kgName, labels, properties));
+        putProperties(line, properties);
+        return line;
+    }
+
+    static JSONObject relationshipLine(String kgName, String type,
+                                       List<String> startLabels, Map<String, Object> startProperties,
+                                       List<String> endLabels, Map<String, Object> endProperties,
+                                       Map<String, Object> properties) {
+        JSONObject line = new JSONObject();
+        line.put("type", "relationship");
+        line.put("relType", type);
+        line.put("start", endpoint(kgName, startLabels, startProperties));
+        line.put("end", endpoint(kgName, endLabels, endProperties));
+        putProperties(line, properties);
+        return line;
+    }
+
+    /**
+     * The label a node is merged on: the first known KG label, else its first label.
+     */
+    static String primaryLabel(List<String> labels) {
+        for (String label : PRIMARY_LABELS) {
+            if (labels.contains(label)) {
+                return label;
+            }
+        }
+        if (labels.isEmpty()) {
+            throw new IllegalStateException("Cannot export a node without labels");
+        }
+        return labels.get(0);
+    }
+
+    /**
+     * Properties that identify a node with the given label. Agents are only unique per KG.
+     */
+    static List<String> keyFields(String label) {
+        return "Agent".equals(label) ? List.of("name", "kgName") : List.of("name");
+    }
+
+    /**
+     * Whether nodes with the given label belong to the KG that links to them with
+     * {@code HAS_CAPABILITY}, as {@link KGWriter} keeps capabilities, rather than being keyed by
+     * their properties alone. Their keys carry the owning KG's name as {@link #OWNER_FIELD}.
+     */
+    static boolean ownedByKG(String label) {
+        return "Capability".equals(label);
+    }
+
+    /**
+     * Properties that distinguish parallel relationships of the same type, matching how
+     * {@link KGWriter} merges them.
+     */
+    static List<String> relationshipKeyFields(String type) {
+        return "RELATES_TO".equals(type) ? List.of("type") : List.of();
+    }
+
+    private static JSONObject endpoint(String kgName, List<String> labels, Map<String, Object> properties) {
+        JSONObject endpoint = new JSONObject();
+        endpoint.put("label", primaryLabel(labels));
+        endpoint.put("key", key(kgName, labels, properties));
+        return endpoint;
+    }
+
+    private static JSONObject key(String kgName, List<String> labels, Map<String, Object> properties) {
+        String label = primaryLabel(labels);
+        JSONObject key = new JSONObject();
+        for (String field : keyFields(label)) {
+            Object value = properties.get(field);
+            if (value == null) {
+                throw new IllegalStateException("Cannot export " + label + " node without " + field);
+            }
+            key.put(field, value);
+        }
+        if (ownedByKG(label)) {
+            key.put(OWNER_FIELD, kgName);
+        }
+        return key;
+    }
+
+    private static void putProperties(JSONObject line, Map<String, Object> properties) {
+        JSONObject props = new JSONObject();
+        JSONObject types = new JSONObject();
+        for (Map.Entry<String, Object> entry : new LinkedHashMap<>(properties).entrySet()) {
+            Object value = entry.getValue();
+            String type = temporalType(value);
+            if (type != null) {
+                types.put(entry.getKey(), type);
+                props.put(entry.getKey(), value.toString());
+            } else if (value != null && value.getClass().isArray()) {
+                JSONArray array = new JSONArray();
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    array.put(Array.get(value, i));
+                }
+                props.put(entry.getKey(), array);
+            } else if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                props.put(entry.getKey(), value);
+            } else if (value != null) {
+                // Points and durations have no JSON form; keep their text
+                props.put(entry.getKey(), value.toString());
+            }
+        }
+        line.put("properties", props);
+        if (types.length() > 0) {
+            line.put("types", types);
+        }
+    }
+
+    static String temporalType(Object value) {
+        if (value instanceof ZonedDateTime) {
+            return "datetime";
+        } else if (value instanceof LocalDateTime) {
+            return "localdatetime";
+        } else if (value instanceof LocalDate) {
+            return "date";
+        } else if (value instanceof OffsetTime) {
+            return "time";
+        } else if (value instanceof LocalTime) {
+            return "localtime";
+        }
+        return null;
+    }
+
+    private static List<String> labels(Node node) {
+        List<String> labels = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        return labels;
+    }
+
+    private static void writeLine(Writer writer, JSONObject line) throws IOException {
+        writer.write(line.toString());
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,272 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * KGImporter reads the NDJSON written by {@link KGExporter} and MERGEs it into the graph.
+ * Lines are grouped by the statement they need (same labels and key) and each group is
+ * written with one UNWIND statement per batch, so only a batch of rows per group is ever
+ * held in memory. Importing the same file twice leaves the graph unchanged.
+ *
+ * Capabilities are merged through the KG that owns them, as {@link KGWriter} writes them, so two
+ * KGs with a capability of the same name keep a Capability node each.
+ */
+public class KGImporter {
+    private final GraphDatabaseService db;
+    private final int batchSize;
+    private final Map<String, List<Map<String, Object>>> pending = new LinkedHashMap<>();
+
+    // KG named in the header; owns capabilities of version 1 files, whose keys do not name it
+    private String headerKG;
+    private long nodes;
+    private long relationships;
+    private long batches;
+
+    public KGImporter(GraphDatabaseService db, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.db = db;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports a file; gzip-compressed files are detected automatically.
+     *
+     * @return {@code [nodes, relationships, batches]}
+     */
+    public long[] importFile(Path file) throws IOException {
+        try (InputStream in = open(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            boolean relationshipsStarted = false;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JSONObject record = new JSONObject(line);
+                String type = record.optString("type", "");
+                switch (type) {
+                    case "header":
+                        checkHeader(record);
+                        headerKG = record.optString("kg", null);
+                        break;
+                    case "node":
+                        add(nodeStatement(record), nodeRow(record));
+                        nodes++;
+                        break;
+                    case "relationship":
+                        if (!relationshipsStarted) {
+                            // Relationships match their end nodes, so every node must be written first
+                            flushAll();
+                            relationshipsStarted = true;
+                        }
+                        add(relationshipStatement(record), relationshipRow(record));
+                        relationships++;
+                        break;
+                    default:
+                        throw new IOException("Unknown record type '" + type + "' on line " + lineNumber + " of " + file);
+                }
+            }
+            flushAll();
+        }
+        return new long[] { nodes, relationships, batches };
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
+
+    private static void checkHeader(JSONObject header) throws IOException {
+        if (!KGExporter.FORMAT.equals(header.optString("format")) || header.optInt("version") > KGExporter.VERSION) {
+            throw new IOException("Unsupported KG export: " + header.optString("format") + " v" + header.optInt("version"));
+        }
+    }
+
+    private void add(String statement, Map<String, Object> row) {
+        List<Map<String, Object>> rows = pending.computeIfAbsent(statement, k -> new ArrayList<>());
+        rows.add(row);
+        if (rows.size() >= batchSize) {
+            flush(statement, rows);
+            pending.remove(statement);
+        }
+    }
+
+    private void flushAll() {
+        for (Map.Entry<String, List<Map<String, Object>>> entry : pending.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+        pending.clear();
+    }
+
+    private void flush(String statement, List<Map<String, Object>> rows) {
+        try (Transaction tx = db.beginTx()) {
+            KGWriter.writeRows(tx, statement, rows);
+            tx.commit();
+        }
+        batches++;
+    }
+
+    static String nodeStatement(JSONObject record) {
+        List<String> labelList = labels(record);
+        String primary = KGExporter.primaryLabel(labelList);
+        StringBuilder sb = new StringBuilder("UNWIND $rows AS row MERGE ");
+        if (KGExporter.ownedByKG(primary)) {
+            // The KG line may not have been written yet; its properties are set when it is
+            sb.append("(kg:`KnowledgeGraph` {`name`: row.key.").append(quote(KGExporter.OWNER_FIELD))
+                .append("}) MERGE (kg)-[:`HAS_CAPABILITY`]->");
+        }
+        sb.append("(n:").append(quote(primary)).append(keyPattern("row.key", KGExporter.keyFields(primary))).append(')');
+        for (String label : labelList) {
+            if (!label.equals(primary)) {
+                sb.append(" SET n:").append(quote(label));
+            }
+        }
+        return sb.append(" SET n += row.properties").toString();
+    }
+
+    static String relationshipStatement(JSONObject record) {
+        JSONObject start = record.getJSONObject("start");
+        JSONObject end = record.getJSONObject("end");
+        String type = record.getString("relType");
+        String startLabel = start.getString("label");
+        String endLabel = end.getString("label");
+        return "UNWIND $rows AS row " +
+                endpointMatch("a", startLabel, "row.start") +
+                endpointMatch("b", endLabel, "row.end") +
+                "MERGE (a)-[r:" + quote(type) + keyPattern("row.properties", KGExporter.relationshipKeyFields(type)) + "]->(b) " +
+                "SET r += row.properties";
+    }
+
+    private Map<String, Object> nodeRow(JSONObject record) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("key", key(record.getJSONObject("key"), KGExporter.primaryLabel(labels(record))));
+        row.put("properties", decodeProperties(record.getJSONObject("properties"), record.optJSONObject("types")));
+        return row;
+    }
+
+    private Map<String, Object> relationshipRow(JSONObject record) {
+        Map<String, Object> row = new HashMap<>();
+        JSONObject start = record.getJSONObject("start");
+        JSONObject end = record.getJSONObject("end");
+        row.put("start", key(start.getJSONObject("key"), start.getString("label")));
+        row.put("end", key(end.getJSONObject("key"), end.getString("label")));
+        row.put("properties", decodeProperties(record.getJSONObject("properties"), record.optJSONObject("types")));
+        return row;
+    }
+
+    private Map<String, Object> key(JSONObject key, String label) {
+        Map<String, Object> properties = KGDocument.toProperties(key);
+        if (KGExporter.ownedByKG(label) && headerKG != null) {
+            properties.putIfAbsent(KGExporter.OWNER_FIELD, headerKG);
+        }
+        return properties;
+    }
+
+    private static List<String> labels(JSONObject record) {
+        JSONArray labels = record.getJSONArray("labels");
+        List<String> labelList = new ArrayList<>();
+        for (int i = 0; i < labels.length(); i++) {
+            labelList.add(labels.getString(i));
+        }
+        return labelList;
+    }
+
+    /**
+     * Matches a relationship end; capabilities are matched through the KG that owns them.
+     */
+    private static String endpointMatch(String variable, String label, String source) {
+        String node = "(" + variable + ":" + quote(label) + keyPattern(source, KGExporter.keyFields(label)) + ")";
+        if (KGExporter.ownedByKG(label)) {
+            return "MATCH (:`KnowledgeGraph` {`name`: " + source + "." + quote(KGExporter.OWNER_FIELD) + "})" +
+                    "-[:`HAS_CAPABILITY`]->" + node + " ";
+        }
+        return "MATCH " + node + " ";
+    }
+
+    /**
+     * Converts exported properties back to Neo4j values, restoring tagged temporal values.
+     */
+    static Map<String, Object> decodeProperties(JSONObject properties, JSONObject types) {
+        Map<String, Object> props = KGDocument.toProperties(properties);
+        if (types != null) {
+            for (String key : types.keySet()) {
+                String text = (String) props.get(key);
+                if (text == null) {
+                    continue;
+                }
+                switch (types.getString(key)) {
+                    case "datetime":
+                        props.put(key, ZonedDateTime.parse(text));
+                        break;
+                    case "localdatetime":
+                        props.put(key, LocalDateTime.parse(text));
+                        break;
+                    case "date":
+                        props.put(key, LocalDate.parse(text));
+                        break;
+                    case "time":
+                        props.put(key, OffsetTime.parse(text));
+                        break;
+                    case "localtime":
+                        props.put(key, LocalTime.parse(text));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown property type for " + key + ": " + types.getString(key));
+                }
+            }
+        }
+        return props;
+    }
+
+    private static String keyPattern(String source, List<String> fields) {
+        if (fields.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(" {");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(quote(fields.get(i))).append(": ").append(source).append('.').append(quote(fields.get(i)));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String quote(String identifier) {
+        return '`' + identifier.replace("`", "``") + '`';
+    }
+}
@@ -0,0 +1,238 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+import com.safeai.neo4jplugin.GroovyAgentPrecompiler;
+
+/**
+ * KGLoadJob loads a list of {@link KGDocument}s in the background. Documents are written in
+ * batches of entities, one transaction per batch, and each transaction also advances the
+ * checkpoint on the job's {@code KGLoadJob} node. After a crash or restart the job can be
+ * resumed from the last committed batch; writes use MERGE, so replaying is harmless. With
+ * {@code clean}, the KGs being loaded are first deleted with their agents and capabilities;
+ * other KGs are left alone.
+ */
+public class KGLoadJob implements Runnable {
+    private static final Logger logger = Logger.getLogger(KGLoadJob.class.getName());
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED, INTERRUPTED }
+
+    // A clean removes only the job's KGs, members first: deleting a KG before all its agents and
+    // capabilities would leave those that did not fit in the batch unreachable
+    static final String CLEAN_MEMBERS_BATCH =
+        "MATCH (kg:KnowledgeGraph)-[:HAS_CAPABILITY|HAS_AGENT]->(member) WHERE kg.name IN $names " +
+        "WITH DISTINCT member LIMIT $limit DETACH DELETE member RETURN count(*) AS deleted";
+
+    static final String CLEAN_KGS_BATCH =
+        "MATCH (kg:KnowledgeGraph) WHERE kg.name IN $names " +
+        "WITH kg LIMIT $limit DETACH DELETE kg RETURN count(*) AS deleted";
+
+    static final String CHECKPOINT =
+        "MATCH (j:KGLoadJob {jobId: $jobId}) " +
+        "SET j.kgIndex = $kgIndex, j.offset = $offset, j.processed = $processed, j.updatedAt = datetime()";
+
+    static final String UPDATE_STATUS =
+        "MATCH (j:KGLoadJob {jobId: $jobId}) " +
+        "SET j.status = $status, j.cleaned = $cleaned, j.error = $error, j.updatedAt = datetime()";
+
+    private final GraphDatabaseService db;
+    private final String jobId;
+    private final List<KGDocument> documents;
+    private final int batchSize;
+    private final boolean clean;
+    private final long total;
+    private final AtomicLong processed;
+
+    private volatile Status status = Status.PENDING;
+    private volatile boolean cleaned;
+    private volatile int kgIndex;
+    private volatile int offset;
+    private volatile String error;
+    private volatile long runStartedMillis;
+    private volatile long processedAtRunStart;
+
+    KGLoadJob(GraphDatabaseService db, String jobId, List<KGDocument> documents, int batchSize, boolean clean,
+              boolean cleaned, int kgIndex, int offset, long processed) {
+        this.db = db;
+        this.jobId = jobId;
+        this.documents = documents;
+        this.batchSize = batchSize;
+        this.clean = clean;
+        this.cleaned = cleaned;
+        this.kgIndex = kgIndex;
+        this.offset = offset;
+        this.processed = new AtomicLong(processed);
+        this.total = totalEntities(documents);
+    }
+
+    static long totalEntities(List<KGDocument> documents) {
+        long total = 0;
+        for (KGDocument document : documents) {
+            total += KGWriter.entityCount(document);
+        }
+        return total;
+    }
+
+    /**
+     * Identifies the document list a job was started with, so a resume can refuse to apply a
+     * checkpoint to different KGs.
+     */
+    static String fingerprint(List<KGDocument> documents) {
+        StringBuilder sb = new StringBuilder();
+        for (KGDocument document : documents) {
+            sb.append(document.getName()).append(':').append(document.getContentHash()).append('\n');
+        }
+        return KGContentStore.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void run() {
+        runStartedMillis = System.currentTimeMillis();
+        processedAtRunStart = processed.get();
+        status = Status.RUNNING;
+        try {
+            persistStatus();
+            if (clean && !cleaned) {
+                cleanGraph();
+                cleaned = true;
+                persistStatus();
+            }
+            while (kgIndex < documents.size()) {
+                KGDocument document = documents.get(kgIndex);
+                int count = KGWriter.entityCount(document);
+                while (offset < count) {
+                    int to = Math.min(offset + batchSize, count);
+                    long done = processed.get() + (to - offset);
+                    try (Transaction tx = db.beginTx()) {
+                        KGWriter.mergeRange(tx, document, offset, to);
+                        checkpoint(tx, kgIndex, to, done);
+                        tx.commit();
+                    }
+                    processed.set(done);
+                    offset = to;
+                }
+                logger.info("KG load job " + jobId + " loaded KG: " + document.getName());
+                kgIndex++;
+                offset = 0;
+            }
+            status = Status.COMPLETED;
+            persistStatus();
+            GroovyAgentPrecompiler.precompileAsync(documents);
+            logger.info("KG load job " + jobId + " completed: " + processed.get() + " entities");
+        } catch (Exception e) {
+            error = e.getMessage();
+            status = Status.FAILED;
+            logger.log(Level.WARNING, "KG load job " + jobId + " failed at KG " + kgIndex + ", offset " + offset, e);
+            try {
+                persistStatus();
+            } catch (Exception persistError) {
+                logger.warning("Could not record failure of KG load job " + jobId + ": " + persistError.getMessage());
+            }
+        }
+    }
+
+    private void cleanGraph() {
+        List<String> names = new ArrayList<>();
+        for (KGDocument document : documents) {
+            names.add(document.getName());
+        }
+        Map<String, Object> params = Map.of("names", names, "limit", (long) batchSize);
+        deleteInBatches(CLEAN_MEMBERS_BATCH, params);
+        deleteInBatches(CLEAN_KGS_BATCH, params);
+    }
+
+    private void deleteInBatches(String statement, Map<String, Object> params) {
+        long deleted;
+        do {
+            try (Transaction tx = db.beginTx()) {
+                deleted = (Long) tx.execute(statement, params).next().get("deleted");
+                tx.commit();
+            }
+        } while (deleted > 0);
+    }
+
+    private void checkpoint(Transaction tx, int kgIndex, int offset, long processed) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("jobId", jobId);
+        params.put("kgIndex", kgIndex);
+        params.put("offset", offset);
+        params.put("processed", processed);
+        tx.execute(CHECKPOINT, params);
+    }
+
+    private void persistStatus() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("jobId", jobId);
+        params.put("status", status.name());
+        params.put("cleaned", cleaned);
+        params.put("error", error);
+        try (Transaction tx = db.beginTx()) {
+            tx.execute(UPDATE_STATUS, params);
+            tx.commit();
+        }
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public String getCurrentKG() {
+        int index = kgIndex;
+        return index < documents.size() ? documents.get(index).getName() : null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Entities written per second since this run started (resumed runs start from zero).
+     */
+    public double getRate() {
+        long elapsed = System.currentTimeMillis() - runStartedMillis;
+        if (status != Status.RUNNING || elapsed <= 0) {
+            return 0.0;
+        }
+        return (processed.get() - processedAtRunStart) * 1000.0 / elapsed;
+    }
+
+    /**
+     * Estimated seconds to completion at the current rate, or {@code null} if unknown.
+     */
+    public Long getEtaSeconds() {
+        if (status == Status.COMPLETED) {
+            return 0L;
+        }
+        double rate = getRate();
+        if (rate <= 0) {
+            return null;
+        }
+        return (long) Math.ceil((total - processed.get()) / rate);
+    }
+}
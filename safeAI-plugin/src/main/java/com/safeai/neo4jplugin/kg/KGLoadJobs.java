@@ -0,0 +1,144 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import com.safeai.neo4jplugin.MainPlugin;
+
+/**
+ * KGLoadJobs starts and resumes {@link KGLoadJob}s. Jobs run one at a time on a single
+ * background thread so two loads never write the same KGs concurrently. A job is kept in memory
+ * only until it finishes; from then on its status is read from its {@code KGLoadJob} node.
+ */
+public final class KGLoadJobs {
+    private static final Logger logger = Logger.getLogger(KGLoadJobs.class.getName());
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "safeai-kg-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, KGLoadJob> jobs = new ConcurrentHashMap<>();
+
+    static final String CREATE_JOB =
+        "CREATE (j:KGLoadJob {jobId: $jobId, status: 'PENDING', fingerprint: $fingerprint, kgCount: $kgCount, " +
+        "total: $total, batchSize: $batchSize, clean: $clean, cleaned: false, kgIndex: 0, offset: 0, processed: 0, " +
+        "startedAt: datetime(), updatedAt: datetime()})";
+
+    static final String FIND_JOB =
+        "MATCH (j:KGLoadJob {jobId: $jobId}) RETURN j.status AS status, j.fingerprint AS fingerprint, " +
+        "j.kgCount AS kgCount, j.total AS total, j.batchSize AS batchSize, j.clean AS clean, j.cleaned AS cleaned, " +
+        "j.kgIndex AS kgIndex, j.offset AS offset, j.processed AS processed, j.error AS error";
+
+    private KGLoadJobs() {
+    }
+
+    /**
+     * Starts a new job, or resumes the job named by the {@code resume} option.
+     *
+     * Options: {@code batchSize} (entities per transaction, default {@code kg.load.batch.size} or 500),
+     * {@code clean} (delete the KGs being loaded first, default false) and {@code resume} (job id).
+     */
+    public static synchronized KGLoadJob submit(GraphDatabaseService db, Map<String, Object> options,
+                                                ClassLoader classLoader, List<String> messages) {
+        Object resume = options.get("resume");
+        if (resume != null) {
+            return resume(db, resume.toString(), options, classLoader, messages);
+        }
+        int batchSize = batchSize(options, Integer.parseInt(MainPlugin.getConfigProperty("kg.load.batch.size", "500")));
+        boolean clean = Boolean.TRUE.equals(options.get("clean"));
+        List<KGDocument> documents = BundledKGs.load(classLoader, KGContentStore.getDefault(), messages);
+
+        String jobId = UUID.randomUUID().toString();
+        Map<String, Object> params = new HashMap<>();
+        params.put("jobId", jobId);
+        params.put("fingerprint", KGLoadJob.fingerprint(documents));
+        params.put("kgCount", documents.size());
+        params.put("total", KGLoadJob.totalEntities(documents));
+        params.put("batchSize", batchSize);
+        params.put("clean", clean);
+        try (Transaction tx = db.beginTx()) {
+            tx.execute(CREATE_JOB, params);
+            tx.commit();
+        }
+        return schedule(new KGLoadJob(db, jobId, documents, batchSize, clean, false, 0, 0, 0));
+    }
+
+    private static KGLoadJob resume(GraphDatabaseService db, String jobId, Map<String, Object> options,
+                                    ClassLoader classLoader, List<String> messages) {
+        KGLoadJob running = jobs.get(jobId);
+        if (running != null && running.isActive()) {
+            messages.add("KG load job " + jobId + " is already running");
+            return running;
+        }
+        Map<String, Object> saved = find(db, jobId);
+        if (saved == null) {
+            throw new IllegalArgumentException("Unknown KG load job: " + jobId);
+        }
+        if (KGLoadJob.Status.COMPLETED.name().equals(saved.get("status"))) {
+            throw new IllegalStateException("KG load job " + jobId + " has already completed");
+        }
+        List<KGDocument> documents = BundledKGs.load(classLoader, KGContentStore.getDefault(), messages);
+        if (!KGLoadJob.fingerprint(documents).equals(saved.get("fingerprint"))) {
+            throw new IllegalStateException("Bundled KGs changed since KG load job " + jobId +
+                    " started; start a new job instead");
+        }
+        int batchSize = batchSize(options, ((Number) saved.get("batchSize")).intValue());
+        KGLoadJob job = new KGLoadJob(db, jobId, documents, batchSize,
+                Boolean.TRUE.equals(saved.get("clean")), Boolean.TRUE.equals(saved.get("cleaned")),
+                ((Number) saved.get("kgIndex")).intValue(), ((Number) saved.get("offset")).intValue(),
+                ((Number) saved.get("processed")).longValue());
+        messages.add("Resuming KG load job " + jobId + " at " + job.getProcessed() + " of " + job.getTotal() + " entities");
+        return schedule(job);
+    }
+
+    static KGLoadJob schedule(KGLoadJob job) {
+        jobs.put(job.getJobId(), job);
+        executor.submit(() -> {
+            try {
+                job.run();
+            } finally {
+                jobs.remove(job.getJobId(), job);
+            }
+        });
+        logger.info("Scheduled KG load job " + job.getJobId() + " for " + job.getTotal() + " entities");
+        return job;
+    }
+
+    /**
+     * Returns the job if this process started or resumed it and it has not finished yet.
+     */
+    public static KGLoadJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Reads the persisted state of a job, or {@code null} if there is no such job.
+     */
+    public static Map<String, Object> find(GraphDatabaseService db, String jobId) {
+        try (Transaction tx = db.beginTx()) {
+            Result result = tx.execute(FIND_JOB, Map.of("jobId", jobId));
+            return result.hasNext() ? new HashMap<>(result.next()) : null;
+        }
+    }
+
+    private static int batchSize(Map<String, Object> options, int defaultValue) {
+        Object value = options.get("batchSize");
+        int batchSize = value instanceof Number ? ((Number) value).intValue() : defaultValue;
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        return batchSize;
+    }
+}
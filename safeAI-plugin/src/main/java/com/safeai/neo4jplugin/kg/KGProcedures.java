@@ -0,0 +1,238 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+/**
+ * KGProcedures expose Knowledge Graph storage functions as Neo4j procedures.
+ */
+public class KGProcedures {
+    @Context
+    public GraphDatabaseService db;
+
+    public static class ContentResult {
+        public String name;
+        public String hash;
+        public long size;
+        public String content;
+
+        public ContentResult(String name, String hash, long size, String content) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.content = content;
+        }
+    }
+
+    public static class JobResult {
+        public String jobId;
+        public String status;
+        public long total;
+        public List<String> messages;
+
+        public JobResult(String jobId, String status, long total, List<String> messages) {
+            this.jobId = jobId;
+            this.status = status;
+            this.total = total;
+            this.messages = messages;
+        }
+    }
+
+    public static class JobStatusResult {
+        public String jobId;
+        public String status;
+        public String currentKG;
+        public long processed;
+        public long total;
+        public double rate;
+        public Long etaSeconds;
+        public String error;
+
+        public JobStatusResult(String jobId, String status, String currentKG, long processed, long total,
+                               double rate, Long etaSeconds, String error) {
+            this.jobId = jobId;
+            this.status = status;
+            this.currentKG = currentKG;
+            this.processed = processed;
+            this.total = total;
+            this.rate = rate;
+            this.etaSeconds = etaSeconds;
+            this.error = error;
+        }
+    }
+
+    public static class ExportResult {
+        public String name;
+        public String path;
+        public long nodes;
+        public long relationships;
+        public long bytes;
+
+        public ExportResult(String name, String path, long nodes, long relationships, long bytes) {
+            this.name = name;
+            this.path = path;
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.bytes = bytes;
+        }
+    }
+
+    public static class ImportResult {
+        public String path;
+        public long nodes;
+        public long relationships;
+        public long batches;
+
+        public ImportResult(String path, long nodes, long relationships, long batches) {
+            this.path = path;
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.batches = batches;
+        }
+    }
+
+    public static class ValidationResult {
+        public String file;
+        public boolean valid;
+        public String path;
+        public String message;
+
+        public ValidationResult(String file, boolean valid, String path, String message) {
+            this.file = file;
+            this.valid = valid;
+            this.path = path;
+            this.message = message;
+        }
+    }
+
+    @Procedure(name = "safeai.kg.content", mode = Mode.READ)
+    @Description("CALL safeai.kg.content(name) YIELD name, hash, size, content - Fetches the raw JSON of a loaded " +
+                 "KnowledgeGraph from the off-graph content store.")
+    public Stream<ContentResult> content(@Name("name") String name) throws Exception {
+        List<ContentResult> results = new ArrayList<>();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            Result result = tx.execute(
+                "MATCH (kg:KnowledgeGraph {name: $name}) " +
+                "RETURN kg.contentHash AS hash, kg.content AS legacyContent",
+                Map.of("name", name)
+            );
+            while (result.hasNext()) {
+                rows.add(result.next());
+            }
+        }
+        KGContentStore store = KGContentStore.getDefault();
+        for (Map<String, Object> row : rows) {
+            String hash = (String) row.get("hash");
+            if (hash == null) {
+                // KGs loaded before the content store kept their JSON on the node
+                String legacy = (String) row.get("legacyContent");
+                if (legacy != null) {
+                    results.add(new ContentResult(name, null, legacy.getBytes(StandardCharsets.UTF_8).length, legacy));
+                }
+                continue;
+            }
+            ByteBuffer buffer = store.get(hash);
+            if (buffer == null) {
+                throw new IllegalStateException("Content for KG " + name + " is missing from the content store: " + hash);
+            }
+            long size = buffer.remaining();
+            results.add(new ContentResult(name, hash, size, StandardCharsets.UTF_8.decode(buffer).toString()));
+        }
+        return results.stream();
+    }
+
+    @Procedure(name = "safeai.kg.loadAsync", mode = Mode.WRITE)
+    @Description("CALL safeai.kg.loadAsync({batchSize: 500, clean: false, resume: jobId}) YIELD jobId, status, total, " +
+                 "messages - Loads the bundled KGs in the background in checkpointed batches and returns a job id.")
+    public Stream<JobResult> loadAsync(@Name(value = "options", defaultValue = "{}") Map<String, Object> options) {
+        List<String> messages = new ArrayList<>();
+        KGLoadJob job = KGLoadJobs.submit(db, options == null ? Map.of() : options, getClass().getClassLoader(), messages);
+        return Stream.of(new JobResult(job.getJobId(), job.getStatus().name(), job.getTotal(), messages));
+    }
+
+    @Procedure(name = "safeai.kg.jobStatus", mode = Mode.READ)
+    @Description("CALL safeai.kg.jobStatus(jobId) YIELD status, processed, total, rate, etaSeconds - Reports the " +
+                 "progress of a KG load job. Jobs cut off by a restart report INTERRUPTED and can be resumed.")
+    public Stream<JobStatusResult> jobStatus(@Name("jobId") String jobId) {
+        KGLoadJob job = KGLoadJobs.get(jobId);
+        if (job != null) {
+            return Stream.of(new JobStatusResult(jobId, job.getStatus().name(), job.getCurrentKG(), job.getProcessed(),
+                    job.getTotal(), job.getRate(), job.getEtaSeconds(), job.getError()));
+        }
+        Map<String, Object> saved = KGLoadJobs.find(db, jobId);
+        if (saved == null) {
+            return Stream.empty();
+        }
+        // Finished jobs are only kept in the graph, so an unfinished one was cut off by a restart
+        String status = (String) saved.get("status");
+        if (KGLoadJob.Status.PENDING.name().equals(status) || KGLoadJob.Status.RUNNING.name().equals(status)) {
+            status = KGLoadJob.Status.INTERRUPTED.name();
+        }
+        long processed = ((Number) saved.get("processed")).longValue();
+        long total = ((Number) saved.get("total")).longValue();
+        return Stream.of(new JobStatusResult(jobId, status, null, processed, total, 0.0,
+                KGLoadJob.Status.COMPLETED.name().equals(status) ? Long.valueOf(0L) : null, (String) saved.get("error")));
+    }
+
+    @Procedure(name = "safeai.kg.export", mode = Mode.READ)
+    @Description("CALL safeai.kg.export(name, path, {gzip: true}) YIELD path, nodes, relationships, bytes - Streams a " +
+                 "KnowledgeGraph with its agents, capabilities and relationships to an NDJSON file. Paths are " +
+                 "resolved against kg.export.dir and must lie inside it.")
+    public Stream<ExportResult> export(@Name("name") String name, @Name("path") String path,
+                                       @Name(value = "options", defaultValue = "{}") Map<String, Object> options)
+            throws IOException {
+        Path file = KGExporter.resolve(path);
+        boolean gzip = Boolean.TRUE.equals(options == null ? null : options.get("gzip")) || path.endsWith(".gz");
+        long[] counts = new KGExporter(db).export(name, file, gzip);
+        return Stream.of(new ExportResult(name, file.toString(), counts[0], counts[1], Files.size(file)));
+    }
+
+    @Procedure(name = "safeai.kg.import", mode = Mode.WRITE)
+    @Description("CALL safeai.kg.import(path, {batchSize: 1000}) YIELD nodes, relationships, batches - MERGEs a file " +
+                 "written by safeai.kg.export into the graph in batches. Gzip files are detected automatically. The path must lie inside " +
+                 "kg.export.dir.")
+    public Stream<ImportResult> importFile(@Name("path") String path,
+                                           @Name(value = "options", defaultValue = "{}") Map<String, Object> options)
+            throws IOException {
+        Path file = KGExporter.resolve(path);
+        Object batchSize = options == null ? null : options.get("batchSize");
+        long[] counts = new KGImporter(db, batchSize instanceof Number ? ((Number) batchSize).intValue() : 1000)
+                .importFile(file);
+        return Stream.of(new ImportResult(file.toString(), counts[0], counts[1], counts[2]));
+    }
+
+    @Procedure(name = "safeai.kg.validate", mode = Mode.READ)
+    @Description("CALL safeai.kg.validate() YIELD file, valid, path, message - Validates every bundled KG file in " +
+                 "parallel without writing anything. Returns one row per violation, or one row per valid file.")
+    public Stream<ValidationResult> validate() {
+        List<ValidationResult> results = new ArrayList<>();
+        Map<String, List<KGSchemaValidator.Violation>> reports =
+            KGSchemaValidator.getDefault().validateResources(getClass().getClassLoader(), BundledKGs.files());
+        for (Map.Entry<String, List<KGSchemaValidator.Violation>> report : reports.entrySet()) {
+            if (report.getValue().isEmpty()) {
+                results.add(new ValidationResult(report.getKey(), true, null, null));
+            }
+            for (KGSchemaValidator.Violation violation : report.getValue()) {
+                results.add(new ValidationResult(report.getKey(), false, violation.path, violation.message));
+            }
+        }
+        return results.stream();
+    }
+}
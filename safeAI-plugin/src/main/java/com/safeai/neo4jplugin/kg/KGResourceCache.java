@@ -0,0 +1,132 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * KGResourceCache holds bundled KG resources in memory. Each resource is read from the
+ * classpath once and kept as a read-only {@link ByteBuffer}; callers get duplicates or slices
+ * of it, so serving a KG never copies the content. The SHA-256 ETag and the line index used
+ * for paging are computed once per resource.
+ */
+public final class KGResourceCache {
+
+    public static final class Entry {
+        private final ByteBuffer content;
+        private final String etag;
+        private volatile int[] lineStarts;
+
+        private Entry(byte[] bytes) {
+            this.content = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+            this.etag = "\"" + KGContentStore.sha256(bytes) + "\"";
+        }
+
+        /**
+         * The whole resource as an independent read-only view.
+         */
+        public ByteBuffer content() {
+            return content.duplicate();
+        }
+
+        /**
+         * A read-only view of {@code length} bytes starting at {@code offset}, clipped to the end
+         * of the resource.
+         */
+        public ByteBuffer range(long offset, long length) {
+            int size = content.capacity();
+            if (offset < 0 || length < 0 || offset > size) {
+                throw new IllegalArgumentException("Invalid range " + offset + "+" + length + " for " + size + " bytes");
+            }
+            int start = (int) offset;
+            int end = (int) Math.min(size, offset + length);
+            return content.duplicate().position(start).limit(end).slice();
+        }
+
+        public int size() {
+            return content.capacity();
+        }
+
+        /**
+         * Strong ETag of the content, quoted as in an HTTP header.
+         */
+        public String etag() {
+            return etag;
+        }
+
+        public int lineCount() {
+            return lineStarts().length;
+        }
+
+        /**
+         * Lines {@code [fromLine, fromLine + lineCount)} as a read-only view, without decoding.
+         */
+        public ByteBuffer lines(int fromLine, int lineCount) {
+            int[] starts = lineStarts();
+            if (fromLine < 0 || lineCount < 0 || fromLine > starts.length) {
+                throw new IllegalArgumentException("Invalid line range " + fromLine + "+" + lineCount);
+            }
+            int start = fromLine == starts.length ? size() : starts[fromLine];
+            int endLine = (int) Math.min((long) fromLine + lineCount, starts.length);
+            int end = endLine == starts.length ? size() : starts[endLine];
+            return range(start, end - start);
+        }
+
+        private int[] lineStarts() {
+            int[] starts = lineStarts;
+            if (starts == null) {
+                int size = content.capacity();
+                starts = new int[16];
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || content.get(i - 1) == '\n') {
+                        if (count == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                        }
+                        starts[count++] = i;
+                    }
+                }
+                starts = Arrays.copyOf(starts, count);
+                lineStarts = starts;
+            }
+            return starts;
+        }
+    }
+
+    private static final KGResourceCache DEFAULT = new KGResourceCache(KGResourceCache.class.getClassLoader());
+
+    private final ClassLoader classLoader;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public KGResourceCache(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public static KGResourceCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the cached resource, loading it on first use, or {@code null} if it does not exist.
+     * Missing resources are not cached.
+     */
+    public Entry get(String resource) {
+        Entry entry = entries.get(resource);
+        if (entry != null) {
+            return entry;
+        }
+        try (InputStream is = classLoader.getResourceAsStream(resource)) {
+            if (is == null) {
+                return null;
+            }
+            Entry loaded = new Entry(is.readAllBytes());
+            Entry existing = entries.putIfAbsent(resource, loaded);
+            return existing != null ? existing : loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading resource " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * KGSchemaValidator checks KG definitions against the structure the loader relies on and
+ * reports every violation with the JSON path it was found at, e.g. {@code $.agents[3].name}.
+ *
+ * The schema is compiled once into a tree of rules; validating a document is a single walk
+ * over it. Agent and capability properties must also be storable as Neo4j properties
+ * (scalars or flat lists of scalars), since they are written to nodes unchanged.
+ */
+public final class KGSchemaValidator {
+
+    public static final class Violation {
+        public final String path;
+        public final String message;
+
+        Violation(String path, String message) {
+            this.path = path;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + message;
+        }
+    }
+
+    private interface Rule {
+        void check(Object value, String path, List<Violation> violations);
+    }
+
+    private static final KGSchemaValidator DEFAULT = new KGSchemaValidator();
+
+    private final Rule root;
+
+    private KGSchemaValidator() {
+        Rule agent = object(
+            fields("name", nonEmptyString(), "description", string()),
+            fields("capabilities", array(nonEmptyString())),
+            propertyValue());
+        Rule capability = object(
+            fields("name", nonEmptyString(), "description", string()),
+            fields(),
+            propertyValue());
+        Rule relationship = object(
+            fields("from", nonEmptyString(), "to", nonEmptyString(), "type", nonEmptyString()),
+            fields("description", string()),
+            null);
+        Rule kg = object(
+            fields(),
+            fields("domain", nonEmptyString(), "name", nonEmptyString(), "description", string(),
+                   "agents", uniqueNames(array(agent)),
+                   "capabilities", uniqueNames(array(capability)),
+                   "relationships", array(relationship)),
+            null);
+        this.root = (value, path, violations) -> {
+            if (value instanceof JSONObject && !((JSONObject) value).has("domain") && !((JSONObject) value).has("name")) {
+                violations.add(new Violation(path, "missing required field: domain or name"));
+            }
+            kg.check(value, path, violations);
+        };
+    }
+
+    public static KGSchemaValidator getDefault() {
+        return DEFAULT;
+    }
+
+    public List<Violation> validate(JSONObject kg) {
+        List<Violation> violations = new ArrayList<>();
+        root.check(kg, "$", violations);
+        return violations;
+    }
+
+    /**
+     * Parses and validates a KG; malformed JSON is reported as a violation at {@code $}.
+     */
+    public List<Violation> validate(String json) {
+        try {
+            return validate(new JSONObject(json));
+        } catch (JSONException e) {
+            List<Violation> violations = new ArrayList<>();
+            violations.add(new Violation("$", "malformed JSON: " + e.getMessage()));
+            return violations;
+        }
+    }
+
+    /**
+     * Validates the named classpath resources in parallel. Missing resources are left out of
+     * the result, which keeps the order of {@code resources}.
+     */
+    public Map<String, List<Violation>> validateResources(ClassLoader classLoader, String[] resources) {
+        Map<String, List<Violation>> reports = new ConcurrentHashMap<>();
+        Arrays.stream(resources).parallel().forEach(resource -> {
+            try (InputStream is = classLoader.getResourceAsStream(resource)) {
+                if (is != null) {
+                    reports.put(resource, validate(new String(is.readAllBytes(), StandardCharsets.UTF_8)));
+                }
+            } catch (Exception e) {
+                List<Violation> violations = new ArrayList<>();
+                violations.add(new Violation("$", "could not read resource: " + e.getMessage()));
+                reports.put(resource, violations);
+            }
+        });
+        Map<String, List<Violation>> ordered = new LinkedHashMap<>();
+        for (String resource : resources) {
+            if (reports.containsKey(resource)) {
+                ordered.put(resource, reports.get(resource));
+            }
+        }
+        return ordered;
+    }
+
+    private static Map<String, Rule> fields(Object... namesAndRules) {
+        Map<String, Rule> fields = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndRules.length; i += 2) {
+            fields.put((String) namesAndRules[i], (Rule) namesAndRules[i + 1]);
+        }
+        return fields;
+    }
+
+    /**
+     * An object with required and optional fields. {@code others}, if set, checks every
+     * field not named in either map.
+     */
+    private static Rule object(Map<String, Rule> required, Map<String, Rule> optional, Rule others) {
+        return (value, path, violations) -> {
+            if (!(value instanceof JSONObject)) {
+                violations.add(new Violation(path, "expected an object but found " + describe(value)));
+                return;
+            }
+            JSONObject obj = (JSONObject) value;
+            for (Map.Entry<String, Rule> field : required.entrySet()) {
+                if (!obj.has(field.getKey())) {
+                    violations.add(new Violation(path, "missing required field: " + field.getKey()));
+                }
+            }
+            for (String key : obj.keySet()) {
+                Rule rule = required.get(key);
+                if (rule == null) {
+                    rule = optional.get(key);
+                }
+                if (rule == null) {
+                    rule = others;
+                }
+                if (rule != null) {
+                    rule.check(obj.get(key), path + "." + key, violations);
+                }
+            }
+        };
+    }
+
+    private static Rule array(Rule element) {
+        return (value, path, violations) -> {
+            if (!(value instanceof JSONArray)) {
+                violations.add(new Violation(path, "expected an array but found " + describe(value)));
+                return;
+            }
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                element.check(array.get(i), path + "[" + i + "]", violations);
+            }
+        };
+    }
+
+    private static Rule uniqueNames(Rule arrayRule) {
+        return (value, path, violations) -> {
+            arrayRule.check(value, path, violations);
+            if (!(value instanceof JSONArray)) {
+                return;
+            }
+            JSONArray array = (JSONArray) value;
+            Set<Object> seen = new HashSet<>();
+            for (int i = 0; i < array.length(); i++) {
+                Object element = array.get(i);
+                if (element instanceof JSONObject && ((JSONObject) element).has("name")) {
+                    Object name = ((JSONObject) element).get("name");
+                    if (!seen.add(name)) {
+                        violations.add(new Violation(path + "[" + i + "].name", "duplicate name: " + name));
+                    }
+                }
+            }
+        };
+    }
+
+    private static Rule string() {
+        return (value, path, violations) -> {
+            if (!(value instanceof String)) {
+                violations.add(new Violation(path, "expected a string but found " + describe(value)));
+            }
+        };
+    }
+
+    private static Rule nonEmptyString() {
+        return (value, path, violations) -> {
+            if (!(value instanceof String)) {
+                violations.add(new Violation(path, "expected a string but found " + describe(value)));
+            } else if (((String) value).isBlank()) {
+                violations.add(new Violation(path, "must not be empty"));
+            }
+        };
+    }
+
+    private static Rule propertyValue() {
+        return (value, path, violations) -> {
+            if (value instanceof JSONObject) {
+                violations.add(new Violation(path, "nested objects cannot be stored as node properties"));
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                Class<?> elementType = null;
+                for (int i = 0; i < array.length(); i++) {
+                    Object element = array.get(i);
+                    if (element instanceof JSONObject || element instanceof JSONArray || element == JSONObject.NULL) {
+                        violations.add(new Violation(path + "[" + i + "]", "lists stored as node properties may only hold scalars"));
+                        return;
+                    }
+                    Class<?> type = element instanceof Number ? Number.class : element.getClass();
+                    if (elementType != null && elementType != type) {
+                        violations.add(new Violation(path + "[" + i + "]", "lists stored as node properties must not mix types"));
+                        return;
+                    }
+                    elementType = type;
+                }
+            }
+        };
+    }
+
+    private static String describe(Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            return "null";
+        } else if (value instanceof JSONObject) {
+            return "an object";
+        } else if (value instanceof JSONArray) {
+            return "an array";
+        } else if (value instanceof String) {
+            return "a string";
+        } else if (value instanceof Number) {
+            return "a number";
+        } else if (value instanceof Boolean) {
+            return "a boolean";
+        }
+        return value.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,265 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * KGSnapshot reads the binary KG snapshot produced at build time by {@link KGSnapshotCompiler}.
+ * The file is memory-mapped and decoded straight into {@link KGDocument}s, so loading the
+ * bundled KGs needs no JSON parsing.
+ *
+ * Layout (big-endian): a 64 byte header holding the magic, the format version and an
+ * (offset, count) pair for each section, followed by the sections themselves:
+ * <ul>
+ *   <li>strings: {@code count + 1} int offsets into the UTF-8 blob that follows them</li>
+ *   <li>KGs: name, description, source file, content hash, content size, and (start, count)
+ *       ranges into the capability, agent and relationship sections</li>
+ *   <li>capabilities: (start, count) range into the property section</li>
+ *   <li>agents: property range and (start, count) range into the capability link section</li>
+ *   <li>capability links: capability name</li>
+ *   <li>relationships: from, to, type, description</li>
+ *   <li>properties: key, value type and an 8 byte value (string index or raw bits)</li>
+ * </ul>
+ * Every record is fixed width, so any entity can be located without scanning.
+ */
+public final class KGSnapshot {
+    private static final Logger logger = Logger.getLogger(KGSnapshot.class.getName());
+
+    public static final String RESOURCE = "kg/kg-snapshot.bin";
+
+    static final int MAGIC = 0x534B4753; // "SKGS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int SECTION_STRINGS = 0;
+    static final int SECTION_KGS = 1;
+    static final int SECTION_CAPABILITIES = 2;
+    static final int SECTION_AGENTS = 3;
+    static final int SECTION_LINKS = 4;
+    static final int SECTION_RELATIONSHIPS = 5;
+    static final int SECTION_PROPERTIES = 6;
+    static final int SECTION_COUNT = 7;
+
+    static final int KG_RECORD = 11 * Integer.BYTES;
+    static final int CAPABILITY_RECORD = 2 * Integer.BYTES;
+    static final int AGENT_RECORD = 4 * Integer.BYTES;
+    static final int LINK_RECORD = Integer.BYTES;
+    static final int RELATIONSHIP_RECORD = 4 * Integer.BYTES;
+    static final int PROPERTY_RECORD = 2 * Integer.BYTES + Long.BYTES;
+
+    static final int TYPE_STRING = 0;
+    static final int TYPE_LONG = 1;
+    static final int TYPE_DOUBLE = 2;
+    static final int TYPE_BOOLEAN = 3;
+    // Lists and maps are rare in KG definitions; they are kept as JSON text
+    static final int TYPE_JSON = 4;
+
+    static final int NONE = -1;
+
+    private static volatile KGSnapshot bundled;
+
+    private final ByteBuffer buffer;
+    private final int[] sectionOffsets = new int[SECTION_COUNT];
+    private final int[] sectionCounts = new int[SECTION_COUNT];
+    private final String[] strings;
+
+    private KGSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a KG snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported KG snapshot version " + version);
+        }
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sectionOffsets[i] = buffer.getInt(8 + i * 8);
+            sectionCounts[i] = buffer.getInt(12 + i * 8);
+        }
+        this.strings = new String[sectionCounts[SECTION_STRINGS]];
+    }
+
+    /**
+     * Memory-maps a snapshot file.
+     */
+    public static KGSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new KGSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the snapshot packaged with the plugin, or {@code null} if the build did not
+     * produce one. A snapshot inside the plugin jar is extracted once to a temporary file so
+     * it can be mapped.
+     */
+    public static KGSnapshot loadBundled(ClassLoader classLoader) {
+        KGSnapshot snapshot = bundled;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (KGSnapshot.class) {
+            if (bundled != null) {
+                return bundled;
+            }
+            URL url = classLoader.getResource(RESOURCE);
+            if (url == null) {
+                return null;
+            }
+            try {
+                Path file;
+                if ("file".equals(url.getProtocol())) {
+                    file = Paths.get(url.toURI());
+                } else {
+                    file = Files.createTempFile("safeai-kg-snapshot", ".bin");
+                    file.toFile().deleteOnExit();
+                    try (InputStream in = url.openStream()) {
+                        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                bundled = open(file);
+                logger.info("Loaded precompiled KG snapshot from " + url);
+            } catch (IOException | URISyntaxException e) {
+                logger.warning("Could not read KG snapshot " + url + ": " + e.getMessage());
+                return null;
+            }
+            return bundled;
+        }
+    }
+
+    public int size() {
+        return sectionCounts[SECTION_KGS];
+    }
+
+    /**
+     * Decodes every KG in the snapshot.
+     */
+    public List<KGDocument> documents() {
+        List<KGDocument> documents = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            documents.add(document(i));
+        }
+        return documents;
+    }
+
+    public KGDocument document(int index) {
+        int base = record(SECTION_KGS, index, KG_RECORD);
+        String name = string(buffer.getInt(base));
+        String description = string(buffer.getInt(base + 4));
+        String sourceFile = string(buffer.getInt(base + 8));
+        String contentHash = string(buffer.getInt(base + 12));
+        long contentSize = buffer.getInt(base + 16) & 0xFFFFFFFFL;
+        int capStart = buffer.getInt(base + 20);
+        int capCount = buffer.getInt(base + 24);
+        int agentStart = buffer.getInt(base + 28);
+        int agentCount = buffer.getInt(base + 32);
+        int relStart = buffer.getInt(base + 36);
+        int relCount = buffer.getInt(base + 40);
+
+        List<Map<String, Object>> capabilities = new ArrayList<>(capCount);
+        for (int i = capStart; i < capStart + capCount; i++) {
+            int rec = record(SECTION_CAPABILITIES, i, CAPABILITY_RECORD);
+            capabilities.add(properties(buffer.getInt(rec), buffer.getInt(rec + 4)));
+        }
+
+        List<Map<String, Object>> agents = new ArrayList<>(agentCount);
+        List<Map<String, Object>> links = new ArrayList<>();
+        for (int i = agentStart; i < agentStart + agentCount; i++) {
+            int rec = record(SECTION_AGENTS, i, AGENT_RECORD);
+            Map<String, Object> props = properties(buffer.getInt(rec), buffer.getInt(rec + 4));
+            props.put("kgName", name);
+            agents.add(props);
+            int linkStart = buffer.getInt(rec + 8);
+            int linkCount = buffer.getInt(rec + 12);
+            for (int j = linkStart; j < linkStart + linkCount; j++) {
+                String capability = string(buffer.getInt(record(SECTION_LINKS, j, LINK_RECORD)));
+                links.add(KGDocument.capabilityLink((String) props.get("name"), capability));
+            }
+        }
+
+        List<Map<String, Object>> relationships = new ArrayList<>(relCount);
+        for (int i = relStart; i < relStart + relCount; i++) {
+            int rec = record(SECTION_RELATIONSHIPS, i, RELATIONSHIP_RECORD);
+            relationships.add(KGDocument.relationship(string(buffer.getInt(rec)), string(buffer.getInt(rec + 4)),
+                    string(buffer.getInt(rec + 8)), string(buffer.getInt(rec + 12))));
+        }
+
+        return new KGDocument(name, description, sourceFile, contentHash, contentSize,
+                capabilities, agents, links, relationships);
+    }
+
+    private Map<String, Object> properties(int start, int count) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        for (int i = start; i < start + count; i++) {
+            int rec = record(SECTION_PROPERTIES, i, PROPERTY_RECORD);
+            String key = string(buffer.getInt(rec));
+            int type = buffer.getInt(rec + 4);
+            long value = buffer.getLong(rec + 8);
+            switch (type) {
+                case TYPE_STRING:
+                    props.put(key, string((int) value));
+                    break;
+                case TYPE_LONG:
+                    props.put(key, value);
+                    break;
+                case TYPE_DOUBLE:
+                    props.put(key, Double.longBitsToDouble(value));
+                    break;
+                case TYPE_BOOLEAN:
+                    props.put(key, value != 0);
+                    break;
+                case TYPE_JSON:
+                    String json = string((int) value);
+                    props.put(key, KGDocument.convertJson(json.startsWith("[") ? new JSONArray(json) : new JSONObject(json)));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown property type " + type + " in KG snapshot");
+            }
+        }
+        return props;
+    }
+
+    private int record(int section, int index, int width) {
+        if (index < 0 || index >= sectionCounts[section]) {
+            throw new IndexOutOfBoundsException("Record " + index + " outside section " + section);
+        }
+        return sectionOffsets[section] + index * width;
+    }
+
+    private String string(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        String s = strings[index];
+        if (s == null) {
+            int table = sectionOffsets[SECTION_STRINGS];
+            int blob = table + (strings.length + 1) * Integer.BYTES;
+            int start = buffer.getInt(table + index * Integer.BYTES);
+            int end = buffer.getInt(table + (index + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(blob + start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,250 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * KGSnapshotCompiler runs during the Maven build. It validates every bundled {@code *_KG.json}
+ * resource against {@link KGSchemaValidator} and compiles the valid ones into the binary
+ * snapshot read by {@link KGSnapshot}. Malformed JSON fails the build.
+ *
+ * Usage: {@code KGSnapshotCompiler <resources dir> <output file>}
+ */
+public class KGSnapshotCompiler {
+    private static final Logger logger = Logger.getLogger(KGSnapshotCompiler.class.getName());
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final ByteArrayOutputStream kgs = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream capabilities = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream agents = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream links = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream relationships = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream properties = new ByteArrayOutputStream();
+    private final int[] counts = new int[KGSnapshot.SECTION_COUNT];
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: KGSnapshotCompiler <resources dir> <output file>");
+        }
+        Path resources = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+
+        KGSnapshotCompiler compiler = new KGSnapshotCompiler();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(resources, "*_KG.json")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        // Parse and validate in parallel; the list keeps the sorted file order
+        List<ParsedFile> parsed;
+        try {
+            parsed = files.parallelStream().map(ParsedFile::read).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int compiled = 0;
+        for (ParsedFile file : parsed) {
+            if (!file.violations.isEmpty()) {
+                for (KGSchemaValidator.Violation violation : file.violations) {
+                    logger.warning("Skipping " + file.path.getFileName() + ": " + violation);
+                }
+                continue;
+            }
+            String fileName = file.path.getFileName().toString();
+            compiler.add(KGDocument.fromJson(file.kg, fileName, KGContentStore.sha256(file.raw), file.raw.length));
+            compiled++;
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.write(output, compiler.toByteArray());
+        logger.info("Compiled " + compiled + " of " + files.size() + " KGs into " + output);
+    }
+
+    private static final class ParsedFile {
+        final Path path;
+        final byte[] raw;
+        final JSONObject kg;
+        final List<KGSchemaValidator.Violation> violations;
+
+        private ParsedFile(Path path, byte[] raw, JSONObject kg) {
+            this.path = path;
+            this.raw = raw;
+            this.kg = kg;
+            this.violations = KGSchemaValidator.getDefault().validate(kg);
+        }
+
+        static ParsedFile read(Path path) {
+            byte[] raw;
+            try {
+                raw = Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                return new ParsedFile(path, raw, new JSONObject(new String(raw, StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                // Malformed JSON would also fail at runtime; stop the build instead
+                throw new UncheckedIOException(new IOException("Malformed KG JSON in " + path + ": " + e.getMessage(), e));
+            }
+        }
+    }
+
+    public void add(KGDocument document) throws IOException {
+        DataOutputStream kg = new DataOutputStream(kgs);
+        kg.writeInt(string(document.getName()));
+        kg.writeInt(string(document.getDescription()));
+        kg.writeInt(string(document.getSourceFile()));
+        kg.writeInt(string(document.getContentHash()));
+        kg.writeInt((int) document.getContentSize());
+
+        kg.writeInt(counts[KGSnapshot.SECTION_CAPABILITIES]);
+        kg.writeInt(document.getCapabilities().size());
+        for (Map<String, Object> capability : document.getCapabilities()) {
+            DataOutputStream out = new DataOutputStream(capabilities);
+            writePropertyRange(out, capability);
+            counts[KGSnapshot.SECTION_CAPABILITIES]++;
+        }
+
+        kg.writeInt(counts[KGSnapshot.SECTION_AGENTS]);
+        kg.writeInt(document.getAgents().size());
+        Map<String, List<String>> agentLinks = new HashMap<>();
+        for (Map<String, Object> link : document.getCapabilityLinks()) {
+            agentLinks.computeIfAbsent((String) link.get("agent"), k -> new ArrayList<>())
+                    .add((String) link.get("capability"));
+        }
+        for (Map<String, Object> agent : document.getAgents()) {
+            Map<String, Object> props = new LinkedHashMap<>(agent);
+            // kgName is implied by the owning KG record
+            props.remove("kgName");
+            DataOutputStream out = new DataOutputStream(agents);
+            writePropertyRange(out, props);
+            List<String> caps = agentLinks.getOrDefault((String) agent.get("name"), List.of());
+            out.writeInt(counts[KGSnapshot.SECTION_LINKS]);
+            out.writeInt(caps.size());
+            DataOutputStream linkOut = new DataOutputStream(links);
+            for (String cap : caps) {
+                linkOut.writeInt(string(cap));
+                counts[KGSnapshot.SECTION_LINKS]++;
+            }
+            counts[KGSnapshot.SECTION_AGENTS]++;
+        }
+
+        kg.writeInt(counts[KGSnapshot.SECTION_RELATIONSHIPS]);
+        kg.writeInt(document.getRelationships().size());
+        DataOutputStream relOut = new DataOutputStream(relationships);
+        for (Map<String, Object> rel : document.getRelationships()) {
+            relOut.writeInt(string((String) rel.get("from")));
+            relOut.writeInt(string((String) rel.get("to")));
+            relOut.writeInt(string((String) rel.get("type")));
+            relOut.writeInt(string((String) rel.get("description")));
+            counts[KGSnapshot.SECTION_RELATIONSHIPS]++;
+        }
+        counts[KGSnapshot.SECTION_KGS]++;
+    }
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream stringSection = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(stringSection);
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String s : strings) {
+            encoded.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        int offset = 0;
+        table.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            offset += bytes.length;
+            table.writeInt(offset);
+            blob.write(bytes);
+        }
+        blob.writeTo(stringSection);
+        counts[KGSnapshot.SECTION_STRINGS] = strings.size();
+
+        ByteArrayOutputStream[] sections = {
+            stringSection, kgs, capabilities, agents, links, relationships, properties
+        };
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(KGSnapshot.MAGIC);
+        out.writeInt(KGSnapshot.VERSION);
+        int position = KGSnapshot.HEADER_SIZE;
+        for (int i = 0; i < KGSnapshot.SECTION_COUNT; i++) {
+            out.writeInt(position);
+            out.writeInt(counts[i]);
+            position += sections[i].size();
+        }
+        for (ByteArrayOutputStream section : sections) {
+            section.writeTo(out);
+        }
+        return file.toByteArray();
+    }
+
+    private void writePropertyRange(DataOutputStream record, Map<String, Object> props) throws IOException {
+        // Null values are never stored on nodes, so they are dropped here too
+        List<Map.Entry<String, Object>> entries = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : props.entrySet()) {
+            if (entry.getValue() != null) {
+                entries.add(entry);
+            }
+        }
+        record.writeInt(counts[KGSnapshot.SECTION_PROPERTIES]);
+        record.writeInt(entries.size());
+        DataOutputStream out = new DataOutputStream(properties);
+        for (Map.Entry<String, Object> entry : entries) {
+            Object value = entry.getValue();
+            out.writeInt(string(entry.getKey()));
+            if (value instanceof String) {
+                out.writeInt(KGSnapshot.TYPE_STRING);
+                out.writeLong(string((String) value));
+            } else if (value instanceof Integer || value instanceof Long) {
+                out.writeInt(KGSnapshot.TYPE_LONG);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                out.writeInt(KGSnapshot.TYPE_DOUBLE);
+                out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof Boolean) {
+                out.writeInt(KGSnapshot.TYPE_BOOLEAN);
+                out.writeLong((Boolean) value ? 1L : 0L);
+            } else if (value instanceof List) {
+                out.writeInt(KGSnapshot.TYPE_JSON);
+                out.writeLong(string(new JSONArray((List<?>) value).toString()));
+            } else if (value instanceof Map) {
+                out.writeInt(KGSnapshot.TYPE_JSON);
+                out.writeLong(string(new JSONObject((Map<?, ?>) value).toString()));
+            } else {
+                throw new IOException("Unsupported property value for " + entry.getKey() + ": " + value);
+            }
+            counts[KGSnapshot.SECTION_PROPERTIES]++;
+        }
+    }
+
+    private int string(String s) {
+        if (s == null) {
+            return KGSnapshot.NONE;
+        }
+        return stringIndex.computeIfAbsent(s, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,168 @@
+package com.safeai.neo4jplugin.kg;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * KGWriter creates the nodes and relationships of a {@link KGDocument}. Each element type is
+ * written with a single UNWIND statement instead of one statement per entity.
+ *
+ * {@link #mergeRange} writes an arbitrary slice of a document with MERGE instead of CREATE, so
+ * batches can be replayed after a crash without duplicating anything.
+ *
+ * Capabilities belong to the KG that declares them, as agents do: two KGs listing a capability
+ * of the same name get a Capability node each, and agents only link to their own KG's.
+ */
+public class KGWriter {
+    static final String CREATE_KG =
+        "CREATE (kg:KnowledgeGraph {name: $name, description: $description, contentHash: $contentHash, " +
+        "contentSize: $contentSize, created_at: datetime()})";
+
+    static final String CREATE_CAPABILITIES =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS props " +
+        "CREATE (c:Capability) SET c = props, c.created_at = datetime() " +
+        "CREATE (kg)-[:HAS_CAPABILITY]->(c)";
+
+    static final String CREATE_AGENTS =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS props " +
+        "CREATE (a:Agent) SET a = props, a.created_at = datetime() " +
+        "CREATE (kg)-[:HAS_AGENT]->(a)";
+
+    static final String LINK_CAPABILITIES =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS link " +
+        "MATCH (a:Agent {name: link.agent, kgName: $kgName}), " +
+        "(kg)-[:HAS_CAPABILITY]->(c:Capability {name: link.capability}) " +
+        "CREATE (a)-[:HAS_CAPABILITY]->(c)";
+
+    static final String CREATE_RELATIONSHIPS =
+        "UNWIND $rows AS rel " +
+        "MATCH (from {name: rel.from}), (to {name: rel.to}) " +
+        "CREATE (from)-[:RELATES_TO {type: rel.type, description: rel.description}]->(to)";
+
+    static final String MERGE_KG =
+        "UNWIND $rows AS props " +
+        "MERGE (kg:KnowledgeGraph {name: $kgName}) " +
+        "ON CREATE SET kg.created_at = datetime() " +
+        "SET kg += props";
+
+    static final String MERGE_CAPABILITIES =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS props " +
+        "MERGE (kg)-[:HAS_CAPABILITY]->(c:Capability {name: props.name}) " +
+        "ON CREATE SET c.created_at = datetime() " +
+        "SET c += props";
+
+    static final String MERGE_AGENTS =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS props " +
+        "MERGE (a:Agent {name: props.name, kgName: $kgName}) " +
+        "ON CREATE SET a.created_at = datetime() " +
+        "SET a += props " +
+        "MERGE (kg)-[:HAS_AGENT]->(a)";
+
+    static final String MERGE_CAPABILITY_LINKS =
+        "MATCH (kg:KnowledgeGraph {name: $kgName}) " +
+        "UNWIND $rows AS link " +
+        "MATCH (a:Agent {name: link.agent, kgName: $kgName}), " +
+        "(kg)-[:HAS_CAPABILITY]->(c:Capability {name: link.capability}) " +
+        "MERGE (a)-[:HAS_CAPABILITY]->(c)";
+
+    static final String MERGE_RELATIONSHIPS =
+        "UNWIND $rows AS rel " +
+        "MATCH (from {name: rel.from}), (to {name: rel.to}) " +
+        "MERGE (from)-[r:RELATES_TO {type: rel.type}]->(to) " +
+        "SET r.description = rel.description";
+
+    private static final List<String> MERGE_STATEMENTS = List.of(
+        MERGE_KG, MERGE_CAPABILITIES, MERGE_AGENTS, MERGE_CAPABILITY_LINKS, MERGE_RELATIONSHIPS);
+
+    /**
+     * Runs one parameterised statement; lets the same statements go through an embedded
+     * transaction or a driver session.
+     */
+    @FunctionalInterface
+    public interface StatementRunner {
+        void run(String statement, Map<String, Object> params);
+    }
+
+    private KGWriter() {
+    }
+
+    /**
+     * Writes the whole document in the given transaction. The caller commits.
+     */
+    public static void write(Transaction tx, KGDocument document) {
+        Map<String, Object> kgParams = new HashMap<>();
+        kgParams.put("name", document.getName());
+        kgParams.put("description", document.getDescription());
+        kgParams.put("contentHash", document.getContentHash());
+        kgParams.put("contentSize", document.getContentSize());
+        tx.execute(CREATE_KG, kgParams);
+
+        String kgName = document.getName();
+        StatementRunner runner = tx::execute;
+        writeRows(runner, CREATE_CAPABILITIES, kgName, document.getCapabilities());
+        writeRows(runner, CREATE_AGENTS, kgName, document.getAgents());
+        writeRows(runner, LINK_CAPABILITIES, kgName, document.getCapabilityLinks());
+        writeRows(runner, CREATE_RELATIONSHIPS, kgName, document.getRelationships());
+    }
+
+    /**
+     * Number of entities in a document as counted by {@link #mergeRange}: the KG node, then its
+     * capabilities, agents, capability links and relationships in that order.
+     */
+    public static int entityCount(KGDocument document) {
+        return 1 + document.getCapabilities().size() + document.getAgents().size()
+                + document.getCapabilityLinks().size() + document.getRelationships().size();
+    }
+
+    /**
+     * Merges entities {@code [from, to)} of the document in the given transaction. Ranges must be
+     * written in ascending order, since links and relationships match nodes from earlier ranges.
+     */
+    public static void mergeRange(Transaction tx, KGDocument document, int from, int to) {
+        mergeRange((StatementRunner) tx::execute, document, from, to);
+    }
+
+    public static void mergeRange(StatementRunner runner, KGDocument document, int from, int to) {
+        Map<String, Object> kgProps = new HashMap<>();
+        kgProps.put("description", document.getDescription());
+        kgProps.put("contentHash", document.getContentHash());
+        kgProps.put("contentSize", document.getContentSize());
+        List<List<Map<String, Object>>> segments = List.of(
+            List.of(kgProps), document.getCapabilities(), document.getAgents(),
+            document.getCapabilityLinks(), document.getRelationships());
+
+        int start = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            List<Map<String, Object>> rows = segments.get(i);
+            int end = start + rows.size();
+            int lo = Math.max(from, start);
+            int hi = Math.min(to, end);
+            if (lo < hi) {
+                writeRows(runner, MERGE_STATEMENTS.get(i), document.getName(), rows.subList(lo - start, hi - start));
+            }
+            start = end;
+        }
+    }
+
+    static void writeRows(StatementRunner runner, String statement, String kgName, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        runner.run(statement, Map.of("kgName", kgName, "rows", rows));
+    }
+
+    static void writeRows(Transaction tx, String statement, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        tx.execute(statement, Map.of("rows", rows));
+    }
+}
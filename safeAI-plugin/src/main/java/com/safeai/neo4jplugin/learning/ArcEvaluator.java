@@ -0,0 +1,303 @@
+package com.safeai.neo4jplugin.learning;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.safeai.neo4jplugin.MainPlugin;
+import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+
+/**
+ * ArcEvaluator solves every puzzle of an ARC split and reports accuracy, throughput, latency
+ * percentiles and how often each agent fitted. It backs {@code safeai.arc.evaluate} and also
+ * runs standalone, so solver performance can be compared between releases without a database.
+ *
+ * A split is either one of the example lists of an ARC KG file ({@code training},
+ * {@code evaluation} or {@code finalExam}), or a directory of ARC task files, one puzzle per
+ * file; a {@code <split>} subdirectory is used if there is one, as in the ARC repository layout.
+ *
+ * Given a graph, every solve is recorded as a {@code Puzzle_Run} and counted on its agents, and
+ * answers already stored for a puzzle are reused, just as for the procedure.
+ *
+ * Usage: {@code ArcEvaluator <split> [KG file or task directory] [parallelism] [bolt URI]}; the
+ * credentials for the URI are read from {@code neo4j.username} and {@code neo4j.password}.
+ */
+public final class ArcEvaluator {
+    static final String BUNDLED_KG = "ARC_Puzzle_Agent_Definitions_KG.json";
+
+    /**
+     * How one agent did across the split. {@code attempts} counts the puzzles it ran on,
+     * {@code fits} those whose training examples it reproduced, and {@code wins} those whose
+     * answer it gave. {@code filtered} counts the puzzles it was ruled out of by grid features
+     * without running.
+     */
+    public static final class AgentStats {
+        public final String agent;
+        public final long attempts;
+        public final long fits;
+        public final long wins;
+        public final long filtered;
+        public final double meanMicros;
+
+        AgentStats(String agent, long attempts, long fits, long wins, long filtered, double meanMicros) {
+            this.agent = agent;
+            this.attempts = attempts;
+            this.fits = fits;
+            this.wins = wins;
+            this.filtered = filtered;
+            this.meanMicros = meanMicros;
+        }
+
+        public double hitRate() {
+            return attempts == 0 ? 0 : (double) fits / attempts;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new TreeMap<>();
+            map.put("agent", agent);
+            map.put("attempts", attempts);
+            map.put("fits", fits);
+            map.put("hitRate", hitRate());
+            map.put("wins", wins);
+            map.put("filtered", filtered);
+            map.put("meanMicros", meanMicros);
+            return map;
+        }
+    }
+
+    /**
+     * The outcome of a split. {@code accuracy} is the fraction of puzzles with a known test
+     * output that were answered correctly; latencies are per puzzle, in milliseconds.
+     */
+    public static final class Report {
+        public final String split;
+        public final int puzzles;
+        public final int solved;
+        public final int correct;
+        public final int cached;
+        public final double accuracy;
+        public final double puzzlesPerSecond;
+        public final double p50Millis;
+        public final double p90Millis;
+        public final double p99Millis;
+        public final double maxMillis;
+        public final List<AgentStats> agents;
+        public final List<SolveResult> results;
+
+        Report(String split, List<SolveResult> results, long elapsedNanos) {
+            this.split = split;
+            this.results = results;
+            this.puzzles = results.size();
+            int solved = 0;
+            int correct = 0;
+            int known = 0;
+            int cached = 0;
+            double[] millis = new double[results.size()];
+            Map<String, long[]> counts = new TreeMap<>();
+            for (int i = 0; i < results.size(); i++) {
+                SolveResult result = results.get(i);
+                millis[i] = result.elapsedNanos / 1e6;
+                solved += result.solved ? 1 : 0;
+                cached += result.cached ? 1 : 0;
+                if (result.correct != null) {
+                    known++;
+                    correct += result.correct ? 1 : 0;
+                }
+                // attempts, fits, wins, nanos, filtered
+                for (SolveResult.AgentRun run : result.runs) {
+                    if (run.filtered) {
+                        counts.computeIfAbsent(run.agent, name -> new long[5])[4]++;
+                    } else if (!run.skipped) {
+                        long[] agent = counts.computeIfAbsent(run.agent, name -> new long[5]);
+                        agent[0]++;
+                        agent[1] += run.fits ? 1 : 0;
+                        agent[3] += run.nanos;
+                    }
+                }
+                if (result.solved) {
+                    counts.computeIfAbsent(result.agent, name -> new long[5])[2]++;
+                }
+            }
+            this.solved = solved;
+            this.correct = correct;
+            this.cached = cached;
+            this.accuracy = known == 0 ? 0 : (double) correct / known;
+            this.puzzlesPerSecond = elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+            Arrays.sort(millis);
+            this.p50Millis = percentile(millis, 50);
+            this.p90Millis = percentile(millis, 90);
+            this.p99Millis = percentile(millis, 99);
+            this.maxMillis = millis.length == 0 ? 0 : millis[millis.length - 1];
+            List<AgentStats> agents = new ArrayList<>(counts.size());
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                long[] agent = entry.getValue();
+                agents.add(new AgentStats(entry.getKey(), agent[0], agent[1], agent[2], agent[4],
+                    agent[0] == 0 ? 0 : agent[3] / 1e3 / agent[0]));
+            }
+            this.agents = agents;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "%s: %d puzzles, %d solved, %d correct (accuracy %.3f), %d cached%n",
+                split, puzzles, solved, correct, accuracy, cached));
+            out.append(String.format(Locale.ROOT, "%.1f puzzles/s, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, " +
+                "max %.2f ms%n", puzzlesPerSecond, p50Millis, p90Millis, p99Millis, maxMillis));
+            out.append(String.format(Locale.ROOT, "%-40s %8s %8s %8s %8s %8s %10s%n", "agent", "attempts", "fits",
+                "hit rate", "wins", "filtered", "mean us"));
+            for (AgentStats agent : agents) {
+                out.append(String.format(Locale.ROOT, "%-40s %8d %8d %8.3f %8d %8d %10.1f%n", agent.agent,
+                    agent.attempts, agent.fits, agent.hitRate(), agent.wins, agent.filtered, agent.meanMicros));
+            }
+            return out.toString();
+        }
+    }
+
+    private ArcEvaluator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 4) {
+            throw new IllegalArgumentException(
+                "Usage: ArcEvaluator <split> [KG file or task directory] [parallelism] [bolt URI]");
+        }
+        List<ArcPuzzle> puzzles = load(args[0], args.length > 1 ? args[1] : null);
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GraphRAG graphRag = args.length > 3 ? new GraphRAG(args[3],
+            MainPlugin.getConfigProperty("neo4j.username", "neo4j"),
+            MainPlugin.getConfigProperty("neo4j.password", "password")) : null;
+        try {
+            System.out.print(evaluate(args[0], puzzles, graphRag, parallelism));
+        } finally {
+            if (graphRag != null) {
+                graphRag.close();
+            }
+        }
+    }
+
+    /**
+     * Evaluates with a solver of its own on {@code graphRag}, or without a graph if it is null,
+     * and closes the solver so every run is written before the report is returned.
+     */
+    public static Report evaluate(String split, List<ArcPuzzle> puzzles, GraphRAG graphRag, int parallelism)
+            throws InterruptedException {
+        try (PuzzleSolver solver = new PuzzleSolver(graphRag)) {
+            return evaluate(split, puzzles, solver, parallelism);
+        }
+    }
+
+    /**
+     * Reads the puzzles of a split from {@code path}, or from the bundled ARC KG if it is null.
+     */
+    public static List<ArcPuzzle> load(String split, String path) throws IOException {
+        if (path == null) {
+            try (InputStream in = ArcEvaluator.class.getClassLoader().getResourceAsStream(BUNDLED_KG)) {
+                if (in == null) {
+                    throw new IOException(BUNDLED_KG + " is not on the classpath");
+                }
+                return fromKG(split, new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        }
+        Path location = Paths.get(path);
+        if (!Files.isDirectory(location)) {
+            return fromKG(split, new JSONObject(Files.readString(location)));
+        }
+        if (Files.isDirectory(location.resolve(split))) {
+            location = location.resolve(split);
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(location, "*.json")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        List<ArcPuzzle> puzzles = new ArrayList<>(files.size());
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            puzzles.add(ArcPuzzle.fromExample(name.substring(0, name.length() - ".json".length()),
+                new JSONObject(Files.readString(file))));
+        }
+        return puzzles;
+    }
+
+    /**
+     * Reads the example list of a split from an ARC KG document. The split may be given as
+     * {@code training}, {@code evaluation} or {@code finalExam}, or as the key itself.
+     */
+    static List<ArcPuzzle> fromKG(String split, JSONObject kg) {
+        String key = split.endsWith("Examples") ? split : split + "Examples";
+        JSONArray examples = kg.optJSONArray(key);
+        if (examples == null) {
+            throw new IllegalArgumentException("Unknown split " + split +
+                "; expected training, evaluation or finalExam");
+        }
+        List<ArcPuzzle> puzzles = new ArrayList<>(examples.length());
+        for (int i = 0; i < examples.length(); i++) {
+            puzzles.add(ArcPuzzle.fromExample(key + "[" + i + "]", examples.getJSONObject(i)));
+        }
+        return puzzles;
+    }
+
+    /**
+     * Solves the puzzles on {@code parallelism} threads, each puzzle running its agents on the
+     * solver's own pool, and reports on the results in puzzle order.
+     */
+    public static Report evaluate(String split, List<ArcPuzzle> puzzles, PuzzleSolver solver, int parallelism)
+            throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "safeai-evaluate-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<SolveResult>> tasks = new ArrayList<>(puzzles.size());
+            for (ArcPuzzle puzzle : puzzles) {
+                tasks.add(() -> solver.solve(puzzle));
+            }
+            long start = System.nanoTime();
+            List<Future<SolveResult>> futures = executor.invokeAll(tasks);
+            List<SolveResult> results = new ArrayList<>(futures.size());
+            for (Future<SolveResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Solving failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return new Report(split, results, System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The nearest-rank percentile of sorted values.
+     */
+    static double percentile(double[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
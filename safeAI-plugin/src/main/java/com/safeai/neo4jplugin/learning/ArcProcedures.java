@@ -0,0 +1,95 @@
+package com.safeai.neo4jplugin.learning;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.safeai.neo4jplugin.MainPlugin;
+import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+/**
+ * ArcProcedures expose the ARC puzzle solver as Neo4j procedures.
+ */
+public class ArcProcedures {
+
+    @Context
+    public GraphDatabaseService db;
+
+    public static class EvaluationResult {
+        public String split;
+        public long puzzles;
+        public long solved;
+        public long correct;
+        public long cached;
+        public double accuracy;
+        public double puzzlesPerSecond;
+        public double p50Millis;
+        public double p90Millis;
+        public double p99Millis;
+        public double maxMillis;
+        public List<Map<String, Object>> agents;
+
+        public EvaluationResult(ArcEvaluator.Report report) {
+            this.split = report.split;
+            this.puzzles = report.puzzles;
+            this.solved = report.solved;
+            this.correct = report.correct;
+            this.cached = report.cached;
+            this.accuracy = report.accuracy;
+            this.puzzlesPerSecond = report.puzzlesPerSecond;
+            this.p50Millis = report.p50Millis;
+            this.p90Millis = report.p90Millis;
+            this.p99Millis = report.p99Millis;
+            this.maxMillis = report.maxMillis;
+            this.agents = new ArrayList<>(report.agents.size());
+            for (ArcEvaluator.AgentStats agent : report.agents) {
+                this.agents.add(agent.toMap());
+            }
+        }
+    }
+
+    @Procedure(name = "safeai.arc.evaluate", mode = Mode.WRITE)
+    @Description("CALL safeai.arc.evaluate('training', {parallelism: 4, path: null, limit: null}) YIELD puzzles, " +
+                 "accuracy, puzzlesPerSecond, p50Millis, p99Millis, agents - Solves every puzzle of a split of the " +
+                 "bundled ARC KG (training, evaluation or finalExam), or of a KG file or ARC task directory under " +
+                 "arc.eval.dir given as path, and reports accuracy, throughput, latency percentiles and per-agent hit rates. Every solve " +
+                 "is recorded as a Puzzle_Run.")
+    public Stream<EvaluationResult> evaluate(@Name("split") String split,
+                                             @Name(value = "options", defaultValue = "{}") Map<String, Object> options)
+            throws IOException, InterruptedException {
+        Map<String, Object> opts = options == null ? Map.of() : options;
+        Object path = opts.get("path");
+        Object parallelism = opts.get("parallelism");
+        Object limit = opts.get("limit");
+        List<ArcPuzzle> puzzles = ArcEvaluator.load(split, path == null ? null : resolve(path.toString()).toString());
+        if (limit instanceof Number && ((Number) limit).intValue() < puzzles.size()) {
+            puzzles = puzzles.subList(0, Math.max(0, ((Number) limit).intValue()));
+        }
+        ArcEvaluator.Report report = ArcEvaluator.evaluate(split, puzzles, new GraphRAG(db),
+            parallelism instanceof Number ? ((Number) parallelism).intValue()
+                : Runtime.getRuntime().availableProcessors());
+        return Stream.of(new EvaluationResult(report));
+    }
+
+    /**
+     * Resolves an evaluation path against {@code arc.eval.dir}, which defaults to
+     * {@code arc.kg.folder}; paths outside it are rejected.
+     *
+     * @throws IllegalArgumentException if the path lies outside {@code arc.eval.dir}
+     */
+    public static Path resolve(String path) {
+        String dir = MainPlugin.getConfigProperty("arc.eval.dir",
+                MainPlugin.getConfigProperty("arc.kg.folder", "./arc_kg"));
+        return MainPlugin.resolveWithin(dir, path);
+    }
+}
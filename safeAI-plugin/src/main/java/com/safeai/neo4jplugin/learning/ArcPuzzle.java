@@ -0,0 +1,91 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * ArcPuzzle is an ARC task: training examples pairing an input grid with its expected output,
+ * and a test input whose output is to be found. The expected test output is known for
+ * evaluation tasks and null otherwise.
+ */
+public final class ArcPuzzle {
+
+    public static final class Example {
+        public final Grid input;
+        public final Grid output;
+
+        public Example(Grid input, Grid output) {
+            this.input = input;
+            this.output = output;
+        }
+    }
+
+    private final String id;
+    private final List<Example> train;
+    private final Grid testInput;
+    private final Grid testOutput;
+
+    public ArcPuzzle(String id, List<Example> train, Grid testInput, Grid testOutput) {
+        if (train.isEmpty()) {
+            throw new IllegalArgumentException("Puzzle " + id + " has no training examples");
+        }
+        this.id = id;
+        this.train = Collections.unmodifiableList(new ArrayList<>(train));
+        this.testInput = testInput;
+        this.testOutput = testOutput;
+    }
+
+    /**
+     * Reads a task in the ARC JSON format: {@code {"train": [{"input": .., "output": ..}, ..],
+     * "test": [{"input": .., "output": ..}]}}. Only the first test pair is used.
+     */
+    public static ArcPuzzle fromJson(String id, JSONObject task) {
+        List<Example> train = new ArrayList<>();
+        JSONArray examples = task.getJSONArray("train");
+        for (int i = 0; i < examples.length(); i++) {
+            JSONObject example = examples.getJSONObject(i);
+            train.add(new Example(grid(example.get("input")), grid(example.get("output"))));
+        }
+        JSONObject test = task.getJSONArray("test").getJSONObject(0);
+        return new ArcPuzzle(id, train, grid(test.get("input")), test.has("output") ? grid(test.get("output")) : null);
+    }
+
+    /**
+     * Reads a puzzle in either the ARC format or the format of the examples bundled in the ARC
+     * KG, a single {@code {"input": .., "expectedOutput": ..}} pair. Such a pair becomes a puzzle
+     * whose only training example is also its test, so solving it checks that some agent
+     * reproduces the pair.
+     */
+    public static ArcPuzzle fromExample(String id, JSONObject example) {
+        if (example.has("train")) {
+            return fromJson(id, example);
+        }
+        Grid input = grid(example.get("input"));
+        Grid output = grid(example.get("expectedOutput"));
+        return new ArcPuzzle(id, List.of(new Example(input, output)), input, output);
+    }
+
+    static Grid grid(Object json) {
+        return Grid.from(json instanceof JSONArray ? ((JSONArray) json).toList() : json);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Example> getTrain() {
+        return train;
+    }
+
+    public Grid getTestInput() {
+        return testInput;
+    }
+
+    public Grid getTestOutput() {
+        return testOutput;
+    }
+}
@@ -0,0 +1,157 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridTransform;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * CanonicalPuzzle is the form of a puzzle shared by all its variants under rotation, reflection
+ * and renaming of colors. Of the eight rotations and reflections of the whole puzzle, the
+ * canonical one serializes smallest after numbering its colors in order of first appearance;
+ * {@link #hash} is the SHA-256 of that serialization.
+ *
+ * {@link #toCanonical} and {@link #fromCanonical} carry grids between the puzzle and its
+ * canonical form, so an answer found for one variant can be handed to another, as long as it
+ * only uses colors of the puzzle (see {@link #inPuzzleColors}).
+ */
+public final class CanonicalPuzzle {
+    private static final GridTransform[] SYMMETRIES = {
+        grid -> grid, GridTransforms::rotate90, GridTransforms::rotate180, GridTransforms::rotate270,
+        GridTransforms::reflectHorizontal, GridTransforms::reflectVertical, GridTransforms::transpose,
+        GridTransforms::antiTranspose
+    };
+    private static final GridTransform[] INVERSES = {
+        grid -> grid, GridTransforms::rotate270, GridTransforms::rotate180, GridTransforms::rotate90,
+        GridTransforms::reflectHorizontal, GridTransforms::reflectVertical, GridTransforms::transpose,
+        GridTransforms::antiTranspose
+    };
+
+    private final String hash;
+    private final int symmetry;
+    private final byte[] toCanonical;
+    private final byte[] fromCanonical;
+    // Canonical colors below this are the puzzle's own
+    private final int colors;
+
+    private CanonicalPuzzle(String hash, int symmetry, byte[] toCanonical, byte[] fromCanonical, int colors) {
+        this.hash = hash;
+        this.symmetry = symmetry;
+        this.toCanonical = toCanonical;
+        this.fromCanonical = fromCanonical;
+        this.colors = colors;
+    }
+
+    /**
+     * Finds the canonical form of the training examples and test input; the test output does
+     * not take part, so a puzzle hashes the same whether or not its answer is known.
+     */
+    public static CanonicalPuzzle of(ArcPuzzle puzzle) {
+        List<ArcPuzzle.Example> train = puzzle.getTrain();
+        Grid[] grids = new Grid[train.size() * 2 + 1];
+        for (int i = 0; i < train.size(); i++) {
+            grids[2 * i] = train.get(i).input;
+            grids[2 * i + 1] = train.get(i).output;
+        }
+        grids[grids.length - 1] = puzzle.getTestInput();
+
+        byte[] best = null;
+        byte[] bestColors = null;
+        int bestSymmetry = 0;
+        for (int s = 0; s < SYMMETRIES.length; s++) {
+            byte[] colors = new byte[Grid.MAX_COLOR + 1];
+            byte[] serialized = serialize(grids, SYMMETRIES[s], colors);
+            if (best == null || Arrays.compare(serialized, best) < 0) {
+                best = serialized;
+                bestColors = colors;
+                bestSymmetry = s;
+            }
+        }
+
+        // Colors absent from the puzzle take the remaining canonical colors in order, so the
+        // color map is a permutation and every grid can be carried both ways
+        byte[] toCanonical = new byte[Grid.MAX_COLOR + 1];
+        byte[] fromCanonical = new byte[Grid.MAX_COLOR + 1];
+        int next = 0;
+        for (byte assigned : bestColors) {
+            next = Math.max(next, assigned);
+        }
+        int colors = next;
+        for (int c = 0; c <= Grid.MAX_COLOR; c++) {
+            int canonical = bestColors[c] > 0 ? bestColors[c] - 1 : next++;
+            toCanonical[c] = (byte) canonical;
+            fromCanonical[canonical] = (byte) c;
+        }
+        return new CanonicalPuzzle(sha256(best), bestSymmetry, toCanonical, fromCanonical, colors);
+    }
+
+    /**
+     * The hash shared by every rotation, reflection and recoloring of the puzzle.
+     */
+    public String hash() {
+        return hash;
+    }
+
+    /**
+     * Whether every color of a canonical grid stands for a color of the puzzle. The other
+     * canonical colors stand for whichever colors the puzzle happens not to use, so a grid with
+     * them, such as an answer filling in a new color, decodes differently for each recoloring.
+     */
+    public boolean inPuzzleColors(Grid canonical) {
+        for (byte cell : canonical.cells()) {
+            if (cell >= colors) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Grid toCanonical(Grid grid) {
+        return GridTransforms.mapColors(SYMMETRIES[symmetry].apply(grid), toCanonical);
+    }
+
+    public Grid fromCanonical(Grid grid) {
+        return INVERSES[symmetry].apply(GridTransforms.mapColors(grid, fromCanonical));
+    }
+
+    /**
+     * Writes the example count, then each transformed grid's height, width and cells, with
+     * colors numbered by first appearance. {@code colors} receives each original color's
+     * number plus one, or 0 if it does not occur.
+     */
+    private static byte[] serialize(Grid[] grids, GridTransform symmetry, byte[] colors) {
+        int size = 1;
+        for (Grid grid : grids) {
+            size += 2 + grid.width() * grid.height();
+        }
+        byte[] out = new byte[size];
+        out[0] = (byte) (grids.length / 2);
+        int n = 1;
+        int assigned = 0;
+        for (Grid grid : grids) {
+            Grid transformed = symmetry.apply(grid);
+            byte[] cells = transformed.cells();
+            out[n++] = (byte) transformed.height();
+            out[n++] = (byte) transformed.width();
+            for (byte cell : cells) {
+                if (colors[cell] == 0) {
+                    colors[cell] = (byte) ++assigned;
+                }
+                out[n++] = (byte) (colors[cell] - 1);
+            }
+        }
+        return out;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
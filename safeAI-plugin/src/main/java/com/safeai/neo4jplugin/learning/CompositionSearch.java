@@ -0,0 +1,248 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridFeatures;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * CompositionSearch looks for a chain of native agents that turns every training input of a
+ * puzzle into its output. It is a beam search: each level extends the kept chains by one agent,
+ * and only the {@code beamWidth} chains whose grids are closest to the outputs survive to the
+ * next level. The search stops at the first level where a chain fits.
+ *
+ * Each agent's results are memoized by input grid, so chains sharing a prefix, and examples
+ * sharing a grid, run each transformation once. Extensions that cannot reach the outputs in the
+ * remaining steps, judging by the agents' declared shapes and colors and, for the last
+ * step, by {@link NativeGridAgent#mayProduce}, are dropped without running them.
+ */
+final class CompositionSearch {
+
+    /**
+     * The chain found, as indexes into the agent list, and how it did on the training examples.
+     */
+    static final class Chain {
+        final int[] agents;
+        final double score;
+        final boolean fits;
+
+        Chain(int[] agents, double score, boolean fits) {
+            this.agents = agents;
+            this.score = score;
+            this.fits = fits;
+        }
+    }
+
+    private static final class State {
+        final int[] chain;
+        final Grid[] grids;
+        final GridFeatures[] features;
+        final double score;
+        final double rank;
+        final boolean fits;
+
+        State(int[] chain, Grid[] grids, GridFeatures[] features, double score, double rank, boolean fits) {
+            this.chain = chain;
+            this.grids = grids;
+            this.features = features;
+            this.score = score;
+            this.rank = rank;
+            this.fits = fits;
+        }
+    }
+
+    /** Memoized result of a transformation that threw. */
+    private static final Grid FAILED = Grid.filled(1, 1, 0);
+
+    private final List<NativeGridAgent> agents;
+    private final List<ConcurrentMap<Grid, Grid>> memo;
+    private final AtomicInteger applications = new AtomicInteger();
+    private final boolean anyResizes;
+    private final boolean anyTransposes;
+    private final boolean anyRecolors;
+
+    CompositionSearch(List<NativeGridAgent> agents) {
+        this.agents = agents;
+        this.memo = new ArrayList<>(agents.size());
+        boolean resizes = false;
+        boolean transposes = false;
+        boolean recolors = false;
+        for (NativeGridAgent agent : agents) {
+            memo.add(new ConcurrentHashMap<>());
+            resizes |= agent.getShape() == NativeGridAgent.Shape.CHANGED;
+            transposes |= agent.getShape() == NativeGridAgent.Shape.TRANSPOSED;
+            recolors |= !agent.preservesColors();
+        }
+        this.anyResizes = resizes;
+        this.anyTransposes = transposes;
+        this.anyRecolors = recolors;
+    }
+
+    /**
+     * Searches chains of up to {@code depth} agents, running the extensions of each level in
+     * parallel on {@code pool}. Returns the first fitting chain, or the best ranked chain of the
+     * last level; null if no chain applies to every training input.
+     */
+    Chain search(ArcPuzzle puzzle, int depth, int beamWidth, ForkJoinPool pool) {
+        List<ArcPuzzle.Example> train = puzzle.getTrain();
+        int examples = train.size();
+        Grid[] targets = new Grid[examples];
+        GridFeatures[] targetFeatures = new GridFeatures[examples];
+        Grid[] inputs = new Grid[examples];
+        GridFeatures[] inputFeatures = new GridFeatures[examples];
+        for (int i = 0; i < examples; i++) {
+            targets[i] = train.get(i).output;
+            targetFeatures[i] = GridFeatures.of(targets[i]);
+            inputs[i] = train.get(i).input;
+            inputFeatures[i] = GridFeatures.of(inputs[i]);
+            if (!reachable(inputFeatures[i], targetFeatures[i])) {
+                return null;
+            }
+        }
+
+        Set<List<Grid>> seen = new HashSet<>();
+        seen.add(Arrays.asList(inputs));
+        List<State> beam = List.of(new State(new int[0], inputs, inputFeatures, 0, 0, false));
+        State best = null;
+        for (int level = 1; level <= depth && !beam.isEmpty(); level++) {
+            int remaining = depth - level;
+            List<int[]> pairs = new ArrayList<>(beam.size() * agents.size());
+            for (int s = 0; s < beam.size(); s++) {
+                for (int a = 0; a < agents.size(); a++) {
+                    pairs.add(new int[] {s, a});
+                }
+            }
+            List<State> parents = beam;
+            List<State> expanded = pool.submit(() -> pairs.parallelStream()
+                .map(pair -> extend(parents.get(pair[0]), pair[1], remaining, targets, targetFeatures))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())).join();
+
+            // Expansions come back in beam then agent order; keep the first of duplicate results
+            List<State> next = new ArrayList<>(expanded.size());
+            for (State state : expanded) {
+                if (seen.add(Arrays.asList(state.grids))) {
+                    next.add(state);
+                }
+            }
+            for (State state : next) {
+                if (state.fits) {
+                    return chain(state);
+                }
+            }
+            next.sort(Comparator.comparingDouble((State state) -> -state.rank));
+            beam = next.size() > beamWidth ? new ArrayList<>(next.subList(0, beamWidth)) : next;
+            if (!beam.isEmpty() && (best == null || beam.get(0).rank > best.rank)) {
+                best = beam.get(0);
+            }
+        }
+        return best == null ? null : chain(best);
+    }
+
+    /**
+     * Runs the chain on {@code input}; null if an agent throws.
+     */
+    Grid apply(int[] chain, Grid input) {
+        Grid grid = input;
+        for (int agent : chain) {
+            grid = apply(agent, grid);
+            if (grid == FAILED) {
+                return null;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * The number of transformations actually run, as opposed to answered from the memo.
+     */
+    int applications() {
+        return applications.get();
+    }
+
+    private State extend(State parent, int agent, int remaining, Grid[] targets, GridFeatures[] targetFeatures) {
+        NativeGridAgent candidate = agents.get(agent);
+        int examples = targets.length;
+        if (remaining == 0) {
+            for (int i = 0; i < examples; i++) {
+                if (!candidate.mayProduce(parent.features[i], targetFeatures[i])) {
+                    return null;
+                }
+            }
+        }
+        Grid[] grids = new Grid[examples];
+        GridFeatures[] features = new GridFeatures[examples];
+        boolean changed = false;
+        boolean fits = true;
+        double similarity = 0;
+        double colorOverlap = 0;
+        for (int i = 0; i < examples; i++) {
+            Grid grid = apply(agent, parent.grids[i]);
+            if (grid == FAILED) {
+                return null;
+            }
+            features[i] = GridFeatures.of(grid);
+            if (remaining > 0 && !reachable(features[i], targetFeatures[i])) {
+                return null;
+            }
+            changed |= !grid.equals(parent.grids[i]);
+            grids[i] = grid;
+            double score = grid.similarity(targets[i]);
+            fits &= score == 1.0;
+            similarity += score;
+            int colors = features[i].colorMask();
+            int targetColors = targetFeatures[i].colorMask();
+            int union = Integer.bitCount(colors | targetColors);
+            colorOverlap += union == 0 ? 1 : (double) Integer.bitCount(colors & targetColors) / union;
+        }
+        if (!changed) {
+            // A step that changes nothing only lengthens the chain
+            return null;
+        }
+        int[] chain = Arrays.copyOf(parent.chain, parent.chain.length + 1);
+        chain[parent.chain.length] = agent;
+        // Color overlap only breaks ties between grids that match equally well
+        double rank = (similarity + 0.01 * colorOverlap) / examples;
+        return new State(chain, grids, features, similarity / examples, rank, fits);
+    }
+
+    /**
+     * False if no chain of the available agents can turn {@code grid} into {@code target}.
+     */
+    private boolean reachable(GridFeatures grid, GridFeatures target) {
+        if (!anyResizes) {
+            boolean same = grid.width() == target.width() && grid.height() == target.height();
+            boolean transposed = grid.width() == target.height() && grid.height() == target.width();
+            if (!same && !(anyTransposes && transposed)) {
+                return false;
+            }
+        }
+        return anyRecolors || (target.colorMask() & ~grid.colorMask() & ~1) == 0;
+    }
+
+    private Grid apply(int agent, Grid grid) {
+        return memo.get(agent).computeIfAbsent(grid, input -> {
+            applications.incrementAndGet();
+            try {
+                return agents.get(agent).apply(input);
+            } catch (RuntimeException e) {
+                return FAILED;
+            }
+        });
+    }
+
+    private static Chain chain(State state) {
+        return new Chain(state.chain, state.score, state.fits);
+    }
+}
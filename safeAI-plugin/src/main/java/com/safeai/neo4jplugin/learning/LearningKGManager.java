@@ -37,7 +37,12 @@ public class LearningKGManager {
                     if (is != null) {
                         String content = new String(is.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
                         org.json.JSONObject kgData = new org.json.JSONObject(content);
-                        graphRag.initializeARCkg(kgData);
+                        try {
+                            graphRag.initializeARCkg(kgData);
+                        } catch (RuntimeException e) {
+                            // One unreadable KG or an unreachable graph should not stop the others
+                            logger.warning("Could not initialize KG " + resourceName + ": " + e.getMessage());
+                        }
                     } else {
                         logger.warning("Resource " + resourceName + " not found as stream.");
                     }
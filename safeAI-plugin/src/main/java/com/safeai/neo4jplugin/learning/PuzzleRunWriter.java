@@ -0,0 +1,176 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.GridCodec;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * PuzzleRunWriter persists solver results behind the solver's back: each solve becomes a
+ * {@code Puzzle_Run} on its {@code Puzzle}, linked to an {@code AI_Solved} or
+ * {@code Counterexample} {@code Solution}. The puzzle's test grids and the answer are stored
+ * in canonical form, packed by {@link GridCodec}. Runs are buffered and written in batches of
+ * {@code batchSize} per transaction, once a batch fills up or {@code flushMillis} after the
+ * first run of a batch arrived, whichever comes first.
+ *
+ * The buffer holds at most {@code capacity} runs; a solver that finds it full flushes it itself
+ * before adding more. {@link #close} flushes, and {@link #flushAll} flushes every open writer;
+ * {@link com.safeai.neo4jplugin.WriteBehindExtensionFactory} calls it when a database stops,
+ * while the database can still take the writes. A batch that fails to write is logged and
+ * dropped.
+ */
+public final class PuzzleRunWriter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(PuzzleRunWriter.class);
+
+    /**
+     * Where batches of runs are written, in production
+     * {@link com.safeai.neo4jplugin.graph_rag.GraphRAG#recordPuzzleRuns}. A write that fails
+     * throws; the batch may be reused once the call returns.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(List<Map<String, Object>> runs);
+    }
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "safeai-run-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Weakly held, so a writer nobody closed is dropped once it is unreachable; one with runs
+    // still buffered is reachable from its scheduled flush
+    private static final Set<PuzzleRunWriter> open =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final Sink sink;
+    private final int batchSize;
+    private final long flushMillis;
+    private final BlockingQueue<Map<String, Object>> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public PuzzleRunWriter(Sink sink, int batchSize, long flushMillis, int capacity) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.pending = new ArrayBlockingQueue<>(Math.max(batchSize, capacity));
+        open.add(this);
+    }
+
+    /**
+     * Buffers the run of {@code result}; a run counts as solved if it fitted the training
+     * examples and its answer is not known to be wrong.
+     */
+    public void record(ArcPuzzle puzzle, CanonicalPuzzle canonical, SolveResult result) {
+        Map<String, Object> run = row(puzzle, canonical, result);
+        while (!pending.offer(run)) {
+            flush();
+        }
+        if (pending.size() >= batchSize) {
+            flusher.execute(this::flush);
+        } else if (scheduled.compareAndSet(false, true)) {
+            flusher.schedule(() -> {
+                scheduled.set(false);
+                flush();
+            }, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes every buffered run now, in batches.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+            while (pending.drainTo(batch, batchSize) > 0) {
+                try {
+                    sink.write(batch);
+                    written.addAndGet(batch.size());
+                } catch (RuntimeException e) {
+                    dropped.addAndGet(batch.size());
+                    logger.warn("Could not write " + batch.size() + " puzzle runs: " + e.getMessage());
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        open.remove(this);
+        flush();
+    }
+
+    /**
+     * Flushes every writer that has not been closed.
+     */
+    public static void flushAll() {
+        List<PuzzleRunWriter> writers;
+        synchronized (open) {
+            writers = new ArrayList<>(open);
+        }
+        for (PuzzleRunWriter writer : writers) {
+            writer.flush();
+        }
+    }
+
+    static boolean isSolved(SolveResult result) {
+        return result.solved && !Boolean.FALSE.equals(result.correct);
+    }
+
+    static Map<String, Object> row(ArcPuzzle puzzle, CanonicalPuzzle canonical, SolveResult result) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("puzzle_id", puzzle.getId());
+        props.put("agent", result.agent);
+        props.put("score", result.score);
+        props.put("solved", result.solved);
+        props.put("correct", result.correct);
+        props.put("cached", result.cached);
+        props.put("elapsedMillis", result.elapsedNanos / 1e6);
+        Map<String, Object> grids = new HashMap<>();
+        grids.put("test_input", GridCodec.encode(canonical.toCanonical(puzzle.getTestInput())));
+        if (puzzle.getTestOutput() != null) {
+            grids.put("expected_output", GridCodec.encode(canonical.toCanonical(puzzle.getTestOutput())));
+        }
+        Map<String, Object> run = new HashMap<>();
+        run.put("runId", UUID.randomUUID().toString());
+        run.put("hash", canonical.hash());
+        run.put("puzzleId", puzzle.getId());
+        run.put("recordedAt", System.currentTimeMillis());
+        run.put("solutionType", isSolved(result) ? "AI_Solved" : "Counterexample");
+        run.put("props", props);
+        run.put("puzzle", grids);
+        run.put("answer", result.prediction == null ? Map.of()
+            : canonical.toCanonical(result.prediction).toProperties());
+        return run;
+    }
+}
@@ -1,37 +1,327 @@
 package com.safeai.neo4jplugin.learning;
 
+import com.safeai.neo4jplugin.MainPlugin;
 import com.safeai.neo4jplugin.graph_rag.GraphRAG;
-import com.safeai.neo4jplugin.specialized_agents.Rotate90Agent;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridFeatures;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
+import com.safeai.neo4jplugin.usage.AgentUsageCounters;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * PuzzleSolver processes abstract puzzles (language games) and logs transformation data.
+ *
+ * {@link #solve} tries every native grid agent on a puzzle's training examples in parallel on
+ * a shared fork-join pool ({@code arc.solver.parallelism} workers). Once an agent reproduces
+ * every training output, agents after it in registration order are skipped or abandoned, since
+ * they cannot win; agents before it still run, so the fitting agent that comes first in
+ * registration order is applied to the test input whatever order the workers take them in. Agents whose
+ * {@link NativeGridAgent#mayProduce} rules them out on the features of some training example
+ * are not run at all.
+ *
+ * If no single agent fits, {@link #compose} searches chains of up to
+ * {@code arc.solver.compose.depth} agents, keeping the {@code arc.solver.beam.width} most
+ * promising chains at each length.
+ *
+ * Solved puzzles are remembered in a {@link SolutionCache} under their {@link CanonicalPuzzle}
+ * hash, which is checked before any agent runs. Answers that bring in a color the puzzle does
+ * not use are not cached, since they cannot be carried to a recolored variant. Given a graph, every solve is also recorded by
+ * a {@link PuzzleRunWriter}, and each agent run is counted by {@link AgentUsageCounters}; both
+ * write in batches, and {@link #close} flushes them.
  */
-public class PuzzleSolver {
+public class PuzzleSolver implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(PuzzleSolver.class);
+
+    private static final ForkJoinPool pool = new ForkJoinPool(
+        Integer.parseInt(MainPlugin.getConfigProperty("arc.solver.parallelism",
+            String.valueOf(Runtime.getRuntime().availableProcessors()))),
+        forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("safeai-solver-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
     private GraphRAG graphRag;
+    private final SolutionCache solutions;
+    private final PuzzleRunWriter runWriter;
+    private final AgentUsageCounters usage;
 
     public PuzzleSolver(GraphRAG graphRag) {
+        this(graphRag, new SolutionCache(graphRag,
+            Integer.parseInt(MainPlugin.getConfigProperty("arc.solver.cache.size", "4096"))));
+    }
+
+    public PuzzleSolver(GraphRAG graphRag, SolutionCache solutions) {
+        this(graphRag, solutions, graphRag == null ? null : new PuzzleRunWriter(graphRag::recordPuzzleRuns,
+            Integer.parseInt(MainPlugin.getConfigProperty("arc.runs.batch.size", "500")),
+            Long.parseLong(MainPlugin.getConfigProperty("arc.runs.flush.ms", "1000")),
+            Integer.parseInt(MainPlugin.getConfigProperty("arc.runs.buffer", "10000"))),
+            graphRag == null ? null : new AgentUsageCounters(graphRag::recordAgentUsage,
+                Long.parseLong(MainPlugin.getConfigProperty("agent.usage.flush.ms", "5000"))));
+    }
+
+    public PuzzleSolver(GraphRAG graphRag, SolutionCache solutions, PuzzleRunWriter runWriter) {
+        this(graphRag, solutions, runWriter, null);
+    }
+
+    /**
+     * @param runWriter records every solve, or null to record nothing
+     * @param usage counts the runs and successes of each agent, or null to count nothing
+     */
+    public PuzzleSolver(GraphRAG graphRag, SolutionCache solutions, PuzzleRunWriter runWriter,
+                        AgentUsageCounters usage) {
         this.graphRag = graphRag;
+        this.solutions = solutions;
+        this.runWriter = runWriter;
+        this.usage = usage;
     }
 
     /**
-     * Processes a puzzle represented as a grid by applying transformation agents.
+     * Solves the puzzle given by a single input grid and the output it should produce, as the
+     * examples bundled in the ARC KG are given.
      * @param puzzleGrid The input puzzle grid.
-     * @return The solved grid.
+     * @param expectedOutput The grid the input should be transformed into.
+     * @return The solved grid, or null if no agent or chain of agents reproduces the output.
      */
-    public List<List<Integer>> processPuzzle(List<List<Integer>> puzzleGrid) {
+    public List<List<Integer>> processPuzzle(List<List<Integer>> puzzleGrid, List<List<Integer>> expectedOutput) {
         try {
-            // For demonstration, apply Rotate90Agent
-            Rotate90Agent agent = new Rotate90Agent(graphRag);
-            List<List<Integer>> candidate = agent.generate_candidate(puzzleGrid).get(0);
-            logger.info("Puzzle solved using Rotate90Agent.");
-            return candidate;
+            Grid input = Grid.fromList(puzzleGrid);
+            Grid output = Grid.fromList(expectedOutput);
+            SolveResult result = solve(new ArcPuzzle("grid", List.of(new ArcPuzzle.Example(input, output)),
+                input, output));
+            if (!result.solved || result.prediction == null) {
+                logger.info("No agent solves the puzzle.");
+                return null;
+            }
+            logger.info("Puzzle solved using " + result.agent + ".");
+            return result.prediction.toList();
         } catch (Exception e) {
             logger.error("Error processing puzzle: " + e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Solves the puzzle with the registered native agents.
+     */
+    public SolveResult solve(ArcPuzzle puzzle) {
+        return solve(puzzle, NativeGridAgents.all());
+    }
+
+    public SolveResult solve(ArcPuzzle puzzle, Collection<NativeGridAgent> agents) {
+        long start = System.nanoTime();
+        CanonicalPuzzle canonical = CanonicalPuzzle.of(puzzle);
+        SolutionCache.Solution cached = solutions.get(canonical.hash());
+        if (cached != null && canonical.inPuzzleColors(cached.answer)) {
+            Grid prediction = canonical.fromCanonical(cached.answer);
+            Boolean correct = puzzle.getTestOutput() == null ? null : puzzle.getTestOutput().equals(prediction);
+            return recorded(puzzle, canonical, new SolveResult(puzzle.getId(), true, cached.agent, cached.score,
+                prediction, correct, List.of(), System.nanoTime() - start, true));
+        }
+        SolveResult result = search(puzzle, agents, start);
+        if (PuzzleRunWriter.isSolved(result) && result.prediction != null) {
+            Grid answer = canonical.toCanonical(result.prediction);
+            // An answer with colors the puzzle lacks would decode wrongly for recolored variants
+            if (canonical.inPuzzleColors(answer)) {
+                solutions.put(canonical.hash(), new SolutionCache.Solution(result.agent, result.score, answer));
+            }
+        }
+        return recorded(puzzle, canonical, result);
+    }
+
+    private SolveResult recorded(ArcPuzzle puzzle, CanonicalPuzzle canonical, SolveResult result) {
+        if (runWriter != null) {
+            runWriter.record(puzzle, canonical, result);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the runs and agent counts not yet recorded in the graph.
+     */
+    @Override
+    public void close() {
+        if (runWriter != null) {
+            runWriter.close();
+        }
+        if (usage != null) {
+            usage.close();
+        }
+    }
+
+    private SolveResult search(ArcPuzzle puzzle, Collection<NativeGridAgent> agents, long start) {
+        List<NativeGridAgent> candidates = new ArrayList<>(agents);
+        List<ArcPuzzle.Example> train = puzzle.getTrain();
+        GridFeatures[] inputs = new GridFeatures[train.size()];
+        GridFeatures[] outputs = new GridFeatures[train.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = GridFeatures.of(train.get(i).input);
+            outputs[i] = GridFeatures.of(train.get(i).output);
+        }
+        // Index of the first agent known to fit
+        AtomicInteger firstFit = new AtomicInteger(Integer.MAX_VALUE);
+        List<ForkJoinTask<SolveResult.AgentRun>> tasks = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            NativeGridAgent agent = candidates.get(i);
+            int index = i;
+            if (applicable(agent, inputs, outputs)) {
+                tasks.add(ForkJoinTask.adapt(() -> run(agent, index, puzzle, firstFit)));
+            } else {
+                SolveResult.AgentRun filtered = new SolveResult.AgentRun(agent.getName(), 0, 0, false, true, true,
+                    null);
+                tasks.add(ForkJoinTask.adapt(() -> filtered));
+            }
+        }
+        List<SolveResult.AgentRun> runs = pool.submit(() -> {
+            ForkJoinTask.invokeAll(tasks);
+            List<SolveResult.AgentRun> done = new ArrayList<>(tasks.size());
+            for (ForkJoinTask<SolveResult.AgentRun> task : tasks) {
+                done.add(task.join());
+            }
+            return done;
+        }).join();
+        if (usage != null) {
+            for (SolveResult.AgentRun run : runs) {
+                if (!run.skipped) {
+                    usage.record(run.agent, run.fits);
+                }
+            }
+        }
+
+        int best = -1;
+        for (int i = 0; i < runs.size(); i++) {
+            SolveResult.AgentRun run = runs.get(i);
+            if (best < 0 ? run.score > 0 || run.fits : better(run, runs.get(best))) {
+                best = i;
+            }
+        }
+        if ((best < 0 || !runs.get(best).fits) && composeDepth() > 1) {
+            SolveResult composed = compose(puzzle, candidates, composeDepth(), beamWidth(), runs, start);
+            if (composed.solved || best < 0 || composed.score > runs.get(best).score) {
+                return composed;
+            }
+        }
+        if (best < 0) {
+            return new SolveResult(puzzle.getId(), false, null, 0, null, puzzle.getTestOutput() == null ? null : false,
+                runs, System.nanoTime() - start);
+        }
+        SolveResult.AgentRun winner = runs.get(best);
+        Grid prediction = null;
+        try {
+            prediction = candidates.get(best).apply(puzzle.getTestInput());
+        } catch (RuntimeException e) {
+            logger.debug("Agent " + winner.agent + " does not apply to the test input of " + puzzle.getId() +
+                    ": " + e.getMessage());
+        }
+        Boolean correct = puzzle.getTestOutput() == null ? null : puzzle.getTestOutput().equals(prediction);
+        return new SolveResult(puzzle.getId(), winner.fits, winner.agent, winner.score, prediction, correct, runs,
+            System.nanoTime() - start);
+    }
+
+    /**
+     * Searches chains of up to {@code depth} agents for one that reproduces every training output.
+     * The result names the chain as the agents joined by {@code " > "}, in the order they apply.
+     */
+    public SolveResult compose(ArcPuzzle puzzle, Collection<NativeGridAgent> agents, int depth, int beamWidth) {
+        return compose(puzzle, new ArrayList<>(agents), depth, beamWidth, List.of(), System.nanoTime());
+    }
+
+    private SolveResult compose(ArcPuzzle puzzle, List<NativeGridAgent> agents, int depth, int beamWidth,
+                                List<SolveResult.AgentRun> runs, long start) {
+        CompositionSearch search = new CompositionSearch(agents);
+        CompositionSearch.Chain chain = search.search(puzzle, depth, beamWidth, pool);
+        if (chain == null) {
+            return new SolveResult(puzzle.getId(), false, null, 0, null, puzzle.getTestOutput() == null ? null : false,
+                runs, System.nanoTime() - start);
+        }
+        StringJoiner name = new StringJoiner(" > ");
+        for (int agent : chain.agents) {
+            name.add(agents.get(agent).getName());
+            if (usage != null) {
+                // Only the agents of the chain found count; the search tries too many to be telling
+                usage.record(agents.get(agent).getName(), chain.fits);
+            }
+        }
+        Grid prediction = search.apply(chain.agents, puzzle.getTestInput());
+        if (prediction == null) {
+            logger.debug("Chain " + name + " does not apply to the test input of " + puzzle.getId());
+        }
+        logger.debug("Composition search for " + puzzle.getId() + " ran " + search.applications() +
+                " transformations");
+        Boolean correct = puzzle.getTestOutput() == null ? null : puzzle.getTestOutput().equals(prediction);
+        return new SolveResult(puzzle.getId(), chain.fits, name.toString(), chain.score, prediction, correct, runs,
+            System.nanoTime() - start);
+    }
+
+    private static int composeDepth() {
+        return Integer.parseInt(MainPlugin.getConfigProperty("arc.solver.compose.depth", "3"));
+    }
+
+    private static int beamWidth() {
+        return Integer.parseInt(MainPlugin.getConfigProperty("arc.solver.beam.width", "16"));
+    }
+
+    /**
+     * A fitting agent beats any agent that doesn't fit; otherwise the higher score wins. Ties go
+     * to the earlier agent.
+     */
+    private static boolean better(SolveResult.AgentRun run, SolveResult.AgentRun best) {
+        if (run.fits != best.fits) {
+            return run.fits;
+        }
+        return !run.fits && run.score > best.score;
+    }
+
+    private static boolean applicable(NativeGridAgent agent, GridFeatures[] inputs, GridFeatures[] outputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            if (!agent.mayProduce(inputs[i], outputs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the agent at {@code index} on the training examples, unless an agent before it has
+     * already fitted; it is abandoned as soon as it misses an example after that happens.
+     */
+    static SolveResult.AgentRun run(NativeGridAgent agent, int index, ArcPuzzle puzzle, AtomicInteger firstFit) {
+        if (firstFit.get() < index) {
+            return new SolveResult.AgentRun(agent.getName(), 0, 0, false, true, null);
+        }
+        long start = System.nanoTime();
+        double total = 0;
+        boolean fits = true;
+        for (ArcPuzzle.Example example : puzzle.getTrain()) {
+            Grid candidate;
+            try {
+                candidate = agent.apply(example.input);
+            } catch (RuntimeException e) {
+                return new SolveResult.AgentRun(agent.getName(), System.nanoTime() - start, 0, false, false,
+                    e.getMessage());
+            }
+            double score = candidate.similarity(example.output);
+            total += score;
+            fits &= score == 1.0;
+            if (!fits && firstFit.get() < index) {
+                // An earlier agent has fitted, this one can't win any more
+                break;
+            }
+        }
+        if (fits) {
+            firstFit.accumulateAndGet(index, Math::min);
+        }
+        return new SolveResult.AgentRun(agent.getName(), System.nanoTime() - start,
+            total / puzzle.getTrain().size(), fits, false, null);
+    }
 }
@@ -0,0 +1,102 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+import com.safeai.neo4jplugin.grid.Grid;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SolutionCache keeps the answers of solved puzzles by canonical hash, so a puzzle seen before,
+ * or a rotated, reflected or recolored variant of it, is answered without a search. Answers are
+ * held in canonical form in a bounded LRU map. Given a GraphRAG, misses are looked up in the
+ * {@code AI_Solved} {@code Solution} nodes written by {@link PuzzleRunWriter}, so answers outlive
+ * the process; answers read from the graph are kept in memory too.
+ */
+public class SolutionCache {
+
+    /**
+     * A cached answer: the agent that solved the puzzle, its training score, and the test output
+     * in canonical form.
+     */
+    public static final class Solution {
+        public final String agent;
+        public final double score;
+        public final Grid answer;
+
+        public Solution(String agent, double score, Grid answer) {
+            this.agent = agent;
+            this.score = score;
+            this.answer = answer;
+        }
+    }
+
+    private final GraphRAG graphRag;
+    private final LinkedHashMap<String, Solution> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param graphRag where persisted solutions are looked up, or null to keep them in memory only
+     */
+    public SolutionCache(GraphRAG graphRag, int maxEntries) {
+        this.graphRag = graphRag;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Solution> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Solution get(String puzzleHash) {
+        synchronized (this) {
+            Solution solution = entries.get(puzzleHash);
+            if (solution != null || graphRag == null) {
+                count(solution);
+                return solution;
+            }
+        }
+        Solution solution = null;
+        Map<String, Object> row = graphRag.findSolution(puzzleHash);
+        if (row != null) {
+            try {
+                solution = new Solution((String) row.get("agent"), ((Number) row.get("score")).doubleValue(),
+                    Grid.fromProperties(row));
+            } catch (RuntimeException e) {
+                // An unreadable node is treated as missing and rewritten by the next solve
+                solution = null;
+            }
+        }
+        synchronized (this) {
+            if (solution != null) {
+                entries.put(puzzleHash, solution);
+            }
+            count(solution);
+        }
+        return solution;
+    }
+
+    public synchronized void put(String puzzleHash, Solution solution) {
+        entries.put(puzzleHash, solution);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void count(Solution solution) {
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+    }
+}
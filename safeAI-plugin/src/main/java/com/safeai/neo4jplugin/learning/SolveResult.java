@@ -0,0 +1,74 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import java.util.List;
+
+/**
+ * The outcome of solving one puzzle: the agent chosen, its prediction for the test input, and
+ * how every agent did on the training examples.
+ */
+public final class SolveResult {
+
+    /**
+     * One agent's run over the training examples. {@code score} is the mean fraction of
+     * matching cells; {@code skipped} agents did not run, because another agent had already
+     * fitted every example or, if {@code filtered}, because the grid features of an example showed
+     * the agent cannot produce its output.
+     */
+    public static final class AgentRun {
+        public final String agent;
+        public final long nanos;
+        public final double score;
+        public final boolean fits;
+        public final boolean skipped;
+        public final boolean filtered;
+        public final String error;
+
+        AgentRun(String agent, long nanos, double score, boolean fits, boolean skipped, String error) {
+            this(agent, nanos, score, fits, skipped, false, error);
+        }
+
+        AgentRun(String agent, long nanos, double score, boolean fits, boolean skipped, boolean filtered,
+                 String error) {
+            this.agent = agent;
+            this.nanos = nanos;
+            this.score = score;
+            this.fits = fits;
+            this.skipped = skipped;
+            this.filtered = filtered;
+            this.error = error;
+        }
+    }
+
+    public final String puzzleId;
+    /** True if an agent reproduced every training output exactly. */
+    public final boolean solved;
+    /** The agent that fitted, or the best scoring one; null if no agent scored. */
+    public final String agent;
+    public final double score;
+    public final Grid prediction;
+    /** Whether the prediction equals the known test output; null if the output is unknown. */
+    public final Boolean correct;
+    public final List<AgentRun> runs;
+    public final long elapsedNanos;
+    /** True if the answer came from the solution cache; no agent ran and {@code runs} is empty. */
+    public final boolean cached;
+
+    SolveResult(String puzzleId, boolean solved, String agent, double score, Grid prediction, Boolean correct,
+                List<AgentRun> runs, long elapsedNanos) {
+        this(puzzleId, solved, agent, score, prediction, correct, runs, elapsedNanos, false);
+    }
+
+    SolveResult(String puzzleId, boolean solved, String agent, double score, Grid prediction, Boolean correct,
+                List<AgentRun> runs, long elapsedNanos, boolean cached) {
+        this.puzzleId = puzzleId;
+        this.solved = solved;
+        this.agent = agent;
+        this.score = score;
+        this.prediction = prediction;
+        this.correct = correct;
+        this.runs = runs;
+        this.elapsedNanos = elapsedNanos;
+        this.cached = cached;
+    }
+}
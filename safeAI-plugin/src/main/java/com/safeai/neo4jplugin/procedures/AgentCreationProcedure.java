@@ -4,6 +4,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.*;
 import org.json.JSONObject;
+import com.safeai.neo4jplugin.GroovyAgentPrecompiler;
 import com.safeai.neo4jplugin.LLMClient;
 import java.util.stream.Stream;
 import java.util.Map;
@@ -23,6 +24,24 @@ public class AgentCreationProcedure {
         }
     }
 
+    public static class CompileReportResult {
+        public final String agent;
+        public final String kgName;
+        public final boolean staticCompiled;
+        public final double compileMillis;
+        public final boolean cached;
+        public final String error;
+
+        public CompileReportResult(GroovyAgentPrecompiler.Report report) {
+            this.agent = report.agent;
+            this.kgName = report.kgName;
+            this.staticCompiled = report.staticCompiled;
+            this.compileMillis = report.compileMillis;
+            this.cached = report.cached;
+            this.error = report.error;
+        }
+    }
+
     @Procedure(name = "safeai.agents.createFromDescription", mode = Mode.WRITE)
     @Description("Creates an agent from a natural language description")
     public Stream<AgentResult> createFromDescription(
@@ -175,4 +194,10 @@ public class AgentCreationProcedure {
             ));
         }
     }
-} 
\ No newline at end of file
+
+    @Procedure(name = "safeai.agents.compileReport", mode = Mode.READ)
+    @Description("Reports compile time and whether static compilation succeeded for each precompiled Groovy agent")
+    public Stream<CompileReportResult> compileReport() {
+        return GroovyAgentPrecompiler.reports().stream().map(CompileReportResult::new);
+    }
+}
@@ -0,0 +1,213 @@
+package com.safeai.neo4jplugin.routing;
+
+import com.safeai.neo4jplugin.MainPlugin;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * AgentIndex keeps the in-memory routing indexes of one database: an {@link HnswIndex} that
+ * answers "which agents fit this text", with each agent embedded from its name, its description
+ * and the names and descriptions of its capabilities, and a {@link CapabilityIndex} that answers
+ * "which agents have these capabilities".
+ *
+ * The index is built from the graph on first use. Afterwards {@link AgentIndexListener} reports
+ * committed changes to agents, capabilities and the links between them, and the affected agents
+ * are re-read on a background thread, so lookups never wait for the graph.
+ */
+public final class AgentIndex {
+    private static final Logger logger = Logger.getLogger(AgentIndex.class.getName());
+
+    private static final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "safeai-agent-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, AgentIndex> indexes = new ConcurrentHashMap<>();
+
+    private static final String READ_AGENTS =
+        "OPTIONAL MATCH (a)-[:HAS_CAPABILITY]->(c:Capability) WITH a, collect(c) AS caps " +
+        "RETURN elementId(a) AS id, a.name AS name, a.kgName AS kgName, a.description AS description, " +
+        "[c IN caps | c.name] AS capabilityNames, " +
+        "[c IN caps | coalesce(c.name, '') + ' ' + coalesce(c.description, '')] AS capabilityTexts";
+
+    static final String READ_ALL = "MATCH (a:Agent) " + READ_AGENTS;
+
+    static final String READ_SOME = "MATCH (a:Agent) WHERE elementId(a) IN $ids " + READ_AGENTS;
+
+    public static final class Match {
+        public final String name;
+        public final String kgName;
+        public final String description;
+        public final double score;
+
+        Match(String name, String kgName, String description, double score) {
+            this.name = name;
+            this.kgName = kgName;
+            this.description = description;
+            this.score = score;
+        }
+    }
+
+    private static final class AgentInfo {
+        final String name;
+        final String kgName;
+        final String description;
+
+        AgentInfo(String name, String kgName, String description) {
+            this.name = name;
+            this.kgName = kgName;
+            this.description = description;
+        }
+    }
+
+    private final TextEmbedder embedder;
+    private final HnswIndex index;
+    private final Map<String, AgentInfo> agents = new ConcurrentHashMap<>();
+    private final CapabilityIndex capabilities = new CapabilityIndex();
+    private volatile boolean built;
+
+    AgentIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        this.embedder = new TextEmbedder(dimensions);
+        this.index = new HnswIndex(dimensions, m, efConstruction, efSearch);
+    }
+
+    /**
+     * Returns the index for {@code db}, building it from the graph on first use.
+     */
+    public static AgentIndex forDatabase(GraphDatabaseService db) {
+        AgentIndex agentIndex = indexes.computeIfAbsent(db.databaseName(), name -> new AgentIndex(
+            Integer.parseInt(MainPlugin.getConfigProperty("agents.index.dimensions", "256")),
+            Integer.parseInt(MainPlugin.getConfigProperty("agents.index.m", "16")),
+            Integer.parseInt(MainPlugin.getConfigProperty("agents.index.ef.construction", "100")),
+            Integer.parseInt(MainPlugin.getConfigProperty("agents.index.ef.search", "50"))));
+        agentIndex.ensureBuilt(db);
+        return agentIndex;
+    }
+
+    /**
+     * Returns the index for {@code databaseName} if one has been requested, otherwise null.
+     * Refreshes queued while it is still being built are applied after the build.
+     */
+    static AgentIndex existing(String databaseName) {
+        return indexes.get(databaseName);
+    }
+
+    static void discard(String databaseName) {
+        indexes.remove(databaseName);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public CapabilityIndex capabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Returns the {@code k} agents whose descriptions are most similar to {@code text}.
+     */
+    public List<Match> similar(String text, int k) {
+        List<Match> matches = new ArrayList<>();
+        for (HnswIndex.Hit hit : index.search(embedder.embed(text), k)) {
+            AgentInfo info = agents.get(hit.key);
+            if (info != null) {
+                matches.add(new Match(info.name, info.kgName, info.description, hit.score));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rebuilds the index from every agent in the graph.
+     */
+    public synchronized void rebuild(GraphDatabaseService db) {
+        try (Transaction tx = db.beginTx(); Result result = tx.execute(READ_ALL)) {
+            index.clear();
+            agents.clear();
+            capabilities.clear();
+            result.forEachRemaining(this::put);
+        }
+        built = true;
+        logger.info("Indexed " + index.size() + " agents in database " + db.databaseName());
+    }
+
+    /**
+     * Re-reads the given agents on the background thread; ids that no longer belong to an
+     * agent are dropped from the index.
+     */
+    void refreshAsync(GraphDatabaseService db, Collection<String> agentIds) {
+        Set<String> ids = new HashSet<>(agentIds);
+        refresher.execute(() -> {
+            try {
+                refresh(db, ids);
+            } catch (Exception e) {
+                logger.warning("Could not refresh agent index, rebuilding: " + e.getMessage());
+                rebuild(db);
+            }
+        });
+    }
+
+    synchronized void refresh(GraphDatabaseService db, Set<String> agentIds) {
+        Set<String> missing = new HashSet<>(agentIds);
+        try (Transaction tx = db.beginTx();
+             Result result = tx.execute(READ_SOME, Map.of("ids", new ArrayList<>(agentIds)))) {
+            result.forEachRemaining(row -> {
+                missing.remove((String) row.get("id"));
+                put(row);
+            });
+        }
+        for (String id : missing) {
+            remove(id);
+        }
+    }
+
+    void put(String id, String name, String kgName, String description, List<String> capabilityNames,
+             List<String> capabilityTexts) {
+        StringBuilder text = new StringBuilder();
+        text.append(name == null ? "" : name.replaceAll("(?<=[a-z])(?=[A-Z])", " ")).append(' ');
+        text.append(description == null ? "" : description);
+        for (String capability : capabilityTexts) {
+            text.append(' ').append(capability);
+        }
+        agents.put(id, new AgentInfo(name, kgName, description));
+        index.put(id, embedder.embed(text.toString()));
+        capabilities.put(id, name, kgName, capabilityNames);
+    }
+
+    void remove(String id) {
+        index.remove(id);
+        agents.remove(id);
+        capabilities.remove(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(Map<String, Object> row) {
+        put((String) row.get("id"), (String) row.get("name"), (String) row.get("kgName"),
+            (String) row.get("description"), (List<String>) row.get("capabilityNames"),
+            (List<String>) row.get("capabilityTexts"));
+    }
+
+    private void ensureBuilt(GraphDatabaseService db) {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild(db);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.safeai.neo4jplugin.routing;
+
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+/**
+ * AgentIndexExtensionFactory registers an {@link AgentIndexListener} on every user database
+ * while it is running, so agent indexes follow committed changes. It is loaded by Neo4j through
+ * {@code META-INF/services/org.neo4j.kernel.extension.ExtensionFactory}.
+ */
+public class AgentIndexExtensionFactory extends ExtensionFactory<AgentIndexExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        GraphDatabaseAPI graphdatabaseAPI();
+
+        DatabaseManagementService databaseManagementService();
+    }
+
+    public AgentIndexExtensionFactory() {
+        super(ExtensionType.DATABASE, "safeai.agentIndex");
+    }
+
+    @Override
+    public Lifecycle newInstance(ExtensionContext context, Dependencies dependencies) {
+        String databaseName = dependencies.graphdatabaseAPI().databaseName();
+        DatabaseManagementService dbms = dependencies.databaseManagementService();
+        return new LifecycleAdapter() {
+            private AgentIndexListener listener;
+
+            @Override
+            public void start() {
+                if ("system".equals(databaseName)) {
+                    return;
+                }
+                listener = new AgentIndexListener();
+                dbms.registerTransactionEventListener(databaseName, listener);
+            }
+
+            @Override
+            public void stop() {
+                if (listener != null) {
+                    dbms.unregisterTransactionEventListener(databaseName, listener);
+                    listener = null;
+                }
+                // The index would miss changes made while the database is stopped
+                AgentIndex.discard(databaseName);
+            }
+        };
+    }
+}
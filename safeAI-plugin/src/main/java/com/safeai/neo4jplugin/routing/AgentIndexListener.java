@@ -0,0 +1,100 @@
+package com.safeai.neo4jplugin.routing;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * AgentIndexListener keeps {@link AgentIndex} in sync with the graph. Before a transaction
+ * commits it collects the ids of the agents whose indexed text may have changed: agents that
+ * were created, deleted or edited, agents linked to an edited capability, and agents that gained
+ * or lost a capability link. Once the transaction has committed those agents are refreshed in
+ * the background. Nothing is collected while the database has no index yet.
+ */
+public class AgentIndexListener extends TransactionEventListenerAdapter<Set<String>> {
+    private static final Label AGENT = Label.label("Agent");
+    private static final Label CAPABILITY = Label.label("Capability");
+    private static final RelationshipType HAS_CAPABILITY = RelationshipType.withName("HAS_CAPABILITY");
+
+    @Override
+    public Set<String> beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService db) {
+        if (AgentIndex.existing(db.databaseName()) == null) {
+            return null;
+        }
+        Set<String> agents = new HashSet<>();
+        Set<String> capabilities = new HashSet<>();
+        for (LabelEntry entry : data.assignedLabels()) {
+            collect(data, entry.label(), entry.node(), agents, capabilities);
+        }
+        // Deleted nodes report their labels as removed
+        for (LabelEntry entry : data.removedLabels()) {
+            collect(data, entry.label(), entry.node(), agents, capabilities);
+        }
+        collectProperties(data, data.assignedNodeProperties(), agents, capabilities);
+        collectProperties(data, data.removedNodeProperties(), agents, capabilities);
+        for (Relationship relationship : data.createdRelationships()) {
+            collectLink(relationship, agents);
+        }
+        for (Relationship relationship : data.deletedRelationships()) {
+            collectLink(relationship, agents);
+        }
+        for (String capabilityId : capabilities) {
+            Node capability = transaction.getNodeByElementId(capabilityId);
+            for (Relationship link : capability.getRelationships(Direction.INCOMING, HAS_CAPABILITY)) {
+                agents.add(link.getStartNode().getElementId());
+            }
+        }
+        return agents.isEmpty() ? null : agents;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Set<String> agents, GraphDatabaseService db) {
+        AgentIndex index = AgentIndex.existing(db.databaseName());
+        if (agents != null && index != null) {
+            index.refreshAsync(db, agents);
+        }
+    }
+
+    private static void collectProperties(TransactionData data, Iterable<PropertyEntry<Node>> entries,
+                                          Set<String> agents, Set<String> capabilities) {
+        for (PropertyEntry<Node> entry : entries) {
+            Node node = entry.entity();
+            if (data.isDeleted(node)) {
+                continue;
+            }
+            if (node.hasLabel(AGENT)) {
+                agents.add(node.getElementId());
+            } else if (node.hasLabel(CAPABILITY)) {
+                capabilities.add(node.getElementId());
+            }
+        }
+    }
+
+    private static void collect(TransactionData data, Label label, Node node, Set<String> agents,
+                                Set<String> capabilities) {
+        if (AGENT.name().equals(label.name())) {
+            agents.add(node.getElementId());
+        } else if (CAPABILITY.name().equals(label.name()) && !data.isDeleted(node)) {
+            // The links of a deleted capability show up as deleted relationships
+            capabilities.add(node.getElementId());
+        }
+    }
+
+    private static void collectLink(Relationship relationship, Set<String> agents) {
+        if (HAS_CAPABILITY.name().equals(relationship.getType().name())) {
+            // May also be a KnowledgeGraph; refreshing a non-agent id just drops it
+            agents.add(relationship.getStartNode().getElementId());
+        }
+    }
+}
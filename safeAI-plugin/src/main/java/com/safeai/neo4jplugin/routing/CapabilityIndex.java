@@ -0,0 +1,189 @@
+package com.safeai.neo4jplugin.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CapabilityIndex maps each capability to the set of agents that have it, as a bitset over agent
+ * ordinals. Ordinals are handed out densely and reused when an agent is removed, so a bitset is
+ * never much longer than the number of agents and AND/OR/NOT queries are a few word-wide
+ * operations per 64 agents. Capability names are matched case-insensitively.
+ */
+public final class CapabilityIndex {
+
+    public static final class AgentRef {
+        public final String name;
+        public final String kgName;
+        public final List<String> capabilities;
+
+        AgentRef(String name, String kgName, List<String> capabilities) {
+            this.name = name;
+            this.kgName = kgName;
+            this.capabilities = capabilities;
+        }
+    }
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, BitSet> agentsByCapability = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private AgentRef[] agents = new AgentRef[64];
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the agent with the given element id, replacing its previous capabilities.
+     */
+    public void put(String id, String name, String kgName, Collection<String> capabilities) {
+        Set<String> distinct = new LinkedHashSet<>(capabilities);
+        distinct.remove(null);
+        List<String> names = new ArrayList<>(distinct);
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = live.nextClearBit(0);
+                ordinals.put(id, ordinal);
+                live.set(ordinal);
+                if (ordinal >= agents.length) {
+                    agents = Arrays.copyOf(agents, agents.length * 2);
+                }
+            } else {
+                unlink(ordinal);
+            }
+            agents[ordinal] = new AgentRef(name, kgName, Collections.unmodifiableList(names));
+            for (String capability : names) {
+                agentsByCapability.computeIfAbsent(key(capability), k -> new BitSet()).set(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return false;
+            }
+            unlink(ordinal);
+            agents[ordinal] = null;
+            live.clear(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            agentsByCapability.clear();
+            live.clear();
+            agents = new AgentRef[64];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the agents that have every capability in {@code all}, at least one in {@code any}
+     * (unless it is empty) and none in {@code none}, ordered by name.
+     */
+    public List<AgentRef> query(Collection<String> all, Collection<String> any, Collection<String> none) {
+        lock.readLock().lock();
+        try {
+            BitSet result;
+            if (all.isEmpty()) {
+                result = (BitSet) live.clone();
+            } else {
+                result = null;
+                for (String capability : all) {
+                    if (result == null) {
+                        result = (BitSet) bits(capability).clone();
+                    } else {
+                        result.and(bits(capability));
+                    }
+                    if (result.isEmpty()) {
+                        return List.of();
+                    }
+                }
+            }
+            if (!any.isEmpty()) {
+                BitSet union = new BitSet();
+                for (String capability : any) {
+                    union.or(bits(capability));
+                }
+                result.and(union);
+            }
+            for (String capability : none) {
+                result.andNot(bits(capability));
+            }
+            List<AgentRef> matches = new ArrayList<>(result.cardinality());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                matches.add(agents[ordinal]);
+            }
+            matches.sort(Comparator.comparing((AgentRef agent) -> String.valueOf(agent.name))
+                .thenComparing(agent -> String.valueOf(agent.kgName)));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Names of the indexed capabilities, lower-cased.
+     */
+    public Set<String> capabilities() {
+        lock.readLock().lock();
+        try {
+            return new TreeSet<>(agentsByCapability.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unlink(int ordinal) {
+        for (String capability : agents[ordinal].capabilities) {
+            String key = key(capability);
+            BitSet bits = agentsByCapability.get(key);
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    agentsByCapability.remove(key);
+                }
+            }
+        }
+    }
+
+    private BitSet bits(String capability) {
+        return agentsByCapability.getOrDefault(key(capability), EMPTY);
+    }
+
+    private static String key(String capability) {
+        return capability.toLowerCase(Locale.ROOT);
+    }
+}
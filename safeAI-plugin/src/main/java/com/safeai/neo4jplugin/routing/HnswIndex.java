@@ -0,0 +1,411 @@
+package com.safeai.neo4jplugin.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HnswIndex is an in-memory approximate nearest neighbour index (Hierarchical Navigable Small
+ * World graph) over unit-length vectors, scored by dot product.
+ *
+ * Vectors and adjacency lists are kept in primitive arrays; {@code links[node][level]} holds the
+ * neighbour count followed by the neighbour ids. Removing a key only marks its node as deleted,
+ * so the graph stays navigable; the index is rebuilt from the live nodes once deleted nodes
+ * outnumber them. Searches may run concurrently with each other but not with updates.
+ */
+public final class HnswIndex {
+
+    public static final class Hit {
+        public final String key;
+        public final float score;
+
+        Hit(String key, float score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + score;
+        }
+    }
+
+    private final int dimensions;
+    private final int m;
+    private final int maxLinks0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelFactor;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] keys = new String[16];
+    private float[][] vectors = new float[16][];
+    private int[][][] links = new int[16][][];
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param m              neighbours kept per node on the upper levels (twice as many on level 0)
+     * @param efConstruction candidate list size used while inserting
+     * @param efSearch       minimum candidate list size used while searching
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        if (dimensions <= 0 || m < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("Invalid HNSW parameters");
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxLinks0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelFactor = 1.0 / Math.log(m);
+    }
+
+    /**
+     * Number of live keys.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return nodes.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds {@code key}, replacing its previous vector if it is already indexed.
+     */
+    public void put(String key, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodes.remove(key);
+            if (existing != null) {
+                deleted.set(existing);
+            }
+            insert(key, vector.clone());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodes.remove(key);
+            if (node == null) {
+                return false;
+            }
+            deleted.set(node);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code k} keys closest to {@code query}, best first.
+     */
+    public List<Hit> search(float[] query, int k) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + query.length);
+        }
+        lock.readLock().lock();
+        try {
+            List<Hit> hits = new ArrayList<>();
+            if (entryPoint < 0 || k <= 0) {
+                return hits;
+            }
+            int node = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                node = greedy(query, node, level);
+            }
+            // Deleted nodes take up room in the candidate list, so widen it accordingly
+            int ef = Math.max(efSearch, k) + Math.min(deleted.cardinality(), size);
+            Heap results = searchLevel(query, node, ef, 0);
+            int count = results.size();
+            int[] ids = new int[count];
+            float[] scores = new float[count];
+            for (int i = count - 1; i >= 0; i--) {
+                scores[i] = results.topScore();
+                ids[i] = results.pop();
+            }
+            for (int i = 0; i < count && hits.size() < k; i++) {
+                if (!deleted.get(ids[i])) {
+                    hits.add(new Hit(keys[ids[i]], scores[i]));
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, float[] vector) {
+        int node = size++;
+        if (node == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            vectors = Arrays.copyOf(vectors, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelFactor);
+        keys[node] = key;
+        vectors[node] = vector;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxLinks0 : m) + 1];
+        }
+        nodes.put(key, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedy(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            Heap candidates = searchLevel(vector, current, efConstruction, l);
+            int count = candidates.size();
+            int[] ordered = new int[count];
+            for (int i = count - 1; i >= 0; i--) {
+                ordered[i] = candidates.pop();
+            }
+            current = ordered[0];
+            int cap = l == 0 ? maxLinks0 : m;
+            for (int i = 0; i < Math.min(m, count); i++) {
+                connect(node, ordered[i], l, cap);
+                connect(ordered[i], node, l, cap);
+            }
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds the edge {@code from -> to}, dropping {@code from}'s weakest neighbour if it is full.
+     */
+    private void connect(int from, int to, int level, int cap) {
+        int[] list = links[from][level];
+        int count = list[0];
+        if (count < cap) {
+            list[++list[0]] = to;
+            return;
+        }
+        float[] base = vectors[from];
+        int weakest = -1;
+        float weakestScore = dot(base, vectors[to]);
+        for (int i = 1; i <= count; i++) {
+            float score = dot(base, vectors[list[i]]);
+            if (score < weakestScore) {
+                weakestScore = score;
+                weakest = i;
+            }
+        }
+        if (weakest > 0) {
+            list[weakest] = to;
+        }
+    }
+
+    private int greedy(float[] query, int start, int level) {
+        int best = start;
+        float bestScore = dot(query, vectors[start]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = links[best][level];
+            for (int i = 1; i <= list[0]; i++) {
+                float score = dot(query, vectors[list[i]]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one level; returns at most {@code ef} nodes with the worst on top.
+     */
+    private Heap searchLevel(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        Heap candidates = new Heap(ef, false);
+        Heap results = new Heap(ef + 1, true);
+        float score = dot(query, vectors[start]);
+        visited.set(start);
+        candidates.push(start, score);
+        results.push(start, score);
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            int[] list = links[candidates.pop()][level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbour = list[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float s = dot(query, vectors[neighbour]);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(neighbour, s);
+                    results.push(neighbour, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private void compactIfNeeded() {
+        int dead = deleted.cardinality();
+        if (dead < 32 || dead <= nodes.size()) {
+            return;
+        }
+        String[] liveKeys = new String[nodes.size()];
+        float[][] liveVectors = new float[nodes.size()][];
+        int i = 0;
+        for (int node = 0; node < size; node++) {
+            if (!deleted.get(node)) {
+                liveKeys[i] = keys[node];
+                liveVectors[i++] = vectors[node];
+            }
+        }
+        reset(Math.max(16, liveKeys.length));
+        for (int j = 0; j < liveKeys.length; j++) {
+            insert(liveKeys[j], liveVectors[j]);
+        }
+    }
+
+    private void reset(int capacity) {
+        keys = new String[capacity];
+        vectors = new float[capacity][];
+        links = new int[capacity][][];
+        deleted.clear();
+        nodes.clear();
+        size = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * A binary heap of node ids keyed by score; {@code minOnTop} selects the ordering.
+     */
+    private static final class Heap {
+        private int[] ids;
+        private float[] scores;
+        private int size;
+        private final boolean minOnTop;
+
+        Heap(int capacity, boolean minOnTop) {
+            this.ids = new int[Math.max(capacity, 4)];
+            this.scores = new float[ids.length];
+            this.minOnTop = minOnTop;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = ids[0];
+            int lastId = ids[--size];
+            float lastScore = scores[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                    child++;
+                }
+                if (!before(scores[child], lastScore)) {
+                    break;
+                }
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            scores[i] = lastScore;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return minOnTop ? a < b : a > b;
+        }
+    }
+}
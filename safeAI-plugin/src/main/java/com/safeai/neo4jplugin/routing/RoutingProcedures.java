@@ -0,0 +1,63 @@
+package com.safeai.neo4jplugin.routing;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+/**
+ * RoutingProcedures expose agent selection functions as Neo4j procedures.
+ */
+public class RoutingProcedures {
+    @Context
+    public GraphDatabaseService db;
+
+    public static class SimilarAgentResult {
+        public String name;
+        public String kgName;
+        public String description;
+        public double score;
+
+        public SimilarAgentResult(String name, String kgName, String description, double score) {
+            this.name = name;
+            this.kgName = kgName;
+            this.description = description;
+            this.score = score;
+        }
+    }
+
+    public static class CapabilityMatchResult {
+        public String name;
+        public String kgName;
+        public List<String> capabilities;
+
+        public CapabilityMatchResult(String name, String kgName, List<String> capabilities) {
+            this.name = name;
+            this.kgName = kgName;
+            this.capabilities = capabilities;
+        }
+    }
+
+    @Procedure(name = "safeai.agents.similar", mode = Mode.READ)
+    @Description("Returns the k agents whose descriptions and capabilities best match the text, from an in-memory vector index")
+    public Stream<SimilarAgentResult> similar(@Name("text") String text,
+                                              @Name(value = "k", defaultValue = "5") Long k) {
+        return AgentIndex.forDatabase(db).similar(text, k.intValue()).stream()
+            .map(match -> new SimilarAgentResult(match.name, match.kgName, match.description, match.score));
+    }
+
+    @Procedure(name = "safeai.agents.byCapabilities", mode = Mode.READ)
+    @Description("Returns the agents that have all capabilities in 'all', at least one in 'any' and none in 'none'")
+    public Stream<CapabilityMatchResult> byCapabilities(
+            @Name(value = "all", defaultValue = "[]") List<String> all,
+            @Name(value = "any", defaultValue = "[]") List<String> any,
+            @Name(value = "none", defaultValue = "[]") List<String> none) {
+        return AgentIndex.forDatabase(db).capabilities().query(all, any, none).stream()
+            .map(agent -> new CapabilityMatchResult(agent.name, agent.kgName, agent.capabilities));
+    }
+}
@@ -0,0 +1,102 @@
+package com.safeai.neo4jplugin.routing;
+
+import java.util.Locale;
+
+/**
+ * TextEmbedder maps text to a fixed-size, unit-length vector without any model or external
+ * service. Words and character trigrams of each word are hashed into the vector (the feature
+ * hashing trick), with a hash-derived sign so that collisions tend to cancel out. Texts that
+ * share words or word fragments therefore get a high dot product.
+ */
+public final class TextEmbedder {
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public TextEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Embeds {@code text}; the result is L2-normalised, or all zeros if the text has no words.
+     */
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        if (text == null) {
+            return vector;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                addWord(vector, lower, start, i);
+            }
+        }
+        normalize(vector);
+        return vector;
+    }
+
+    private void addWord(float[] vector, String text, int start, int end) {
+        add(vector, hash(text, start, end, 0x9747b28c), WORD_WEIGHT);
+        // Trigrams over the word padded with boundary markers, so "rotate" also matches "rotation"
+        for (int i = start - 1; i <= end - 2; i++) {
+            int h = 0x5bd1e995;
+            for (int j = i; j < i + 3; j++) {
+                char c = j < start || j >= end ? '#' : text.charAt(j);
+                h = mix(h ^ c);
+            }
+            add(vector, h, TRIGRAM_WEIGHT);
+        }
+    }
+
+    private void add(float[] vector, int hash, float weight) {
+        int h = mix(hash);
+        int index = (h >>> 1) % dimensions;
+        vector[index] += (h & 1) == 0 ? weight : -weight;
+    }
+
+    private static int hash(String text, int start, int end, int seed) {
+        int h = seed;
+        for (int i = start; i < end; i++) {
+            h = mix(h ^ text.charAt(i));
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        h *= 0xcc9e2d51;
+        h = Integer.rotateLeft(h, 15);
+        h *= 0x1b873593;
+        return h ^ (h >>> 16);
+    }
+
+    static void normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.safeai.neo4jplugin.specialized_agents;
+
+import com.safeai.neo4jplugin.CandidateGenerator;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridFeatures;
+import com.safeai.neo4jplugin.grid.GridTransform;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * NativeGridAgent is an ARC agent implemented by a Java grid transformation. As a
+ * CandidateGenerator it takes the puzzle grid as a list of rows and returns its single candidate
+ * in the same form; callers working with packed grids use {@link #apply} directly.
+ *
+ * The agent also declares how its output can relate to its input: its shape, whether it keeps
+ * the input colors, and a predicate over the {@link GridFeatures} of input and output. Solvers
+ * use {@link #mayProduce} to skip agents that cannot produce a target without running them.
+ */
+public final class NativeGridAgent implements CandidateGenerator {
+
+    /**
+     * The size of the output relative to the input.
+     */
+    public enum Shape {
+        /** Same width and height. */
+        SAME,
+        /** Width and height swapped. */
+        TRANSPOSED,
+        /** Any size. */
+        CHANGED
+    }
+
+    private final String name;
+    private final String description;
+    private final Shape shape;
+    private final boolean preservesColors;
+    private final GridTransform transform;
+    private final BiPredicate<GridFeatures, GridFeatures> applicable;
+
+    /**
+     * @param preservesColors true if every output color other than 0 occurs in the input
+     */
+    public NativeGridAgent(String name, String description, Shape shape, boolean preservesColors,
+                           GridTransform transform) {
+        this(name, description, shape, preservesColors, transform, (input, output) -> true);
+    }
+
+    /**
+     * @param applicable false for input and output features the transformation cannot relate;
+     *        it must never reject a pair the transformation produces
+     */
+    public NativeGridAgent(String name, String description, Shape shape, boolean preservesColors,
+                           GridTransform transform, BiPredicate<GridFeatures, GridFeatures> applicable) {
+        this.name = name;
+        this.description = description;
+        this.shape = shape;
+        this.preservesColors = preservesColors;
+        this.transform = transform;
+        this.applicable = applicable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public boolean preservesColors() {
+        return preservesColors;
+    }
+
+    /**
+     * False if this agent certainly cannot turn the grid described by {@code input} into the one
+     * described by {@code target}, judging by its declared shape, colors and predicate.
+     */
+    public boolean mayProduce(GridFeatures input, GridFeatures target) {
+        switch (shape) {
+            case SAME:
+                if (input.width() != target.width() || input.height() != target.height()) {
+                    return false;
+                }
+                break;
+            case TRANSPOSED:
+                if (input.width() != target.height() || input.height() != target.width()) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        if (preservesColors && (target.colorMask() & ~input.colorMask() & ~1) != 0) {
+            return false;
+        }
+        return applicable.test(input, target);
+    }
+
+    public Grid apply(Grid grid) {
+        return transform.apply(grid);
+    }
+
+    @Override
+    public List<List<Integer>> generateCandidate(List<?> input) {
+        return transform.apply(Grid.from(input)).toList();
+    }
+
+    @Override
+    public String toString() {
+        return "NativeGridAgent{" + name + "}";
+    }
+}
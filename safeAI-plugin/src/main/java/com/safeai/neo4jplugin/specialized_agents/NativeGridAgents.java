@@ -0,0 +1,197 @@
+package com.safeai.neo4jplugin.specialized_agents;
+
+import com.safeai.neo4jplugin.MainPlugin;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridFeatures;
+import com.safeai.neo4jplugin.grid.GridTransform;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import static com.safeai.neo4jplugin.specialized_agents.NativeGridAgent.Shape.CHANGED;
+import static com.safeai.neo4jplugin.specialized_agents.NativeGridAgent.Shape.SAME;
+import static com.safeai.neo4jplugin.specialized_agents.NativeGridAgent.Shape.TRANSPOSED;
+
+/**
+ * NativeGridAgents registers Java implementations of the ARC KG's transformation agents under the
+ * agents' names. When {@code arc.agents.native} is enabled (the default), DynamicAgentCreator
+ * creates these instead of running the agents' Groovy scripts.
+ *
+ * Agents whose KG description leaves the transformation open (composite, conditional and rule
+ * based agents) have no native version and keep running as scripts.
+ */
+public final class NativeGridAgents {
+    private static final Map<String, NativeGridAgent> agents = new LinkedHashMap<>();
+
+    static {
+        register("Rotate90", "Rotate the grid 90° clockwise.", TRANSPOSED, true, GridTransforms::rotate90,
+            NativeGridAgents::movesCells);
+        register("Rotate180", "Rotate the grid 180°.", SAME, true, GridTransforms::rotate180,
+            NativeGridAgents::movesCells);
+        register("Rotate270", "Rotate the grid 270° clockwise (or 90° counterclockwise).", TRANSPOSED, true,
+            GridTransforms::rotate270, NativeGridAgents::movesCells);
+        register("ReflectHorizontal", "Mirror the grid horizontally.", SAME, true, GridTransforms::reflectHorizontal,
+            NativeGridAgents::movesCells);
+        register("ReflectVertical", "Mirror the grid vertically.", SAME, true, GridTransforms::reflectVertical,
+            NativeGridAgents::movesCells);
+        register("ReflectDiagonalMain", "Reflect the grid along the main diagonal.", TRANSPOSED, true,
+            GridTransforms::transpose, NativeGridAgents::movesCells);
+        register("ReflectDiagonalSecondary", "Reflect the grid along the secondary diagonal.", TRANSPOSED, true,
+            GridTransforms::antiTranspose, NativeGridAgents::movesCells);
+        register("ColorComplement", "Invert colors (x -> 9-x).", SAME, false, GridTransforms::complement,
+            NativeGridAgents::complements);
+        register("ColorRemap", "Remap colors using an inversion lookup.", SAME, true,
+            GridTransforms::invertPresentColors, NativeGridAgents::invertsPresentColors);
+        register("ColorThreshold", "Apply thresholding to change colors: colors below 5 become 0, others 9.", SAME,
+            false, grid -> GridTransforms.threshold(grid, 5, 0, 9),
+            (input, output) -> thresholds(input, output, 5, 0, 9));
+        register("ShiftUp", "Shift the grid upward by one row.", SAME, true,
+            grid -> GridTransforms.translate(grid, -1, 0, 0), NativeGridAgents::clearsCells);
+        register("ShiftDown", "Shift the grid downward by one row.", SAME, true,
+            grid -> GridTransforms.translate(grid, 1, 0, 0), NativeGridAgents::clearsCells);
+        register("ShiftLeft", "Shift the grid left by one column.", SAME, true,
+            grid -> GridTransforms.translate(grid, 0, -1, 0), NativeGridAgents::clearsCells);
+        register("ShiftRight", "Shift the grid right by one column.", SAME, true,
+            grid -> GridTransforms.translate(grid, 0, 1, 0), NativeGridAgents::clearsCells);
+        register("ScaleUp", "Enlarge the grid (2x scaling).", CHANGED, true, grid -> GridTransforms.scaleUp(grid, 2),
+            (input, output) -> multipliesCells(input, output, 2, 2));
+        register("ScaleDown", "Reduce the grid scale (2x reduction).", CHANGED, true,
+            grid -> GridTransforms.scaleDown(grid, 2),
+            (input, output) -> input.width() == 2 * output.width() && input.height() == 2 * output.height());
+        register("SubgridExtraction", "Extract the subgrid bounding the non-background cells.", CHANGED, true,
+            grid -> GridTransforms.cropToContent(grid, 0), (input, output) -> output.width() <= input.width()
+                && output.height() <= input.height() && clearsCells(input, output));
+        register("FloodFill", "Fill enclosed background regions with the surrounding color.", SAME, true,
+            GridTransforms::fillEnclosed, NativeGridAgents::fillsCells);
+        register("GapFill", "Fill horizontal gaps between nonzero cells.", SAME, true,
+            GridTransforms::fillHorizontalGaps, NativeGridAgents::fillsCells);
+        register("MirrorSymmetric", "Create symmetric copies of a seed region.", SAME, true,
+            GridTransforms::mirrorLeftHalf, (input, output) -> output.isMirrorSymmetric());
+        register("CombineMirrors", "Combine the grid with its mirrored copy, keeping non-background cells.", SAME,
+            true, grid -> GridTransforms.overlay(GridTransforms.reflectHorizontal(grid), grid),
+            NativeGridAgents::fillsCells);
+        register("Overlay", "Overlay the grid shifted right by one column on the original.", SAME, true,
+            grid -> GridTransforms.overlay(GridTransforms.translate(grid, 0, 1, 0), grid),
+            NativeGridAgents::fillsCells);
+        register("PatternReplication", "Replicate the pattern 2x2 across the grid.", CHANGED, true,
+            grid -> GridTransforms.tile(grid, 2, 2), (input, output) -> multipliesCells(input, output, 2, 2));
+        register("GridPartition", "Partition grid into quadrants and merge.", CHANGED, true,
+            GridTransforms::mergeQuadrants,
+            (input, output) -> output.width() == input.width() / 2 && output.height() == input.height() / 2);
+        register("EdgeProcessing", "Keep the edges of each region and clear its interior.", SAME, true,
+            GridTransforms::outline, NativeGridAgents::clearsCells);
+    }
+
+    private NativeGridAgents() {
+    }
+
+    private static void register(String name, String description, NativeGridAgent.Shape shape,
+                                 boolean preservesColors, GridTransform transform,
+                                 BiPredicate<GridFeatures, GridFeatures> applicable) {
+        agents.put(name, new NativeGridAgent(name, description, shape, preservesColors, transform, applicable));
+    }
+
+    // Applicability predicates. Each states something every output of the transformation has in
+    // common with its input, so a failed check proves the agent cannot fit.
+
+    /**
+     * Rotations and reflections move cells without changing them, and keep objects connected.
+     */
+    static boolean movesCells(GridFeatures input, GridFeatures output) {
+        return input.sameHistogram(output) && input.objectCount() == output.objectCount();
+    }
+
+    /**
+     * Only background cells change, to other colors.
+     */
+    static boolean fillsCells(GridFeatures input, GridFeatures output) {
+        for (int c = 1; c <= Grid.MAX_COLOR; c++) {
+            if (output.count(c) < input.count(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * No cell gains a color other than the background.
+     */
+    static boolean clearsCells(GridFeatures input, GridFeatures output) {
+        for (int c = 1; c <= Grid.MAX_COLOR; c++) {
+            if (output.count(c) > input.count(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Every input cell appears {@code rows} x {@code columns} times in the output.
+     */
+    static boolean multipliesCells(GridFeatures input, GridFeatures output, int rows, int columns) {
+        if (output.width() != input.width() * columns || output.height() != input.height() * rows) {
+            return false;
+        }
+        for (int c = 0; c <= Grid.MAX_COLOR; c++) {
+            if (output.count(c) != input.count(c) * rows * columns) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean complements(GridFeatures input, GridFeatures output) {
+        for (int c = 0; c <= Grid.MAX_COLOR; c++) {
+            if (output.count(c <= 9 ? 9 - c : c) != input.count(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean invertsPresentColors(GridFeatures input, GridFeatures output) {
+        if (input.colorMask() != output.colorMask()) {
+            return false;
+        }
+        int[] present = new int[Integer.bitCount(input.colorMask())];
+        for (int c = 0, n = 0; c <= Grid.MAX_COLOR; c++) {
+            if ((input.colorMask() & (1 << c)) != 0) {
+                present[n++] = c;
+            }
+        }
+        for (int i = 0; i < present.length; i++) {
+            if (output.count(present[present.length - 1 - i]) != input.count(present[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean thresholds(GridFeatures input, GridFeatures output, int threshold, int low, int high) {
+        int below = 0;
+        for (int c = 0; c < threshold; c++) {
+            below += input.count(c);
+        }
+        int lowCount = low == high ? input.cellCount() : below;
+        int highCount = low == high ? input.cellCount() : input.cellCount() - below;
+        return output.count(low) == lowCount && output.count(high) == highCount;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(MainPlugin.getConfigProperty("arc.agents.native", "true"));
+    }
+
+    /**
+     * The native agent registered under {@code name}, or null.
+     */
+    public static NativeGridAgent get(String name) {
+        return agents.get(name);
+    }
+
+    public static Collection<NativeGridAgent> all() {
+        return Collections.unmodifiableCollection(agents.values());
+    }
+}
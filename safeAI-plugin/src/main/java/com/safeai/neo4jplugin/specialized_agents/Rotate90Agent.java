@@ -1,6 +1,8 @@
 package com.safeai.neo4jplugin.specialized_agents;
 
 import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridTransforms;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,21 +14,18 @@ public class Rotate90Agent {
     }
 
     public List<List<List<Integer>>> generate_candidate(List<List<Integer>> puzzleGrid) {
-        int numRows = puzzleGrid.size();
-        if (numRows == 0) {
-            return new ArrayList<>();
-        }
-        int numCols = puzzleGrid.get(0).size();
-        List<List<Integer>> rotated = new ArrayList<>();
-        for (int c = 0; c < numCols; c++) {
-            List<Integer> newRow = new ArrayList<>();
-            for (int r = numRows - 1; r >= 0; r--) {
-                newRow.add(puzzleGrid.get(r).get(c));
-            }
-            rotated.add(newRow);
-        }
         List<List<List<Integer>>> candidates = new ArrayList<>();
-        candidates.add(rotated);
+        if (puzzleGrid.isEmpty()) {
+            return candidates;
+        }
+        candidates.add(rotate(Grid.fromList(puzzleGrid)).toList());
         return candidates;
     }
+
+    /**
+     * Rotates the grid 90 degrees clockwise.
+     */
+    public Grid rotate(Grid grid) {
+        return GridTransforms.rotate90(grid);
+    }
 }
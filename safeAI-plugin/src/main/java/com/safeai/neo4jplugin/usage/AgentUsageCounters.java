@@ -0,0 +1,206 @@
+package com.safeai.neo4jplugin.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * AgentUsageCounters count agent runs and successes in memory and add them to the
+ * {@code usageCount} and {@code successCount} properties of the {@code Agent} nodes in batches,
+ * so hot agents are not write-locked on every run. Each agent has a pair of {@link LongAdder}s,
+ * which threads increment without contending. Agents are counted by name and KG, since agents
+ * of different KGs may share a name; an agent counted without a KG is written to every agent of
+ * its name.
+ *
+ * A flush is scheduled {@code flushMillis} after the first count following the previous flush,
+ * and writes every agent's delta in one transaction. If the write fails the deltas are added
+ * back and retried later, unless the counters have been closed. Counters are flushed on
+ * {@link #close}, and {@link #flushAll} flushes every open instance when a database stops (see
+ * {@link com.safeai.neo4jplugin.WriteBehindExtensionFactory}).
+ *
+ * Only these additive counts are batched. The execution stats of
+ * {@link com.safeai.neo4jplugin.graph_rag.GraphRAG#recordAgentExecution} also carry peaks, the last
+ * outcome and the end of a quarantine, which belong to one invocation, and are still written per
+ * call.
+ */
+public final class AgentUsageCounters implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(AgentUsageCounters.class.getName());
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "safeai-agent-usage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Weakly held like PuzzleRunWriter's; counters with a flush scheduled stay reachable
+    private static final Set<AgentUsageCounters> open =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Where the deltas are written, in production
+     * {@link com.safeai.neo4jplugin.graph_rag.GraphRAG#recordAgentUsage}: one row per agent with
+     * its {@code name}, {@code kgName} (null outside any KG) and Long {@code usage} and
+     * {@code success}. A write that fails throws.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(List<Map<String, Object>> agents);
+    }
+
+    private static final class Key {
+        final String name;
+        final String kgName;
+
+        Key(String name, String kgName) {
+            this.name = name;
+            this.kgName = kgName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return name.equals(other.name) && Objects.equals(kgName, other.kgName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Objects.hashCode(kgName);
+        }
+    }
+
+    private static final class Counts {
+        final LongAdder usage = new LongAdder();
+        final LongAdder success = new LongAdder();
+    }
+
+    private final Sink sink;
+    private final long flushMillis;
+    private final Map<Key, Counts> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public AgentUsageCounters(Sink sink, long flushMillis) {
+        this.sink = sink;
+        this.flushMillis = flushMillis;
+        open.add(this);
+    }
+
+    /**
+     * Counts one run of the named agent, and a success if it produced the expected result.
+     */
+    public void record(String agent, boolean success) {
+        record(agent, null, success);
+    }
+
+    /**
+     * Counts one run of the named agent of a KG, or of every agent of that name if
+     * {@code kgName} is null.
+     */
+    public void record(String agent, String kgName, boolean success) {
+        Counts agentCounts = counts.computeIfAbsent(new Key(agent, kgName), key -> new Counts());
+        agentCounts.usage.increment();
+        if (success) {
+            agentCounts.success.increment();
+        }
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs counted for the agent and not yet written.
+     */
+    public long pendingUsage(String agent) {
+        return pendingUsage(agent, null);
+    }
+
+    public long pendingUsage(String agent, String kgName) {
+        Counts agentCounts = counts.get(new Key(agent, kgName));
+        return agentCounts == null ? 0 : agentCounts.usage.sum();
+    }
+
+    public long pendingSuccess(String agent) {
+        return pendingSuccess(agent, null);
+    }
+
+    public long pendingSuccess(String agent, String kgName) {
+        Counts agentCounts = counts.get(new Key(agent, kgName));
+        return agentCounts == null ? 0 : agentCounts.success.sum();
+    }
+
+    /**
+     * Writes the counts gathered since the last flush.
+     */
+    public synchronized void flush() {
+        scheduled.set(false);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Key, Counts> entry : counts.entrySet()) {
+            // Taking the sum out rather than resetting keeps increments made meanwhile
+            long usage = entry.getValue().usage.sum();
+            long success = entry.getValue().success.sum();
+            if (usage == 0 && success == 0) {
+                continue;
+            }
+            entry.getValue().usage.add(-usage);
+            entry.getValue().success.add(-success);
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", entry.getKey().name);
+            row.put("kgName", entry.getKey().kgName);
+            row.put("usage", usage);
+            row.put("success", success);
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            sink.write(rows);
+        } catch (RuntimeException e) {
+            logger.warning("Could not write usage of " + rows.size() + " agents, retrying later: " + e.getMessage());
+            for (Map<String, Object> row : rows) {
+                Counts agentCounts = counts.computeIfAbsent(
+                    new Key((String) row.get("name"), (String) row.get("kgName")), key -> new Counts());
+                agentCounts.usage.add((Long) row.get("usage"));
+                agentCounts.success.add((Long) row.get("success"));
+            }
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                flusher.schedule(this::flush, flushMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        open.remove(this);
+        flush();
+    }
+
+    /**
+     * Flushes every instance that has not been closed.
+     */
+    public static void flushAll() {
+        List<AgentUsageCounters> all;
+        synchronized (open) {
+            all = new ArrayList<>(open);
+        }
+        for (AgentUsageCounters counters : all) {
+            counters.flush();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+import com.safeai.neo4jplugin.graph_rag.RecordingBackend;
+import groovy.lang.Binding;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for running agents under execution budgets.
+ */
+public class AgentExecutorTest {
+
+    private static AgentExecutor executor(AgentExecutor.Budget budget) {
+        return new AgentExecutor(2, 4, budget, 3, 60_000);
+    }
+
+    @Test
+    public void testCompletedExecutionReturnsValue() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(5_000, 0, 0));
+        AgentExecutor.Execution<Integer> execution = executor.execute("adder", () -> 1 + 2);
+        assertEquals(AgentExecutor.Outcome.COMPLETED, execution.outcome);
+        assertEquals(Integer.valueOf(3), execution.get());
+        assertTrue(execution.wallNanos > 0);
+    }
+
+    @Test
+    public void testFailureKeepsCause() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(5_000, 0, 0));
+        AgentExecutor.Execution<Object> execution = executor.execute("broken", () -> {
+            throw new IllegalArgumentException("bad grid");
+        });
+        assertEquals(AgentExecutor.Outcome.FAILED, execution.outcome);
+        assertFalse(execution.isBudgetViolation());
+        assertTrue(execution.error instanceof IllegalArgumentException);
+        assertThrows(IllegalStateException.class, execution::get);
+    }
+
+    @Test
+    public void testWallTimeLimitInterruptsAgent() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(50, 0, 0));
+        AgentExecutor.Execution<Object> execution = executor.execute("sleeper", () -> {
+            Thread.sleep(10_000);
+            return null;
+        });
+        assertEquals(AgentExecutor.Outcome.WALL_TIME_EXCEEDED, execution.outcome);
+        assertTrue(execution.wallNanos < 5_000_000_000L);
+    }
+
+    @Test
+    public void testQueueWaitDoesNotCountAgainstWallTime() throws Exception {
+        AgentExecutor executor = new AgentExecutor(1, 4, new AgentExecutor.Budget(150, 0, 0), 3, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread busy = new Thread(() -> executor.execute("busy", () -> {
+            started.countDown();
+            Thread.sleep(400);
+            return null;
+        }, new AgentExecutor.Budget(5_000, 0, 0)));
+        busy.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Queued behind "busy" for longer than its own wall budget
+        AgentExecutor.Execution<Integer> execution = executor.execute("queued", () -> 1 + 2);
+        busy.join();
+        assertEquals(AgentExecutor.Outcome.COMPLETED, execution.outcome);
+        assertTrue(execution.wallNanos < 150_000_000L);
+    }
+
+    @Test
+    public void testExecutionIsRecordedOnTheAgentOfItsKG() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(5_000, 0, 0));
+        AgentExecutor.Execution<Integer> execution = executor.execute("adder", () -> 1 + 2);
+        RecordingBackend backend = new RecordingBackend();
+        GraphRAG graphRag = backend.graphRag();
+        graphRag.recordAgentExecution(execution, "Arithmetic", 0);
+        graphRag.recordAgentExecution(execution, 0);
+        List<RecordingBackend.Write> writes = backend.writes(RecordingBackend.RECORD_EXECUTION);
+        assertEquals(2, writes.size());
+        assertTrue(RecordingBackend.RECORD_EXECUTION.contains("a.kgName = $kgName"));
+        assertEquals("adder", writes.get(0).params.get("name"));
+        assertEquals("Arithmetic", writes.get(0).params.get("kgName"));
+        assertNull(writes.get(1).params.get("kgName"));
+        assertTrue(writes.get(1).params.containsKey("kgName"));
+    }
+
+    @Test
+    public void testCpuLimitStopsInterruptibleGroovyLoop() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(10_000, 100, 0));
+        GroovyAgentCache cache = new GroovyAgentCache(2, true);
+        AgentExecutor.Execution<Object> execution = executor.execute("spinner",
+            () -> cache.run("long n = 0\nwhile (true) { n++ }\nreturn n", new Binding()));
+        assertEquals(AgentExecutor.Outcome.CPU_TIME_EXCEEDED, execution.outcome);
+        assertTrue(execution.cpuNanos > 100_000_000L);
+    }
+
+    @Test
+    public void testAllocationLimit() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(10_000, 0, 8L * 1024 * 1024));
+        AgentExecutor.Execution<Object> execution = executor.execute("hoarder", () -> {
+            List<byte[]> chunks = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                chunks.add(new byte[64 * 1024]);
+                if (chunks.size() > 64) {
+                    chunks.clear();
+                }
+            }
+            return null;
+        });
+        assertEquals(AgentExecutor.Outcome.ALLOCATION_EXCEEDED, execution.outcome);
+    }
+
+    @Test
+    public void testRepeatedViolationsQuarantineAgent() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(20, 0, 0));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(executor.isQuarantined("sleeper"));
+            executor.execute("sleeper", () -> {
+                Thread.sleep(10_000);
+                return null;
+            });
+        }
+        assertTrue(executor.isQuarantined("sleeper"));
+        assertTrue(executor.quarantinedUntil("sleeper") > System.currentTimeMillis());
+        assertEquals(AgentExecutor.Outcome.QUARANTINED, executor.execute("sleeper", () -> 1).outcome);
+        assertEquals(AgentExecutor.Outcome.COMPLETED, executor.execute("other", () -> 1).outcome);
+
+        executor.release("sleeper");
+        assertEquals(AgentExecutor.Outcome.COMPLETED, executor.execute("sleeper", () -> 1).outcome);
+    }
+
+    @Test
+    public void testCompletionResetsViolationCount() {
+        AgentExecutor executor = executor(new AgentExecutor.Budget(20, 0, 0));
+        for (int i = 0; i < 5; i++) {
+            executor.execute("flaky", () -> {
+                Thread.sleep(10_000);
+                return null;
+            });
+            executor.execute("flaky", () -> 1);
+        }
+        assertFalse(executor.isQuarantined("flaky"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.safeai.neo4jplugin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the snapshot-based AgentRegistry.
+ */
+public class AgentRegistryTest {
+    @TempDir
+    Path dir;
+
+    private static String kg(String... agents) {
+        return "{\"domain\": \"Test\", \"agents\": [" + String.join(",", agents) + "]}";
+    }
+
+    @Test
+    public void testIndexesAndReload() throws Exception {
+        Path file = dir.resolve("Test_KG.json");
+        Files.writeString(file, kg(
+            "{\"name\": \"A\", \"category\": \"Geometry\", \"capabilities\": [\"rotate\"]}",
+            "{\"name\": \"B\", \"category\": \"Geometry\"}"));
+        try (AgentRegistry registry = new AgentRegistry(null, file.toString())) {
+            AgentRegistry.Snapshot first = registry.getSnapshot();
+            assertEquals(1, first.getVersion());
+            assertEquals(2, registry.fetchAgents().size());
+            assertEquals("A", registry.getAgent("A").getString("name"));
+            assertEquals(2, registry.getAgentsByCategory("Geometry").size());
+            assertEquals(1, registry.getAgentsByCapability("rotate").size());
+            assertTrue(registry.getAgentsByCategory("Unknown").isEmpty());
+            assertSame(first, registry.getSnapshot());
+
+            // Unchanged content keeps the snapshot
+            assertFalse(registry.reload());
+
+            Files.writeString(file, kg("{\"name\": \"C\", \"category\": \"Color\"}"));
+            assertTrue(registry.reload());
+            assertEquals(2, registry.getSnapshot().getVersion());
+            assertNull(registry.getAgent("A"));
+            assertEquals(1, first.getAgentsByCapability("rotate").size());
+
+            // A broken file keeps the last good snapshot
+            Files.writeString(file, "{\"agents\": ");
+            assertFalse(registry.reload());
+            assertEquals("C", registry.fetchAgents().get(0).getString("name"));
+        }
+    }
+
+    @Test
+    public void testFallbackAgents() {
+        AgentRegistry registry = new AgentRegistry(null);
+        assertEquals(3, registry.fetchAgents().size());
+        assertSame(registry.fetchAgents(), new AgentRegistry(null).fetchAgents());
+        assertThrows(UnsupportedOperationException.class, () -> registry.fetchAgents().clear());
+    }
+}
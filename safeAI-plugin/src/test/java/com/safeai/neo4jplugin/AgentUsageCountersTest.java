@@ -0,0 +1,131 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.graph_rag.RecordingBackend;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.learning.ArcPuzzle;
+import com.safeai.neo4jplugin.learning.PuzzleSolver;
+import com.safeai.neo4jplugin.learning.SolutionCache;
+import com.safeai.neo4jplugin.usage.AgentUsageCounters;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AgentUsageCounters.
+ */
+public class AgentUsageCountersTest {
+
+    /**
+     * Sums the written deltas, or fails while {@code failing} is set.
+     */
+    private static class RecordingSink implements AgentUsageCounters.Sink {
+        final Map<String, Long> usage = new ConcurrentHashMap<>();
+        final Map<String, Long> success = new ConcurrentHashMap<>();
+        volatile boolean failing;
+        volatile int batches;
+
+        @Override
+        public void write(List<Map<String, Object>> agents) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches++;
+            for (Map<String, Object> agent : agents) {
+                usage.merge((String) agent.get("name"), (Long) agent.get("usage"), Long::sum);
+                success.merge((String) agent.get("name"), (Long) agent.get("success"), Long::sum);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentCountsAreWrittenExactly() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        AgentUsageCounters counters = new AgentUsageCounters(sink, 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counters.record("Rotate90", i % 4 == 0);
+                    counters.record("ScaleUp", false);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        counters.close();
+        assertEquals(Long.valueOf(80000), sink.usage.get("Rotate90"));
+        assertEquals(Long.valueOf(20000), sink.success.get("Rotate90"));
+        assertEquals(Long.valueOf(80000), sink.usage.get("ScaleUp"));
+        assertEquals(Long.valueOf(0), sink.success.get("ScaleUp"));
+        assertEquals(0, counters.pendingUsage("Rotate90"));
+    }
+
+    @Test
+    public void testFailedFlushKeepsCounts() {
+        RecordingSink sink = new RecordingSink();
+        AgentUsageCounters counters = new AgentUsageCounters(sink, 60000);
+        counters.record("Rotate90", true);
+        sink.failing = true;
+        counters.flush();
+        assertEquals(1, counters.pendingUsage("Rotate90"));
+        assertEquals(1, counters.pendingSuccess("Rotate90"));
+        sink.failing = false;
+        counters.record("Rotate90", false);
+        counters.close();
+        assertEquals(1, sink.batches);
+        assertEquals(Long.valueOf(2), sink.usage.get("Rotate90"));
+        assertEquals(Long.valueOf(1), sink.success.get("Rotate90"));
+    }
+
+    @Test
+    public void testSolverCountsAgentRuns() {
+        RecordingSink sink = new RecordingSink();
+        AgentUsageCounters counters = new AgentUsageCounters(sink, 60000);
+        PuzzleSolver solver = new PuzzleSolver(null, new SolutionCache(null, 16), null, counters);
+        Grid input = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        Grid output = Grid.fromList(List.of(List.of(3, 1), List.of(4, 2)));
+        solver.solve(new ArcPuzzle("rotate", List.of(new ArcPuzzle.Example(input, output)), input, output));
+        assertEquals(1, counters.pendingSuccess("Rotate90"));
+        solver.close();
+        assertEquals(Long.valueOf(1), sink.usage.get("Rotate90"));
+        assertEquals(Long.valueOf(1), sink.success.get("Rotate90"));
+    }
+
+    @Test
+    public void testFlushAllWritesOpenCounters() {
+        RecordingSink sink = new RecordingSink();
+        AgentUsageCounters counters = new AgentUsageCounters(sink, 60000);
+        counters.record("Rotate90", true);
+        AgentUsageCounters.flushAll();
+        assertEquals(Long.valueOf(1), sink.usage.get("Rotate90"));
+        assertEquals(0, counters.pendingUsage("Rotate90"));
+        counters.close();
+    }
+
+    @Test
+    public void testAgentsOfDifferentKGsAreCountedApart() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        AgentUsageCounters counters = new AgentUsageCounters(rows::addAll, 60000);
+        counters.record("Auditor", "Ethics", true);
+        counters.record("Auditor", "Safety", false);
+        counters.record("Auditor", "Safety", false);
+        assertEquals(1, counters.pendingUsage("Auditor", "Ethics"));
+        assertEquals(2, counters.pendingUsage("Auditor", "Safety"));
+        assertEquals(0, counters.pendingUsage("Auditor"));
+        counters.close();
+        assertEquals(2, rows.size());
+        for (Map<String, Object> row : rows) {
+            assertEquals("Auditor", row.get("name"));
+            assertEquals("Ethics".equals(row.get("kgName")) ? 1L : 2L, row.get("usage"), row.toString());
+        }
+        // Only rows without a KG reach every agent of their name
+        assertTrue(RecordingBackend.RECORD_USAGE.contains(
+            "MATCH (a:Agent {name: agent.name}) WHERE agent.kgName IS NULL OR a.kgName = agent.kgName"),
+            RecordingBackend.RECORD_USAGE);
+    }
+}
@@ -0,0 +1,88 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.graph_rag.RecordingBackend;
+import com.safeai.neo4jplugin.learning.ArcEvaluator;
+import com.safeai.neo4jplugin.learning.ArcProcedures;
+import com.safeai.neo4jplugin.learning.ArcPuzzle;
+import com.safeai.neo4jplugin.learning.PuzzleSolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ArcEvaluator and ArcProcedures.
+ */
+public class ArcEvaluatorTest {
+
+    @Test
+    public void testEvaluatesBundledSplit() throws Exception {
+        List<ArcPuzzle> puzzles = ArcEvaluator.load("training", null);
+        assertEquals(2, puzzles.size());
+        ArcEvaluator.Report report = ArcEvaluator.evaluate("training", puzzles, new PuzzleSolver(null), 2);
+        assertEquals(2, report.puzzles);
+        assertEquals(2, report.results.size());
+        assertTrue(report.puzzlesPerSecond > 0);
+        assertTrue(report.p50Millis <= report.p99Millis && report.p99Millis <= report.maxMillis);
+        assertFalse(report.agents.isEmpty());
+        for (ArcEvaluator.AgentStats agent : report.agents) {
+            assertTrue(agent.fits <= agent.attempts, agent.agent);
+        }
+        assertTrue(report.toString().startsWith("training: 2 puzzles"));
+    }
+
+    @Test
+    public void testEvaluationRecordsRunsInTheGraph() throws Exception {
+        RecordingBackend backend = new RecordingBackend();
+        List<ArcPuzzle> puzzles = ArcEvaluator.load("training", null);
+        ArcEvaluator.Report report = ArcEvaluator.evaluate("training", puzzles, backend.graphRag(), 2);
+        // The solver is closed before the report is returned, so every run has been written
+        long runs = backend.writes(RecordingBackend.RECORD_RUNS).stream()
+            .mapToLong(write -> ((List<?>) write.params.get("runs")).size()).sum();
+        assertEquals(Long.valueOf(report.puzzles), Long.valueOf(runs));
+        Map<?, ?> run = (Map<?, ?>) ((List<?>) backend.writes(RecordingBackend.RECORD_RUNS).get(0)
+            .params.get("runs")).get(0);
+        assertNotNull(run.get("hash"));
+    }
+
+    @Test
+    public void testEvaluatesTaskDirectory(@TempDir Path dir) throws Exception {
+        Path training = Files.createDirectory(dir.resolve("training"));
+        Files.writeString(training.resolve("b.json"), "{\"train\": [{\"input\": [[1, 2]], \"output\": [[2, 1]]}]," +
+            "\"test\": [{\"input\": [[3, 4]], \"output\": [[4, 3]]}]}");
+        Files.writeString(training.resolve("a.json"), "{\"train\": [{\"input\": [[1, 2]], \"output\": [[1], [2]]}]," +
+            "\"test\": [{\"input\": [[5, 6]], \"output\": [[6, 5]]}]}");
+        List<ArcPuzzle> puzzles = ArcEvaluator.load("training", dir.toString());
+        assertEquals("a", puzzles.get(0).getId());
+        ArcEvaluator.Report report = ArcEvaluator.evaluate("training", puzzles, new PuzzleSolver(null), 1);
+        assertEquals(2, report.solved);
+        // a is solved by a transposition, which gets its test output wrong
+        assertEquals(1, report.correct);
+        assertEquals(0.5, report.accuracy);
+        assertEquals(2, report.agents.stream().mapToLong(agent -> agent.wins).sum());
+    }
+
+    @Test
+    public void testProcedurePathsStayInsideEvalDir(@TempDir Path dir) {
+        System.setProperty("arc.eval.dir", dir.toString());
+        try {
+            Path base = dir.toAbsolutePath().normalize();
+            assertEquals(base.resolve("ARC/data"), ArcProcedures.resolve("ARC/data"));
+            assertEquals(base.resolve("arc.json"), ArcProcedures.resolve(base.resolve("arc.json").toString()));
+            assertThrows(IllegalArgumentException.class, () -> ArcProcedures.resolve("../ARC/data"));
+            assertThrows(IllegalArgumentException.class, () -> ArcProcedures.resolve("/etc/passwd"));
+            assertThrows(IllegalArgumentException.class,
+                () -> new ArcProcedures().evaluate("training", Map.of("path", "../arc.json")));
+        } finally {
+            System.clearProperty("arc.eval.dir");
+        }
+    }
+
+    @Test
+    public void testUnknownSplit() {
+        assertThrows(IllegalArgumentException.class, () -> ArcEvaluator.load("holdout", null));
+    }
+}
@@ -0,0 +1,78 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.specialized_agents.Rotate90Agent;
+import groovy.lang.Binding;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for adapting agents to the CandidateGenerator interface.
+ */
+public class CandidateGeneratorTest {
+
+    private static final List<List<Integer>> GRID = List.of(List.of(1, 2), List.of(3, 4));
+
+    public static class OverloadedAgent {
+        public String generate_candidate(Object input) {
+            return "object";
+        }
+
+        public String generate_candidate(List<?> input) {
+            return "list";
+        }
+    }
+
+    public static class CheckedAgent {
+        public Object generate_candidate(List<?> input) throws Exception {
+            throw new java.io.IOException("unreadable");
+        }
+    }
+
+    @Test
+    public void testJavaAgentIsAdapted() throws Exception {
+        CandidateGenerator generator = CandidateGenerator.of(new Rotate90Agent(null));
+        assertEquals(List.of(List.of(List.of(3, 1), List.of(4, 2))), generator.generateCandidate(GRID));
+    }
+
+    @Test
+    public void testGroovyAgentIsAdapted() throws Exception {
+        Object agent = new GroovyAgentCache(2).run(
+            "class Sizer { def generate_candidate(grid) { [grid.size()] } }\nreturn new Sizer()", new Binding());
+        CandidateGenerator generator = CandidateGenerator.of(agent);
+        assertEquals(List.of(2), generator.generateCandidate(GRID));
+        assertSame(generator.getClass(), CandidateGenerator.of(agent).getClass());
+    }
+
+    @Test
+    public void testMostSpecificOverloadIsUsed() throws Exception {
+        assertEquals("list", CandidateGenerator.of(new OverloadedAgent()).generateCandidate(GRID));
+    }
+
+    @Test
+    public void testCheckedExceptionPropagates() {
+        CandidateGenerator generator = CandidateGenerator.of(new CheckedAgent());
+        assertThrows(java.io.IOException.class, () -> generator.generateCandidate(GRID));
+    }
+
+    @Test
+    public void testGeneratorIsReturnedAsIs() {
+        CandidateGenerator generator = input -> input;
+        assertSame(generator, CandidateGenerator.of(generator));
+    }
+
+    @Test
+    public void testAgentWithoutGenerateCandidateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CandidateGenerator.of("not an agent"));
+    }
+
+    @Test
+    public void testCreateAgentReturnsGenerator() throws Exception {
+        JSONObject definition = new JSONObject();
+        definition.put("name", "Rotate90Agent");
+        definition.put("class", Rotate90Agent.class.getName());
+        CandidateGenerator generator = DynamicAgentCreator.createAgent(definition, null);
+        assertEquals(1, ((List<?>) generator.generateCandidate(GRID)).size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridTransform;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import com.safeai.neo4jplugin.learning.ArcPuzzle;
+import com.safeai.neo4jplugin.learning.CanonicalPuzzle;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CanonicalPuzzle hashing and color mapping.
+ */
+public class CanonicalPuzzleTest {
+    private static final Grid INPUT = Grid.fromList(List.of(List.of(1, 2, 0), List.of(0, 3, 0)));
+    private static final Grid OUTPUT = Grid.fromList(List.of(List.of(0, 1), List.of(3, 2), List.of(0, 0)));
+    private static final Grid TEST = Grid.fromList(List.of(List.of(2, 2), List.of(0, 1)));
+
+    private static ArcPuzzle variant(GridTransform transform) {
+        return new ArcPuzzle("variant", List.of(new ArcPuzzle.Example(transform.apply(INPUT),
+            transform.apply(OUTPUT))), transform.apply(TEST), null);
+    }
+
+    @Test
+    public void testHashIgnoresRotationReflectionAndColors() {
+        String hash = CanonicalPuzzle.of(variant(grid -> grid)).hash();
+        byte[] swap = {0, 5, 7, 1, 4, 3, 6, 2, 8, 9, 10, 11, 12, 13, 14, 15};
+        assertEquals(hash, CanonicalPuzzle.of(variant(GridTransforms::rotate90)).hash());
+        assertEquals(hash, CanonicalPuzzle.of(variant(GridTransforms::reflectVertical)).hash());
+        assertEquals(hash, CanonicalPuzzle.of(variant(grid -> GridTransforms.mapColors(grid, swap))).hash());
+        assertEquals(hash, CanonicalPuzzle.of(variant(grid ->
+            GridTransforms.mapColors(GridTransforms.antiTranspose(grid), swap))).hash());
+    }
+
+    @Test
+    public void testHashIgnoresTestOutput() {
+        ArcPuzzle withOutput = new ArcPuzzle("known", List.of(new ArcPuzzle.Example(INPUT, OUTPUT)), TEST, OUTPUT);
+        assertEquals(CanonicalPuzzle.of(variant(grid -> grid)).hash(), CanonicalPuzzle.of(withOutput).hash());
+    }
+
+    @Test
+    public void testDifferentPuzzlesHashDifferently() {
+        ArcPuzzle other = new ArcPuzzle("other", List.of(new ArcPuzzle.Example(INPUT, INPUT)), TEST, null);
+        assertNotEquals(CanonicalPuzzle.of(variant(grid -> grid)).hash(), CanonicalPuzzle.of(other).hash());
+    }
+
+    @Test
+    public void testAnswersCarryBetweenVariants() {
+        byte[] swap = {0, 5, 7, 1, 4, 3, 6, 2, 8, 9, 10, 11, 12, 13, 14, 15};
+        GridTransform transform = grid -> GridTransforms.mapColors(GridTransforms.rotate270(grid), swap);
+        CanonicalPuzzle original = CanonicalPuzzle.of(variant(grid -> grid));
+        CanonicalPuzzle rotated = CanonicalPuzzle.of(variant(transform));
+        // The answer of the original, carried to the variant, is the variant of the answer;
+        // 9 does not occur in the puzzle and still maps back and forth
+        Grid answer = Grid.fromList(List.of(List.of(1, 9, 2)));
+        Grid canonical = original.toCanonical(answer);
+        assertEquals(answer, original.fromCanonical(canonical));
+        assertEquals(transform.apply(answer), rotated.fromCanonical(canonical));
+    }
+
+    @Test
+    public void testAnswersWithNewColorsDoNotCarryBetweenVariants() {
+        byte[] swap = {0, 5, 7, 1, 4, 3, 6, 2, 8, 9, 10, 11, 12, 13, 14, 15};
+        GridTransform transform = grid -> GridTransforms.mapColors(grid, swap);
+        CanonicalPuzzle original = CanonicalPuzzle.of(variant(grid -> grid));
+        CanonicalPuzzle recolored = CanonicalPuzzle.of(variant(transform));
+        assertTrue(original.inPuzzleColors(original.toCanonical(TEST)));
+
+        // 4 fills in a color none of the grids use; swap keeps it, but the variant's unused
+        // colors differ, so the canonical answer would come back in another color
+        Grid answer = Grid.fromList(List.of(List.of(4, 4), List.of(0, 1)));
+        Grid canonical = original.toCanonical(answer);
+        assertFalse(original.inPuzzleColors(canonical));
+        assertFalse(recolored.inPuzzleColors(canonical));
+        assertNotEquals(transform.apply(answer), recolored.fromCanonical(canonical));
+    }
+}
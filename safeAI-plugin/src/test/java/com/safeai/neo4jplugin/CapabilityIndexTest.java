@@ -0,0 +1,57 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.routing.CapabilityIndex;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the capability to agent bitset index.
+ */
+public class CapabilityIndexTest {
+
+    private static List<String> names(List<CapabilityIndex.AgentRef> agents) {
+        return agents.stream().map(agent -> agent.name).collect(Collectors.toList());
+    }
+
+    private static CapabilityIndex sampleIndex() {
+        CapabilityIndex index = new CapabilityIndex();
+        index.put("1", "ThreatDetector", "CyberSecurity", List.of("threat_detection", "security_monitoring"));
+        index.put("2", "AuditAgent", "LegalCompliance", List.of("compliance_audit", "security_monitoring"));
+        index.put("3", "PrivacyGuard", "DataPrivacySecurity", List.of("data_masking", "compliance_audit"));
+        index.put("4", "Rotate90Agent", "ARC", List.of("rotation"));
+        return index;
+    }
+
+    @Test
+    public void testAndOrNot() {
+        CapabilityIndex index = sampleIndex();
+        assertEquals(List.of("AuditAgent"),
+            names(index.query(List.of("security_monitoring", "compliance_audit"), List.of(), List.of())));
+        assertEquals(List.of("AuditAgent", "PrivacyGuard", "ThreatDetector"),
+            names(index.query(List.of(), List.of("THREAT_DETECTION", "compliance_audit"), List.of())));
+        assertEquals(List.of("ThreatDetector"),
+            names(index.query(List.of("security_monitoring"), List.of(), List.of("compliance_audit"))));
+        assertEquals(List.of("Rotate90Agent"),
+            names(index.query(List.of(), List.of(), List.of("security_monitoring", "compliance_audit"))));
+        assertTrue(index.query(List.of("rotation", "unknown"), List.of(), List.of()).isEmpty());
+    }
+
+    @Test
+    public void testUpdatesAndOrdinalReuse() {
+        CapabilityIndex index = sampleIndex();
+        index.put("4", "Rotate90Agent", "ARC", List.of("rotation", "security_monitoring"));
+        assertEquals(List.of("AuditAgent", "Rotate90Agent", "ThreatDetector"),
+            names(index.query(List.of("security_monitoring"), List.of(), List.of())));
+
+        assertTrue(index.remove("1"));
+        assertFalse(index.remove("1"));
+        assertFalse(index.capabilities().contains("threat_detection"));
+        index.put("5", "FlipAgent", "ARC", List.of("flip"));
+        assertEquals(4, index.size());
+        assertEquals(List.of("AuditAgent", "Rotate90Agent"),
+            names(index.query(List.of("security_monitoring"), List.of(), List.of())));
+        assertEquals(List.of("FlipAgent"), names(index.query(List.of("flip"), List.of(), List.of())));
+    }
+}
@@ -0,0 +1,53 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridCodec;
+import com.safeai.neo4jplugin.grid.GridProcedures;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GridCodec and the safeai.grid functions.
+ */
+public class GridCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Grid grid = Grid.fromList(List.of(List.of(1, 2, 3), List.of(15, 0, 9), List.of(4, 5, 6)));
+        byte[] bytes = GridCodec.encode(grid);
+        assertEquals(2 + 5, bytes.length);
+        assertEquals(3, bytes[0]);
+        assertEquals(0x12, bytes[2]);
+        assertEquals(grid, GridCodec.decode(bytes));
+        assertEquals(452, GridCodec.encode(Grid.filled(30, 30, 15)).length);
+        assertEquals(Grid.filled(30, 30, 15), GridCodec.decode(GridCodec.encode(Grid.filled(30, 30, 15))));
+        assertEquals(Grid.fromList(List.of()), GridCodec.decode(GridCodec.encode(Grid.fromList(List.of()))));
+    }
+
+    @Test
+    public void testInvalidBytesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> GridCodec.decode(new byte[] {2}));
+        assertThrows(IllegalArgumentException.class, () -> GridCodec.decode(new byte[] {2, 2, 0x12}));
+        assertThrows(IllegalArgumentException.class, () -> GridCodec.decode(new byte[] {31, 1, 0, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> GridCodec.decode(new byte[] {0, 1}));
+    }
+
+    @Test
+    public void testUnpackedCellsAreStillRead() {
+        Grid grid = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        assertEquals(grid, Grid.fromProperties(Map.of("width", 2L, "height", 2L, "cells", new byte[] {1, 2, 3, 4})));
+        assertTrue(grid.toProperties().get("grid") instanceof byte[]);
+        assertFalse(grid.toProperties().containsKey("cells"));
+    }
+
+    @Test
+    public void testCypherFunctions() {
+        GridProcedures functions = new GridProcedures();
+        byte[] bytes = functions.encode(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L)));
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L)), functions.decode(bytes));
+        assertArrayEquals(bytes, functions.encode(Map.of("grid", bytes)));
+        assertNull(functions.decode(null));
+    }
+}
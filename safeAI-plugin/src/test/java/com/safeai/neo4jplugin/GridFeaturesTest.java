@@ -0,0 +1,83 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridFeatures;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GridFeatures and the native agents' applicability checks.
+ */
+public class GridFeaturesTest {
+
+    @Test
+    public void testFeatures() {
+        GridFeatures features = GridFeatures.of(Grid.fromList(List.of(
+            List.of(1, 0, 1),
+            List.of(0, 2, 0),
+            List.of(1, 0, 1))));
+        assertEquals(3, features.width());
+        assertEquals(9, features.cellCount());
+        assertEquals(4, features.count(1));
+        assertEquals(1, features.count(2));
+        assertEquals(0b111, features.colorMask());
+        assertTrue(features.isMirrorSymmetric());
+        assertTrue(features.isFlipSymmetric());
+        assertTrue(features.isPointSymmetric());
+        assertEquals(5, features.objectCount());
+
+        GridFeatures skewed = GridFeatures.of(Grid.fromList(List.of(List.of(1, 1, 0), List.of(0, 1, 1))));
+        assertFalse(skewed.isMirrorSymmetric());
+        assertFalse(skewed.isFlipSymmetric());
+        assertTrue(skewed.isPointSymmetric());
+        assertEquals(1, skewed.objectCount());
+        assertFalse(features.sameHistogram(skewed));
+    }
+
+    @Test
+    public void testAgentsMayProduceTheirOwnOutputs() {
+        Random random = new Random(7);
+        List<Grid> grids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int height = 2 * (1 + random.nextInt(4));
+            int width = 2 * (1 + random.nextInt(4));
+            List<List<Integer>> rows = new ArrayList<>();
+            for (int r = 0; r < height; r++) {
+                List<Integer> row = new ArrayList<>();
+                for (int c = 0; c < width; c++) {
+                    row.add(random.nextInt(3) == 0 ? 0 : random.nextInt(10));
+                }
+                rows.add(row);
+            }
+            grids.add(Grid.fromList(rows));
+        }
+        for (NativeGridAgent agent : NativeGridAgents.all()) {
+            for (Grid grid : grids) {
+                Grid output;
+                try {
+                    output = agent.apply(grid);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                assertTrue(agent.mayProduce(GridFeatures.of(grid), GridFeatures.of(output)),
+                    agent.getName() + " on " + grid);
+            }
+        }
+    }
+
+    @Test
+    public void testAgentsRuleOutMismatchedGrids() {
+        GridFeatures input = GridFeatures.of(Grid.fromList(List.of(List.of(1, 2), List.of(3, 4))));
+        GridFeatures recolored = GridFeatures.of(Grid.fromList(List.of(List.of(1, 2), List.of(3, 3))));
+        GridFeatures smaller = GridFeatures.of(Grid.fromList(List.of(List.of(1))));
+        assertFalse(NativeGridAgents.get("Rotate90").mayProduce(input, recolored));
+        assertFalse(NativeGridAgents.get("ScaleUp").mayProduce(input, smaller));
+        assertTrue(NativeGridAgents.get("ScaleDown").mayProduce(input, smaller));
+        assertFalse(NativeGridAgents.get("FloodFill").mayProduce(input, recolored));
+    }
+}
@@ -0,0 +1,76 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.specialized_agents.Rotate90Agent;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the packed ARC Grid type.
+ */
+public class GridTest {
+
+    @Test
+    public void testListRoundTrip() {
+        List<List<Integer>> rows = List.of(List.of(1, 2, 3), List.of(4, 5, 6));
+        Grid grid = Grid.fromList(rows);
+        assertEquals(3, grid.width());
+        assertEquals(2, grid.height());
+        assertEquals(6, grid.get(1, 2));
+        assertEquals(rows, grid.toList());
+        assertEquals("123/456", grid.toString());
+    }
+
+    @Test
+    public void testCypherLongsAreAccepted() {
+        Grid grid = Grid.from(List.of(List.of(1L, 2L), List.of(3L, 13L)));
+        assertEquals(13, grid.get(1, 1));
+    }
+
+    @Test
+    public void testEqualityAndHashing() {
+        Grid a = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        Grid b = Grid.of(2, 2, new byte[] {1, 2, 3, 4});
+        Grid transposedShape = Grid.of(4, 1, new byte[] {1, 2, 3, 4});
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, transposedShape);
+    }
+
+    @Test
+    public void testPropertiesRoundTrip() {
+        Grid grid = Grid.filled(3, 2, 7);
+        Map<String, Object> properties = grid.toProperties();
+        assertEquals(3L, properties.get("width"));
+        assertEquals(grid, Grid.from(properties));
+    }
+
+    @Test
+    public void testCellsAreCopied() {
+        byte[] cells = {1, 2, 3, 4};
+        Grid grid = Grid.of(2, 2, cells);
+        cells[0] = 9;
+        grid.cells()[1] = 9;
+        assertEquals("12/34", grid.toString());
+    }
+
+    @Test
+    public void testInvalidGridsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Grid.fromList(List.of(List.of(1, 2), List.of(3))));
+        assertThrows(IllegalArgumentException.class, () -> Grid.fromList(List.of(List.of(16))));
+        assertThrows(IllegalArgumentException.class, () -> Grid.fromList(List.of(List.of(-1))));
+        assertThrows(IllegalArgumentException.class, () -> Grid.filled(31, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> Grid.of(2, 2, new byte[3]));
+    }
+
+    @Test
+    public void testRotate90AgentRotatesPackedGrid() {
+        Grid grid = Grid.fromList(List.of(List.of(1, 2, 3), List.of(4, 5, 6)));
+        Grid rotated = new Rotate90Agent(null).rotate(grid);
+        assertEquals("41/52/63", rotated.toString());
+        assertEquals(List.of(rotated.toList()),
+            new Rotate90Agent(null).generate_candidate(grid.toList()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridObject;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the native grid transformations and the agents built on them.
+ */
+public class GridTransformsTest {
+
+    private static Grid grid(String rows) {
+        String[] lines = rows.split("/");
+        byte[] cells = new byte[lines.length * lines[0].length()];
+        for (int r = 0, i = 0; r < lines.length; r++) {
+            for (char c : lines[r].toCharArray()) {
+                cells[i++] = (byte) Character.digit(c, 16);
+            }
+        }
+        return Grid.of(lines[0].length(), lines.length, cells);
+    }
+
+    @Test
+    public void testRotationsAndReflections() {
+        Grid g = grid("123/456");
+        assertEquals("41/52/63", GridTransforms.rotate90(g).toString());
+        assertEquals("654/321", GridTransforms.rotate180(g).toString());
+        assertEquals("36/25/14", GridTransforms.rotate270(g).toString());
+        assertEquals("321/654", GridTransforms.reflectHorizontal(g).toString());
+        assertEquals("456/123", GridTransforms.reflectVertical(g).toString());
+        assertEquals("14/25/36", GridTransforms.transpose(g).toString());
+        assertEquals("63/52/41", GridTransforms.antiTranspose(g).toString());
+        assertEquals(g, GridTransforms.rotate90(GridTransforms.rotate270(g)));
+    }
+
+    @Test
+    public void testColorMaps() {
+        Grid g = grid("019/35c");
+        assertEquals("980/64c", GridTransforms.complement(g).toString());
+        assertEquals("c91/530", GridTransforms.invertPresentColors(g).toString());
+        assertEquals("009/099", GridTransforms.threshold(g, 5, 0, 9).toString());
+        assertEquals((1 << 0) | (1 << 1) | (1 << 9) | (1 << 3) | (1 << 5) | (1 << 12), GridTransforms.colorMask(g));
+    }
+
+    @Test
+    public void testTranslateDropsAndFills() {
+        Grid g = grid("12/34");
+        assertEquals("00/12", GridTransforms.translate(g, 1, 0, 0).toString());
+        assertEquals("20/40", GridTransforms.translate(g, 0, -1, 0).toString());
+        assertEquals("77/71", GridTransforms.translate(g, 1, 1, 7).toString());
+        assertEquals("77/77", GridTransforms.translate(g, 0, 5, 7).toString());
+        assertThrows(IllegalArgumentException.class, () -> GridTransforms.translate(g, 1, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> GridTransforms.translate(g, 1, 0, -1));
+    }
+
+    @Test
+    public void testCropAndScale() {
+        Grid g = grid("0000/0120/0340");
+        assertEquals("12/34", GridTransforms.cropToContent(g, 0).toString());
+        assertEquals("1122/1122/3344/3344", GridTransforms.scaleUp(grid("12/34"), 2).toString());
+        assertEquals("12/34", GridTransforms.scaleDown(grid("1122/1122/3344/3344"), 2).toString());
+        assertEquals("1212/3434/1212/3434", GridTransforms.tile(grid("12/34"), 2, 2).toString());
+        assertThrows(IllegalArgumentException.class, () -> GridTransforms.scaleUp(Grid.filled(16, 16, 1), 2));
+        assertThrows(IllegalArgumentException.class, () -> GridTransforms.scaleDown(grid("123"), 2));
+    }
+
+    @Test
+    public void testFills() {
+        assertEquals("1111/1221/1111", GridTransforms.floodFill(grid("1111/1001/1111"), 1, 1, 2).toString());
+        assertEquals("0000/0333/0333/0333", GridTransforms.fillEnclosed(grid("0000/0333/0303/0333")).toString());
+        assertEquals("0000/0330/0300/0330", GridTransforms.fillEnclosed(grid("0000/0330/0300/0330")).toString());
+        assertEquals("03330/03330/03330", GridTransforms.fillEnclosed(grid("03330/03030/03330")).toString());
+        assertEquals("2220500", GridTransforms.fillHorizontalGaps(grid("2020500")).toString());
+    }
+
+    @Test
+    public void testCompositions() {
+        assertEquals("1001", GridTransforms.mirrorLeftHalf(grid("1020")).toString());
+        assertEquals("12", GridTransforms.overlay(grid("10"), grid("02")).toString());
+        assertEquals("12/34", GridTransforms.mergeQuadrants(grid("10502/00500/55555/00500/30504")).toString());
+        assertEquals("111/101/111", GridTransforms.outline(Grid.filled(3, 3, 1)).toString());
+    }
+
+    @Test
+    public void testObjects() {
+        List<GridObject> objects = GridTransforms.objects(grid("1100/1002/0022"));
+        assertEquals(2, objects.size());
+        assertEquals(1, objects.get(0).color);
+        assertEquals(3, objects.get(0).size);
+        assertEquals("11/10", objects.get(0).shape.toString());
+        assertEquals(2, objects.get(1).color);
+        assertEquals(1, objects.get(1).top);
+        assertEquals(2, objects.get(1).left);
+        assertEquals("02/22", objects.get(1).shape.toString());
+    }
+
+    @Test
+    public void testNativeAgentsReplaceArcScripts() throws Exception {
+        JSONObject kg;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("ARC_Puzzle_Agent_Definitions_KG.json")) {
+            kg = new JSONObject(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        int replaced = 0;
+        for (Object agent : kg.getJSONArray("agents")) {
+            JSONObject definition = (JSONObject) agent;
+            if (NativeGridAgents.get(definition.getString("name")) != null) {
+                assertTrue(DynamicAgentCreator.createAgent(definition, null) instanceof NativeGridAgent);
+                replaced++;
+            }
+        }
+        assertEquals(NativeGridAgents.all().size(), replaced);
+
+        JSONObject rotate = new JSONObject().put("name", "Rotate90").put("agent_code", "return null");
+        Object candidate = DynamicAgentCreator.createAgent(rotate, null).generateCandidate(List.of(List.of(1, 2)));
+        assertEquals(List.of(List.of(1), List.of(2)), candidate);
+    }
+}
@@ -0,0 +1,99 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGDocument;
+import groovy.lang.Binding;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compiled Groovy agent script cache and the agent precompiler.
+ */
+public class GroovyAgentCacheTest {
+
+    @Test
+    public void testRepeatedScriptIsCompiledOnce() {
+        GroovyAgentCache cache = new GroovyAgentCache(4);
+        String script = "class Doubler { def generate_candidate(x) { [x * 2] } }\nreturn new Doubler()";
+        Object first = cache.run(script, new Binding());
+        Object second = cache.run(script, new Binding());
+        assertNotSame(first, second);
+        assertSame(first.getClass(), second.getClass());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBindingIsVisibleToScript() {
+        GroovyAgentCache cache = new GroovyAgentCache(4);
+        Binding binding = new Binding();
+        binding.setVariable("graphRAG", "graph");
+        assertEquals("graph!", cache.run("return graphRAG + '!'", binding));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedScriptIsEvicted() {
+        GroovyAgentCache cache = new GroovyAgentCache(2);
+        Class<?> one = cache.compile("return 1");
+        cache.compile("return 2");
+        cache.compile("return 1");
+        cache.compile("return 3");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertSame(one, cache.compile("return 1"));
+        assertNotNull(cache.compile("return 2"));
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testStaticCompilationFallsBackToDynamic() {
+        GroovyAgentCache cache = new GroovyAgentCache(4, true);
+        GroovyAgentCache.CompileResult typed = cache.precompile("int twice(int x) { x * 2 }\nreturn twice(21)");
+        assertTrue(typed.staticCompiled);
+        assertFalse(typed.cached);
+        assertEquals(42, cache.run("int twice(int x) { x * 2 }\nreturn twice(21)", new Binding()));
+
+        GroovyAgentCache.CompileResult dynamic = cache.precompile("return graphRAG.toUpperCase()");
+        assertFalse(dynamic.staticCompiled);
+        Binding binding = new Binding();
+        binding.setVariable("graphRAG", "graph");
+        assertEquals("GRAPH", cache.run("return graphRAG.toUpperCase()", binding));
+        assertTrue(cache.precompile("return graphRAG.toUpperCase()").cached);
+    }
+
+    @Test
+    public void testPrecompileBundledArcAgents() throws Exception {
+        KGDocument document;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("ARC_Puzzle_Agent_Definitions_KG.json")) {
+            assertNotNull(is);
+            JSONObject kg = new JSONObject(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            document = KGDocument.fromJson(kg, "ARC_Puzzle_Agent_Definitions_KG.json", null, 0);
+        }
+        GroovyAgentCache cache = new GroovyAgentCache(64, true);
+        List<GroovyAgentPrecompiler.Report> reports = GroovyAgentPrecompiler.precompile(List.of(document), cache);
+        assertEquals(document.getAgents().size(), reports.size());
+        Map<String, Object> scripts = new HashMap<>();
+        for (Map<String, Object> agent : document.getAgents()) {
+            scripts.put((String) agent.get("name"),
+                agent.get("agent_code") != null ? agent.get("agent_code") : agent.get("groovyScript"));
+        }
+        Set<Object> compiled = new HashSet<>();
+        for (GroovyAgentPrecompiler.Report report : reports) {
+            assertEquals(document.getName(), report.kgName);
+            if (report.error == null) {
+                compiled.add(scripts.get(report.agent));
+            }
+        }
+        assertFalse(compiled.isEmpty());
+        // Scripts that fail to compile are reported, not cached; agents sharing a script share an entry
+        assertEquals(compiled.size(), cache.size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.routing.HnswIndex;
+import com.safeai.neo4jplugin.routing.TextEmbedder;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the agent vector index and the text embedder.
+ */
+public class HnswIndexTest {
+
+    private static float[] randomUnitVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        double sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+            sum += vector[i] * vector[i];
+        }
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] /= (float) Math.sqrt(sum);
+        }
+        return vector;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testRecallAgainstExactSearch() {
+        Random random = new Random(7);
+        int dimensions = 32;
+        float[][] vectors = new float[2000][];
+        HnswIndex index = new HnswIndex(dimensions, 16, 100, 50);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnitVector(random, dimensions);
+            index.put("v" + i, vectors[i]);
+        }
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomUnitVector(random, dimensions);
+            Integer[] order = new Integer[vectors.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(dot(query, vectors[b]), dot(query, vectors[a])));
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                expected.add("v" + order[i]);
+            }
+            List<HnswIndex.Hit> hits = index.search(query, 10);
+            assertEquals(10, hits.size());
+            for (HnswIndex.Hit hit : hits) {
+                if (expected.contains(hit.key)) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found >= 450, "recall@10 too low: " + found + "/500");
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(8, 4, 20, 10);
+        float[] target = randomUnitVector(random, 8);
+        for (int i = 0; i < 100; i++) {
+            index.put("v" + i, randomUnitVector(random, 8));
+        }
+        index.put("v5", target);
+        assertEquals(100, index.size());
+        assertEquals("v5", index.search(target, 1).get(0).key);
+
+        for (int i = 0; i < 90; i++) {
+            if (i != 5) {
+                assertTrue(index.remove("v" + i));
+            }
+        }
+        assertFalse(index.remove("v0"));
+        assertEquals(11, index.size());
+        List<HnswIndex.Hit> hits = index.search(target, 20);
+        assertEquals(11, hits.size());
+        assertEquals("v5", hits.get(0).key);
+    }
+
+    @Test
+    public void testEmbedderRanksRelatedTextHigher() {
+        TextEmbedder embedder = new TextEmbedder(256);
+        float[] query = embedder.embed("rotate the grid by 90 degrees");
+        float[] rotation = embedder.embed("Rotation agent: rotates puzzle grids clockwise");
+        float[] privacy = embedder.embed("Detects personal data and enforces privacy policies");
+        assertTrue(dot(query, rotation) > dot(query, privacy));
+        assertEquals(1.0, dot(rotation, rotation), 1e-5);
+        assertEquals(0.0, dot(embedder.embed("  ... "), rotation), 0.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.safeai.neo4jplugin;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InternalKGService's cached, paged KG reads.
+ */
+public class InternalKGServiceTest {
+    private static final String TOKEN = "AUTHORIZED";
+
+    @Test
+    public void testBufferIsReadOnlyViewOfContent() {
+        InternalKGService service = new InternalKGService();
+        ByteBuffer first = service.readKGBuffer("Ethics_KG.json", TOKEN);
+        ByteBuffer second = service.readKGBuffer("Ethics_KG.json", TOKEN);
+        assertTrue(first.isReadOnly());
+        first.get();
+        assertEquals(0, second.position());
+        assertEquals(StandardCharsets.UTF_8.decode(second).toString(), service.readKG("Ethics_KG.json", TOKEN));
+    }
+
+    @Test
+    public void testPagesAndRangesCoverContent() {
+        InternalKGService service = new InternalKGService();
+        String content = service.readKG("Ethics_KG.json", TOKEN);
+        StringBuilder paged = new StringBuilder();
+        InternalKGService.KGPage page = service.readKGPage("Ethics_KG.json", 0, 25, TOKEN);
+        paged.append(page.content);
+        for (int i = 1; i < page.totalPages; i++) {
+            paged.append(service.readKGPage("Ethics_KG.json", i, 25, TOKEN).content);
+        }
+        assertEquals(content, paged.toString());
+        ByteBuffer range = service.readKGRange("Ethics_KG.json", 1, 10, TOKEN);
+        assertEquals(content.substring(1, 11), StandardCharsets.UTF_8.decode(range).toString());
+    }
+
+    @Test
+    public void testETagAndAccessChecks() {
+        InternalKGService service = new InternalKGService();
+        String etag = service.getETag("Ethics_KG.json", TOKEN);
+        assertFalse(service.isModified("Ethics_KG.json", etag, TOKEN));
+        assertTrue(service.isModified("Ethics_KG.json", "\"stale\"", TOKEN));
+        assertNotEquals(etag, service.getETag("Math_KG.json", TOKEN));
+        assertThrows(SecurityException.class, () -> service.readKG("Ethics_KG.json", "wrong"));
+        assertThrows(IllegalArgumentException.class, () -> service.readKG("Internal_KG.json", TOKEN));
+    }
+}
@@ -0,0 +1,41 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGContentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the off-graph KG content store.
+ */
+public class KGContentStoreTest {
+    @TempDir
+    Path storeDir;
+
+    @Test
+    public void testRoundTripAndDeduplication() throws Exception {
+        KGContentStore store = new KGContentStore(storeDir, false);
+        String hash = store.put("{\"domain\": \"Ethics\"}");
+        assertEquals(64, hash.length());
+        assertTrue(store.contains(hash));
+        assertEquals(hash, store.put("{\"domain\": \"Ethics\"}"));
+        assertEquals("{\"domain\": \"Ethics\"}", store.getString(hash));
+    }
+
+    @Test
+    public void testCompressedContent() throws Exception {
+        KGContentStore store = new KGContentStore(storeDir, true);
+        String content = "{\"agents\": [" + "{\"name\": \"Agent\"},".repeat(1000) + "{}]}";
+        String hash = store.put(content);
+        assertEquals(KGContentStore.sha256(content.getBytes("UTF-8")), hash);
+        assertEquals(content, store.getString(hash));
+    }
+
+    @Test
+    public void testRejectsInvalidHash() {
+        KGContentStore store = new KGContentStore(storeDir, false);
+        assertThrows(IllegalArgumentException.class, () -> store.get("../../etc/passwd"));
+        assertFalse(store.contains("0".repeat(64)));
+    }
+}
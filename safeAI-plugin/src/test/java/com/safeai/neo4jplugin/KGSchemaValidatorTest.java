@@ -0,0 +1,57 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGSchemaValidator;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KG schema validation.
+ */
+public class KGSchemaValidatorTest {
+
+    private static List<String> validate(String json) {
+        return KGSchemaValidator.getDefault().validate(json).stream()
+            .map(KGSchemaValidator.Violation::toString)
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testValidKG() {
+        assertTrue(validate("{\"domain\": \"Ethics\", \"agents\": [{\"name\": \"A\", \"description\": \"d\", " +
+            "\"capabilities\": [\"c\"], \"tags\": [\"x\", \"y\"]}]}").isEmpty());
+    }
+
+    @Test
+    public void testReportsEveryViolationWithPath() {
+        List<String> violations = validate("{\"domain\": \"Ethics\", \"agents\": [" +
+            "{\"name\": \"A\", \"description\": \"d\"}," +
+            "{\"description\": \"d\", \"config\": {\"x\": 1}}," +
+            "{\"name\": \"A\", \"description\": 5}]," +
+            "\"relationships\": [{\"from\": \"A\", \"to\": \"\"}]}");
+        assertTrue(violations.contains("$.agents[1]: missing required field: name"));
+        assertTrue(violations.contains("$.agents[1].config: nested objects cannot be stored as node properties"));
+        assertTrue(violations.contains("$.agents[2].description: expected a string but found a number"));
+        assertTrue(violations.contains("$.agents[2].name: duplicate name: A"));
+        assertTrue(violations.contains("$.relationships[0]: missing required field: type"));
+        assertTrue(violations.contains("$.relationships[0].to: must not be empty"));
+        assertEquals(6, violations.size());
+    }
+
+    @Test
+    public void testMissingNameAndMalformedJson() {
+        assertEquals(List.of("$: missing required field: domain or name"), validate("{\"agents\": []}"));
+        List<String> malformed = validate("{\"domain\": ");
+        assertEquals(1, malformed.size());
+        assertTrue(malformed.get(0).startsWith("$: malformed JSON"));
+    }
+
+    @Test
+    public void testBundledResources() {
+        var reports = KGSchemaValidator.getDefault().validateResources(getClass().getClassLoader(),
+            new String[] { "ARC_Puzzle_Agent_Definitions_KG.json", "Missing_KG.json" });
+        assertEquals(1, reports.size());
+        assertTrue(reports.get("ARC_Puzzle_Agent_Definitions_KG.json").isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.kg.KGContentStore;
+import com.safeai.neo4jplugin.kg.KGDocument;
+import com.safeai.neo4jplugin.kg.KGSnapshot;
+import com.safeai.neo4jplugin.kg.KGSnapshotCompiler;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the build-time KG snapshot compiler and its memory-mapped reader.
+ */
+public class KGSnapshotTest {
+    @TempDir
+    Path outputDir;
+
+    @Test
+    public void testSnapshotMatchesJsonDocuments() throws Exception {
+        Path resources = Paths.get("src/main/resources");
+        Path snapshotFile = outputDir.resolve("kg-snapshot.bin");
+        KGSnapshotCompiler.main(new String[] { resources.toString(), snapshotFile.toString() });
+
+        KGSnapshot snapshot = KGSnapshot.open(snapshotFile);
+        List<KGDocument> documents = snapshot.documents();
+        assertFalse(documents.isEmpty());
+
+        KGDocument arc = documents.stream()
+            .filter(d -> d.getSourceFile().equals("ARC_Puzzle_Agent_Definitions_KG.json"))
+            .findFirst().orElseThrow();
+        byte[] raw = Files.readAllBytes(resources.resolve("ARC_Puzzle_Agent_Definitions_KG.json"));
+        KGDocument expected = KGDocument.fromJson(new JSONObject(new String(raw, StandardCharsets.UTF_8)),
+            "ARC_Puzzle_Agent_Definitions_KG.json", KGContentStore.sha256(raw), raw.length);
+
+        assertEquals(expected.getName(), arc.getName());
+        assertEquals(expected.getDescription(), arc.getDescription());
+        assertEquals(expected.getContentHash(), arc.getContentHash());
+        assertEquals(expected.getContentSize(), arc.getContentSize());
+        assertEquals(expected.getAgents().size(), arc.getAgents().size());
+        for (int i = 0; i < expected.getAgents().size(); i++) {
+            assertEquals(expected.getAgents().get(i).get("name"), arc.getAgents().get(i).get("name"));
+            assertEquals(expected.getAgents().get(i).get("agent_code"), arc.getAgents().get(i).get("agent_code"));
+            assertEquals(((Number) expected.getAgents().get(i).get("usageCount")).longValue(),
+                ((Number) arc.getAgents().get(i).get("usageCount")).longValue());
+        }
+    }
+}
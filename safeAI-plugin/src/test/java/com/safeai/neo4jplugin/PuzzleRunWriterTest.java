@@ -0,0 +1,113 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.learning.ArcPuzzle;
+import com.safeai.neo4jplugin.learning.PuzzleRunWriter;
+import com.safeai.neo4jplugin.learning.PuzzleSolver;
+import com.safeai.neo4jplugin.learning.SolutionCache;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PuzzleRunWriter.
+ */
+public class PuzzleRunWriterTest {
+
+    /**
+     * Collects the batches instead of writing them, or fails while {@code failing} is set.
+     */
+    private static class RecordingSink implements PuzzleRunWriter.Sink {
+        final List<List<Map<String, Object>>> batches = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean failing;
+
+        @Override
+        public void write(List<Map<String, Object>> runs) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(new ArrayList<>(runs));
+        }
+    }
+
+    private static ArcPuzzle puzzle(int color) {
+        Grid input = Grid.fromList(List.of(List.of(color, 0)));
+        Grid output = Grid.fromList(List.of(List.of(0, color)));
+        return new ArcPuzzle("p" + color, List.of(new ArcPuzzle.Example(input, output)), input, output);
+    }
+
+    private static PuzzleSolver solver(PuzzleRunWriter writer) {
+        return new PuzzleSolver(null, new SolutionCache(null, 16), writer);
+    }
+
+    @Test
+    public void testRunsAreWrittenInBatches() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        PuzzleRunWriter writer = new PuzzleRunWriter(sink, 2, 60000, 4);
+        PuzzleSolver solver = solver(writer);
+        for (int color = 1; color <= 5; color++) {
+            solver.solve(puzzle(color));
+        }
+        // Full batches go out on the writer thread without waiting for the timer
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getWritten() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(writer.getWritten() >= 4);
+        solver.close();
+        assertEquals(5, writer.getWritten());
+        assertEquals(0, writer.pending());
+        for (List<Map<String, Object>> batch : sink.batches) {
+            assertTrue(batch.size() <= 2);
+        }
+        Map<String, Object> run = sink.batches.get(0).get(0);
+        assertEquals("AI_Solved", run.get("solutionType"));
+        assertNotNull(run.get("runId"));
+        assertNotNull(run.get("hash"));
+        assertTrue(run.get("answer") instanceof Map && ((Map<?, ?>) run.get("answer")).get("grid") instanceof byte[]);
+        assertTrue(((Map<?, ?>) run.get("puzzle")).get("test_input") instanceof byte[]);
+    }
+
+    @Test
+    public void testFailuresAreCountedAsCounterexamples() {
+        RecordingSink sink = new RecordingSink();
+        PuzzleRunWriter writer = new PuzzleRunWriter(sink, 10, 60000, 10);
+        PuzzleSolver solver = solver(writer);
+        Grid input = Grid.fromList(List.of(List.of(1, 2)));
+        Grid wrong = Grid.fromList(List.of(List.of(7, 7, 7)));
+        solver.solve(new ArcPuzzle("unsolvable", List.of(new ArcPuzzle.Example(input, wrong)), input, null));
+        solver.close();
+        assertEquals(1, sink.batches.size());
+        assertEquals("Counterexample", sink.batches.get(0).get(0).get("solutionType"));
+    }
+
+    @Test
+    public void testFailedBatchesAreDropped() {
+        RecordingSink sink = new RecordingSink();
+        sink.failing = true;
+        PuzzleRunWriter writer = new PuzzleRunWriter(sink, 10, 60000, 10);
+        PuzzleSolver solver = solver(writer);
+        solver.solve(puzzle(1));
+        solver.solve(puzzle(2));
+        solver.close();
+        assertEquals(0, writer.getWritten());
+        assertEquals(2, writer.getDropped());
+        assertEquals(0, writer.pending());
+    }
+
+    @Test
+    public void testFlushAllWritesOpenWriters() {
+        RecordingSink sink = new RecordingSink();
+        PuzzleRunWriter writer = new PuzzleRunWriter(sink, 10, 60000, 10);
+        PuzzleSolver solver = solver(writer);
+        solver.solve(puzzle(1));
+        assertEquals(1, writer.pending());
+        // What the database lifecycle does before the database stops
+        PuzzleRunWriter.flushAll();
+        assertEquals(1, writer.getWritten());
+        solver.close();
+    }
+}
@@ -1,11 +1,24 @@
 package com.safeai.neo4jplugin;
 
-import com.safeai.neo4jplugin.graph_rag.GraphRAG;
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridTransform;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import com.safeai.neo4jplugin.learning.ArcPuzzle;
 import com.safeai.neo4jplugin.learning.PuzzleSolver;
+import com.safeai.neo4jplugin.learning.SolveResult;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgent;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
+import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for PuzzleSolver in the Learning Module.
@@ -13,15 +26,195 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 public class PuzzleSolverTest {
     @Test
     public void testProcessPuzzle() {
-        GraphRAG graphRag = new GraphRAG("bolt://localhost:7687", "neo4j", "testpassword");
-        PuzzleSolver solver = new PuzzleSolver(graphRag);
+        PuzzleSolver solver = new PuzzleSolver(null);
         List<List<Integer>> puzzleGrid = Arrays.asList(
             Arrays.asList(1, 2, 3),
             Arrays.asList(4, 5, 6),
             Arrays.asList(7, 8, 9)
         );
-        List<List<Integer>> solution = solver.processPuzzle(puzzleGrid);
-        assertNotNull(solution);
-        graphRag.close();
+        List<List<Integer>> transposed = Arrays.asList(
+            Arrays.asList(1, 4, 7),
+            Arrays.asList(2, 5, 8),
+            Arrays.asList(3, 6, 9)
+        );
+        assertEquals(transposed, solver.processPuzzle(puzzleGrid, transposed));
+        // No agent turns the grid into one with a color it never had
+        List<List<Integer>> unreachable = Arrays.asList(Arrays.asList(9, 9), Arrays.asList(9, 1));
+        assertNull(solver.processPuzzle(puzzleGrid, unreachable));
+    }
+
+    private static ArcPuzzle transposePuzzle() {
+        JSONObject task = new JSONObject("{\"train\": [" +
+            "{\"input\": [[1, 2, 3], [4, 5, 6]], \"output\": [[1, 4], [2, 5], [3, 6]]}," +
+            "{\"input\": [[0, 7], [8, 0]], \"output\": [[0, 8], [7, 0]]}]," +
+            "\"test\": [{\"input\": [[1, 2], [3, 4], [5, 6]], \"output\": [[1, 3, 5], [2, 4, 6]]}]}");
+        return ArcPuzzle.fromJson("transpose", task);
+    }
+
+    @Test
+    public void testSolveFindsFittingAgent() {
+        SolveResult result = new PuzzleSolver(null).solve(transposePuzzle());
+        assertTrue(result.solved);
+        assertEquals("ReflectDiagonalMain", result.agent);
+        assertEquals(1.0, result.score);
+        assertEquals(Boolean.TRUE, result.correct);
+        assertEquals(List.of(List.of(1, 3, 5), List.of(2, 4, 6)), result.prediction.toList());
+        assertFalse(result.runs.isEmpty());
+        for (SolveResult.AgentRun run : result.runs) {
+            assertTrue(run.skipped || run.nanos > 0, run.agent);
+        }
+    }
+
+    @Test
+    public void testEarliestFittingAgentWinsWhateverFitsFirst() {
+        // Both agents fit the training example but answer the test input differently
+        Grid input = Grid.fromList(List.of(List.of(1, 2), List.of(1, 2)));
+        Grid test = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        ArcPuzzle puzzle = new ArcPuzzle("ambiguous",
+            List.of(new ArcPuzzle.Example(input, GridTransforms.reflectHorizontal(input))), test, null);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            CountDownLatch lateFitted = new CountDownLatch(1);
+            NativeGridAgent early = new NativeGridAgent("Early", "Reflect once the later agent has fitted.",
+                NativeGridAgent.Shape.SAME, true, grid -> {
+                    try {
+                        lateFitted.await(1, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return GridTransforms.reflectHorizontal(grid);
+                });
+            NativeGridAgent late = new NativeGridAgent("Late", "Rotate half a turn.", NativeGridAgent.Shape.SAME,
+                true, grid -> {
+                    Grid rotated = GridTransforms.rotate180(grid);
+                    lateFitted.countDown();
+                    return rotated;
+                });
+            SolveResult result = new PuzzleSolver(null).solve(puzzle, List.of(early, late));
+            assertTrue(result.solved);
+            assertEquals("Early", result.agent);
+            assertEquals(GridTransforms.reflectHorizontal(test), result.prediction);
+        }
+    }
+
+    @Test
+    public void testUnsolvedPuzzleReportsBestPartialScore() {
+        Grid input = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        Grid output = Grid.fromList(List.of(List.of(2, 1), List.of(4, 9)));
+        ArcPuzzle puzzle = new ArcPuzzle("partial", List.of(new ArcPuzzle.Example(input, output)), input, null);
+        SolveResult result = new PuzzleSolver(null).solve(puzzle);
+        assertFalse(result.solved);
+        assertEquals("ReflectHorizontal", result.agent);
+        assertEquals(0.75, result.score);
+        assertNull(result.correct);
+        assertEquals(GridTransforms.reflectHorizontal(input), result.prediction);
+    }
+
+    @Test
+    public void testFailingAgentsAreRecorded() {
+        Grid input = Grid.fromList(List.of(List.of(1, 2, 3)));
+        ArcPuzzle puzzle = new ArcPuzzle("odd", List.of(new ArcPuzzle.Example(input, input)), input, input);
+        SolveResult result = new PuzzleSolver(null).solve(puzzle);
+        assertTrue(result.solved);
+        assertEquals(Boolean.TRUE, result.correct);
+        assertTrue(result.runs.stream().anyMatch(run -> "ScaleDown".equals(run.agent)
+            && (run.skipped || run.error != null)));
+    }
+
+    @Test
+    public void testAgentsRuledOutByFeaturesDoNotRun() {
+        Grid input = Grid.fromList(List.of(List.of(1, 2), List.of(3, 4)));
+        Grid output = GridTransforms.scaleUp(input, 2);
+        ArcPuzzle puzzle = new ArcPuzzle("scale", List.of(new ArcPuzzle.Example(input, output)), input, output);
+        SolveResult result = new PuzzleSolver(null).solve(puzzle);
+        assertTrue(result.solved);
+        for (SolveResult.AgentRun run : result.runs) {
+            boolean candidate = "ScaleUp".equals(run.agent) || "PatternReplication".equals(run.agent);
+            assertEquals(!candidate, run.filtered, run.agent);
+            assertTrue(!run.filtered || run.skipped, run.agent);
+        }
+    }
+
+    @Test
+    public void testSolveFallsBackToAgentChains() {
+        Grid first = Grid.fromList(List.of(List.of(1, 2, 3), List.of(4, 5, 6)));
+        Grid second = Grid.fromList(List.of(List.of(7, 0), List.of(0, 8), List.of(9, 1)));
+        GridTransform chain = GridTransforms::rotate90;
+        chain = chain.andThen(grid -> GridTransforms.scaleUp(grid, 2));
+        Grid test = Grid.fromList(List.of(List.of(3, 1), List.of(2, 2)));
+        ArcPuzzle puzzle = new ArcPuzzle("chain", List.of(new ArcPuzzle.Example(first, chain.apply(first)),
+            new ArcPuzzle.Example(second, chain.apply(second))), test, chain.apply(test));
+        SolveResult result = new PuzzleSolver(null).solve(puzzle);
+        assertTrue(result.solved);
+        assertEquals(2, result.agent.split(" > ").length, result.agent);
+        assertEquals(1.0, result.score);
+        assertEquals(Boolean.TRUE, result.correct);
+        assertFalse(result.runs.isEmpty());
+    }
+
+    @Test
+    public void testComposeRunsSharedTransformationsOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        Set<Grid> inputs = ConcurrentHashMap.newKeySet();
+        NativeGridAgent counted = new NativeGridAgent("Counted", "Rotate and count.", NativeGridAgent.Shape.TRANSPOSED,
+            true, grid -> {
+                calls.incrementAndGet();
+                inputs.add(grid);
+                return GridTransforms.rotate90(grid);
+            });
+        NativeGridAgent reflect = NativeGridAgents.get("ReflectHorizontal");
+        Grid input = Grid.fromList(List.of(List.of(1, 2, 3), List.of(4, 5, 6)));
+        Grid output = GridTransforms.reflectHorizontal(GridTransforms.rotate90(input));
+        ArcPuzzle.Example example = new ArcPuzzle.Example(input, output);
+        ArcPuzzle puzzle = new ArcPuzzle("shared", List.of(example, example), input, output);
+        SolveResult result = new PuzzleSolver(null).compose(puzzle, List.of(counted, reflect), 3, 4);
+        assertTrue(result.solved);
+        assertEquals("Counted > ReflectHorizontal", result.agent);
+        assertEquals(Boolean.TRUE, result.correct);
+        // Each distinct grid is rotated once, whichever example, chain or test input it came from
+        assertEquals(inputs.size(), calls.get());
+    }
+
+    @Test
+    public void testComposePrunesUnreachableTargets() {
+        AtomicInteger calls = new AtomicInteger();
+        NativeGridAgent counted = new NativeGridAgent("Counted", "Reflect and count.", NativeGridAgent.Shape.SAME,
+            true, grid -> {
+                calls.incrementAndGet();
+                return GridTransforms.reflectHorizontal(grid);
+            });
+        Grid input = Grid.fromList(List.of(List.of(1, 2, 3), List.of(4, 5, 6)));
+        Grid wider = Grid.fromList(List.of(List.of(1, 2, 3, 4), List.of(4, 5, 6, 7)));
+        ArcPuzzle puzzle = new ArcPuzzle("wider", List.of(new ArcPuzzle.Example(input, wider)), input, null);
+        SolveResult result = new PuzzleSolver(null).compose(puzzle, List.of(counted), 3, 4);
+        assertFalse(result.solved);
+        assertNull(result.agent);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void testSolvedVariantsComeFromTheCache() {
+        PuzzleSolver solver = new PuzzleSolver(null);
+        SolveResult first = solver.solve(transposePuzzle());
+        assertFalse(first.cached);
+
+        SolveResult again = solver.solve(transposePuzzle());
+        assertTrue(again.cached);
+        assertTrue(again.runs.isEmpty());
+        assertEquals(first.agent, again.agent);
+        assertEquals(first.prediction, again.prediction);
+
+        // The same puzzle rotated and recolored gets the rotated, recolored answer
+        byte[] colors = {0, 6, 5, 4, 3, 2, 1, 9, 8, 7, 10, 11, 12, 13, 14, 15};
+        GridTransform variant = grid -> GridTransforms.mapColors(GridTransforms.rotate90(grid), colors);
+        List<ArcPuzzle.Example> train = new ArrayList<>();
+        for (ArcPuzzle.Example example : transposePuzzle().getTrain()) {
+            train.add(new ArcPuzzle.Example(variant.apply(example.input), variant.apply(example.output)));
+        }
+        ArcPuzzle rotated = new ArcPuzzle("rotated", train, variant.apply(transposePuzzle().getTestInput()),
+            variant.apply(transposePuzzle().getTestOutput()));
+        SolveResult cached = solver.solve(rotated);
+        assertTrue(cached.cached);
+        assertTrue(cached.solved);
+        assertEquals(Boolean.TRUE, cached.correct);
     }
 }
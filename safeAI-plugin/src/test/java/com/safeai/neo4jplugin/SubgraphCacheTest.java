@@ -0,0 +1,52 @@
+package com.safeai.neo4jplugin;
+
+import com.safeai.neo4jplugin.graph_rag.Subgraph;
+import com.safeai.neo4jplugin.graph_rag.SubgraphCache;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GraphRAG subgraph cache and context rendering.
+ */
+public class SubgraphCacheTest {
+
+    private static Subgraph subgraph(String name) {
+        return new Subgraph(List.of(new Subgraph.ContextNode("1", List.of("Agent"),
+            Map.of("name", name, "description", "Rotates grids"), 0, 1.0)), List.of());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        SubgraphCache cache = new SubgraphCache(2, 60000);
+        cache.put("db|a", subgraph("A"));
+        cache.put("db|b", subgraph("B"));
+        assertNotNull(cache.get("db|a"));
+        cache.put("db|c", subgraph("C"));
+        assertNull(cache.get("db|b"));
+        assertNotNull(cache.get("db|a"));
+        assertNotNull(cache.get("db|c"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testExpiryAndInvalidation() {
+        SubgraphCache expired = new SubgraphCache(10, 0);
+        expired.put("db|a", subgraph("A"));
+        assertNull(expired.get("db|a"));
+
+        SubgraphCache cache = new SubgraphCache(10, 60000);
+        cache.put("db1|a", subgraph("A"));
+        cache.put("db2|a", subgraph("A"));
+        cache.invalidate("db1|");
+        assertNull(cache.get("db1|a"));
+        assertNotNull(cache.get("db2|a"));
+    }
+
+    @Test
+    public void testContextText() {
+        assertEquals("Agent Rotate90: Rotates grids\n", subgraph("Rotate90").toContextText(5));
+    }
+}
@@ -0,0 +1,266 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GraphRAG's agent store and retrieval helpers.
+ */
+public class GraphRAGTest {
+
+    @Test
+    public void testAgentRow() {
+        JSONObject agent = new JSONObject("{\"name\": \"Rotate\", \"kgName\": \"ARC\", \"priority\": 2," +
+            "\"capabilities\": [\"rotation\", \"grid\"], \"config\": {\"turns\": 1}, \"tags\": [\"a\", \"b\"]," +
+            "\"comment\": null}");
+        Map<String, Object> row = GraphRAG.agentRow(agent);
+        assertEquals("Rotate", row.get("name"));
+        assertEquals("ARC", row.get("kgName"));
+        assertEquals(List.of("rotation", "grid"), row.get("capabilities"));
+        Map<?, ?> props = (Map<?, ?>) row.get("props");
+        assertEquals("{\"turns\":1}", props.get("config"));
+        assertEquals(List.of("a", "b"), props.get("tags"));
+        assertFalse(props.containsKey("capabilities"));
+        assertFalse(props.containsKey("comment"));
+        assertNull(GraphRAG.agentRow(new JSONObject("{\"name\": \"Rotate\"}")).get("kgName"));
+    }
+
+    @Test
+    public void testDefinitionHashIgnoresKeyAndCapabilityOrder() {
+        Map<String, Object> first = GraphRAG.agentRow(new JSONObject(
+            "{\"name\": \"Rotate\", \"priority\": 2, \"capabilities\": [\"rotation\", \"grid\"]}"));
+        Map<String, Object> second = GraphRAG.agentRow(new JSONObject(
+            "{\"priority\": 2, \"capabilities\": [\"grid\", \"rotation\"], \"name\": \"Rotate\"}"));
+        assertEquals(first.get("hash"), second.get("hash"));
+
+        Map<String, Object> changed = GraphRAG.agentRow(new JSONObject(
+            "{\"name\": \"Rotate\", \"priority\": 3, \"capabilities\": [\"rotation\", \"grid\"]}"));
+        assertNotEquals(first.get("hash"), changed.get("hash"));
+        Map<String, Object> fewer = GraphRAG.agentRow(new JSONObject(
+            "{\"name\": \"Rotate\", \"priority\": 2, \"capabilities\": [\"rotation\"]}"));
+        assertNotEquals(first.get("hash"), fewer.get("hash"));
+    }
+
+    @Test
+    public void testDuplicateDefinitionsLastWins() {
+        RecordingBackend backend = new RecordingBackend();
+        backend.graphRag().storeAgentDefinitions(List.of(
+            new JSONObject("{\"name\": \"Rotate\", \"priority\": 1}"),
+            new JSONObject("{\"name\": \"Rotate\", \"kgName\": \"ARC\", \"priority\": 2}"),
+            new JSONObject("{\"name\": \"Rotate\", \"priority\": 3}")));
+        List<RecordingBackend.Write> byName = backend.writes(GraphRAG.STORE_AGENTS_BY_NAME);
+        assertEquals(1, byName.size());
+        List<?> agents = (List<?>) byName.get(0).params.get("agents");
+        assertEquals(1, agents.size());
+        assertEquals(3, ((Map<?, ?>) ((Map<?, ?>) agents.get(0)).get("props")).get("priority"));
+        // The same name in a KG is a different agent
+        List<RecordingBackend.Write> byKG = backend.writes(GraphRAG.STORE_KG_AGENTS);
+        assertEquals(1, ((List<?>) byKG.get(0).params.get("agents")).size());
+    }
+
+    @Test
+    public void testStoreCountsAddUpAcrossStatements() {
+        RecordingBackend backend = new RecordingBackend((query, params) -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            if (query.equals(GraphRAG.STORE_AGENTS_BY_NAME)) {
+                rows.add(Map.of("status", "created", "count", 1L));
+                rows.add(Map.of("status", "unchanged", "count", 2L));
+            } else if (query.equals(GraphRAG.STORE_KG_AGENTS)) {
+                rows.add(Map.of("status", "updated", "count", 1L));
+                rows.add(Map.of("status", "created", "count", 1L));
+            }
+            return rows;
+        });
+        GraphRAG.StoreCounts counts = backend.graphRag().storeAgentDefinitions(List.of(
+            new JSONObject("{\"name\": \"A\"}"), new JSONObject("{\"name\": \"B\"}"),
+            new JSONObject("{\"name\": \"C\"}"), new JSONObject("{\"name\": \"D\", \"kgName\": \"KG\"}"),
+            new JSONObject("{\"name\": \"E\", \"kgName\": \"KG\"}")));
+        assertEquals(2, counts.created);
+        assertEquals(1, counts.updated);
+        assertEquals(2, counts.unchanged);
+    }
+
+    @Test
+    public void testChangedDefinitionsReplacePropertiesAndCapabilities() {
+        for (String statement : List.of(GraphRAG.STORE_AGENTS_BY_NAME, GraphRAG.STORE_KG_AGENTS)) {
+            assertTrue(statement.contains("SET a = agent.props"), statement);
+            assertFalse(statement.contains("SET a += agent.props"), statement);
+            for (String kept : List.of(".name", ".kgName", ".created_at", ".usageCount", ".executionCount")) {
+                assertTrue(statement.contains(kept), kept);
+            }
+            assertTrue(statement.contains("a.definitionHash = agent.hash"), statement);
+            assertTrue(statement.contains("WHERE NOT old.name IN agent.capabilities"), statement);
+            assertTrue(statement.contains("DELETE stale"), statement);
+        }
+    }
+
+    @Test
+    public void testKGAgentsLinkCapabilitiesOfTheirOwnKG() {
+        String byKG = GraphRAG.STORE_KG_AGENTS;
+        assertTrue(byKG.contains("MERGE (kg:KnowledgeGraph {name: agent.kgName}) " +
+            "MERGE (kg)-[:HAS_CAPABILITY]->(c:Capability {name: capability}) MERGE (a)-[:HAS_CAPABILITY]->(c)"), byKG);
+        assertTrue(byKG.contains("WHERE NOT old.name IN agent.capabilities " +
+            "OR NOT EXISTS { (:KnowledgeGraph {name: agent.kgName})-[:HAS_CAPABILITY]->(old) }"), byKG);
+        assertFalse(byKG.contains("MERGE (c:Capability {name: capability})"), byKG);
+
+        // Agents outside any KG share capabilities by name
+        String byName = GraphRAG.STORE_AGENTS_BY_NAME;
+        assertTrue(byName.contains("MERGE (c:Capability {name: capability}) MERGE (a)-[:HAS_CAPABILITY]->(c)"), byName);
+        assertFalse(byName.contains("KnowledgeGraph"), byName);
+    }
+
+    @Test
+    public void testTerms() {
+        assertEquals(List.of("rotate", "grids", "twice"), GraphRAG.terms("Rotate 90 grids, ROTATE twice!"));
+        assertEquals(List.of("ünïcode", "façade"), GraphRAG.terms("Ünïcode/façade"));
+        assertEquals(List.of(), GraphRAG.terms("a kg, of 42"));
+    }
+
+    /**
+     * The Ethics KG with two agents sharing a capability; Auditor is used more and always succeeds.
+     */
+    private static RecordingBackend ethicsGraph(List<List<String>> expansions) {
+        Map<String, Map<String, Object>> nodes = new HashMap<>();
+        nodes.put("kg", node("KnowledgeGraph", Map.of("name", "Ethics")));
+        nodes.put("auditor", node("Agent", Map.of("name", "Auditor", "usageCount", 10L, "successCount", 10L)));
+        nodes.put("reviewer", node("Agent", Map.of("name", "Reviewer")));
+        nodes.put("audit", node("Capability", Map.of("name", "Audit")));
+        List<String[]> edges = List.of(new String[] { "kg", "HAS_AGENT", "auditor" },
+            new String[] { "kg", "HAS_AGENT", "reviewer" },
+            new String[] { "auditor", "HAS_CAPABILITY", "audit" },
+            new String[] { "reviewer", "HAS_CAPABILITY", "audit" });
+        return new RecordingBackend((query, params) -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            if (query.equals(GraphRAG.SEEDS_BY_NAME)) {
+                for (Map.Entry<String, Map<String, Object>> node : nodes.entrySet()) {
+                    Map<?, ?> props = (Map<?, ?>) node.getValue().get("props");
+                    if (((List<?>) params.get("names")).contains(props.get("name"))) {
+                        rows.add(row(node.getKey(), node.getValue()));
+                    }
+                }
+            } else if (query.equals(GraphRAG.SEEDS_BY_TERMS)) {
+                Map<String, Object> seed = row("auditor", nodes.get("auditor"));
+                seed.put("hits", 2L);
+                rows.add(seed);
+            } else if (query.equals(GraphRAG.EXPAND)) {
+                List<?> frontier = (List<?>) params.get("frontier");
+                List<?> visited = (List<?>) params.get("visited");
+                expansions.add(frontier.stream().map(Object::toString).collect(Collectors.toList()));
+                for (Object source : frontier) {
+                    List<Map<String, Object>> neighbours = new ArrayList<>();
+                    for (String[] edge : edges) {
+                        boolean outgoing = edge[0].equals(source);
+                        String other = outgoing ? edge[2] : edge[0];
+                        if ((outgoing || edge[2].equals(source)) && !visited.contains(other)) {
+                            Map<String, Object> neighbour = row(other, nodes.get(other));
+                            neighbour.put("sourceId", source);
+                            neighbour.put("type", edge[1]);
+                            neighbour.put("outgoing", outgoing);
+                            neighbours.add(neighbour);
+                        }
+                    }
+                    neighbours.sort(Comparator.comparingLong(neighbour -> -usage(neighbour)));
+                    rows.addAll(neighbours.subList(0,
+                        Math.min(neighbours.size(), ((Number) params.get("fanout")).intValue())));
+                }
+            }
+            return rows;
+        });
+    }
+
+    private static Map<String, Object> node(String label, Map<String, Object> props) {
+        return Map.of("labels", List.of(label), "props", props);
+    }
+
+    private static Map<String, Object> row(String id, Map<String, Object> node) {
+        Map<String, Object> row = new HashMap<>(node);
+        row.put("id", id);
+        return row;
+    }
+
+    private static long usage(Map<String, Object> row) {
+        Object usage = ((Map<?, ?>) row.get("props")).get("usageCount");
+        return usage == null ? 0 : ((Number) usage).longValue();
+    }
+
+    private static Map<String, Subgraph.ContextNode> byId(Subgraph subgraph) {
+        Map<String, Subgraph.ContextNode> nodes = new HashMap<>();
+        for (Subgraph.ContextNode node : subgraph.getNodes()) {
+            nodes.put(node.getId(), node);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testExpandScoresNodesByHowTheyConnectToSeeds() {
+        List<List<String>> expansions = new ArrayList<>();
+        Subgraph subgraph = ethicsGraph(expansions).graphRag().retrieve(List.of("Ethics"), 2, 25);
+        assertEquals(List.of(List.of("kg"), List.of("auditor", "reviewer")), expansions);
+        assertEquals(List.of("Ethics", "Auditor", "Reviewer", "Audit"),
+            subgraph.getNodes().stream().map(Subgraph.ContextNode::getName).collect(Collectors.toList()));
+
+        Map<String, Subgraph.ContextNode> nodes = byId(subgraph);
+        assertEquals(1.0, nodes.get("kg").getScore(), 1e-9);
+        // Half the seed's score, raised by half for an agent that always succeeds
+        assertEquals(0.75, nodes.get("auditor").getScore(), 1e-9);
+        assertEquals(0.5, nodes.get("reviewer").getScore(), 1e-9);
+        // A quarter from each agent; it ranks after Reviewer by depth
+        assertEquals(0.5, nodes.get("audit").getScore(), 1e-9);
+        assertEquals(2, nodes.get("audit").getDepth());
+
+        List<String> edges = subgraph.getEdges().stream()
+            .map(edge -> edge.getSource() + "-" + edge.getType() + "->" + edge.getTarget())
+            .sorted().collect(Collectors.toList());
+        assertEquals(List.of("auditor-HAS_CAPABILITY->audit", "kg-HAS_AGENT->auditor", "kg-HAS_AGENT->reviewer",
+            "reviewer-HAS_CAPABILITY->audit"), edges);
+    }
+
+    @Test
+    public void testExpandRespectsDepthAndFanout() {
+        List<List<String>> expansions = new ArrayList<>();
+        RecordingBackend backend = ethicsGraph(expansions);
+        Subgraph shallow = backend.graphRag().retrieve(List.of("Ethics"), 1, 25);
+        assertEquals(3, shallow.getNodes().size());
+        assertEquals(1, expansions.size());
+
+        // The most used neighbour comes first when only one is taken per node
+        Subgraph narrow = backend.graphRag().retrieve(List.of("Ethics"), 1, 1);
+        assertEquals(List.of("kg", "auditor"),
+            narrow.getNodes().stream().map(Subgraph.ContextNode::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testExpandStopsAtMaxNodes() {
+        System.setProperty("graphrag.max.nodes", "2");
+        try {
+            Subgraph subgraph = ethicsGraph(new ArrayList<>()).graphRag().retrieve(List.of("Ethics"), 2, 25);
+            assertEquals(2, subgraph.getNodes().size());
+            assertTrue(byId(subgraph).containsKey("kg"));
+        } finally {
+            System.clearProperty("graphrag.max.nodes");
+        }
+    }
+
+    @Test
+    public void testSearchScoresSeedsByTermHits() {
+        List<List<String>> expansions = new ArrayList<>();
+        RecordingBackend backend = ethicsGraph(expansions);
+        Subgraph subgraph = backend.graphRag().search("Audit the Ethics KG", 5);
+        Map<String, Subgraph.ContextNode> nodes = byId(subgraph);
+        // Two of the three terms (audit, the, ethics) matched, raised by half for its success rate
+        assertEquals(2.0 / 3 * 1.5, nodes.get("auditor").getScore(), 1e-9);
+        assertEquals(0, nodes.get("auditor").getDepth());
+        assertEquals(List.of("auditor"), expansions.get(0));
+
+        expansions.clear();
+        assertTrue(backend.graphRag().search("a kg", 5).isEmpty());
+        assertTrue(expansions.isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package com.safeai.neo4jplugin.graph_rag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import com.safeai.neo4jplugin.kg.KGWriter;
+
+/**
+ * A GraphBackend for tests: reads are answered by a function of the query and parameters, and
+ * writes are recorded instead of run.
+ */
+public class RecordingBackend implements GraphBackend {
+    public static final String RECORD_RUNS = GraphRAG.RECORD_RUNS;
+    public static final String RECORD_USAGE = GraphRAG.RECORD_USAGE;
+    public static final String RECORD_EXECUTION = GraphRAG.RECORD_EXECUTION;
+
+    /**
+     * A statement written through the backend.
+     */
+    public static final class Write {
+        public final String query;
+        public final Map<String, Object> params;
+
+        Write(String query, Map<String, Object> params) {
+            this.query = query;
+            // Callers may reuse their parameter lists once the write returns
+            this.params = new HashMap<>();
+            params.forEach((key, value) -> this.params.put(key,
+                value instanceof List ? new ArrayList<>((List<?>) value) : value));
+        }
+    }
+
+    private final BiFunction<String, Map<String, Object>, List<Map<String, Object>>> reads;
+    private final List<Write> writes = Collections.synchronizedList(new ArrayList<>());
+
+    public RecordingBackend() {
+        this((query, params) -> List.of());
+    }
+
+    public RecordingBackend(BiFunction<String, Map<String, Object>, List<Map<String, Object>>> reads) {
+        this.reads = reads;
+    }
+
+    /**
+     * A GraphRAG on this backend.
+     */
+    public GraphRAG graphRag() {
+        return new GraphRAG(this);
+    }
+
+    /**
+     * The recorded writes of {@code query}, in order.
+     */
+    public List<Write> writes(String query) {
+        List<Write> matching = new ArrayList<>();
+        synchronized (writes) {
+            for (Write write : writes) {
+                if (write.query.equals(query)) {
+                    matching.add(write);
+                }
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public String id() {
+        return "recording:" + System.identityHashCode(this);
+    }
+
+    @Override
+    public List<Map<String, Object>> read(String query, Map<String, Object> params) {
+        return reads.apply(query, params);
+    }
+
+    @Override
+    public void write(Consumer<KGWriter.StatementRunner> work) {
+        work.accept((query, params) -> writes.add(new Write(query, params)));
+    }
+
+    @Override
+    public List<Map<String, Object>> write(String query, Map<String, Object> params) {
+        writes.add(new Write(query, params));
+        return reads.apply(query, params);
+    }
+
+    @Override
+    public void close() {
+    }
+}
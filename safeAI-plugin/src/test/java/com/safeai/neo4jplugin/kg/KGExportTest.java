@@ -0,0 +1,106 @@
+package com.safeai.neo4jplugin.kg;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KGExporter path resolution and the NDJSON lines KGImporter reads back.
+ */
+public class KGExportTest {
+    @TempDir
+    Path exportDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("kg.export.dir", exportDir.toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty("kg.export.dir");
+    }
+
+    @Test
+    public void testResolveStaysInsideExportDir() {
+        Path base = exportDir.toAbsolutePath().normalize();
+        assertEquals(base.resolve("Ethics.ndjson"), KGExporter.resolve("Ethics.ndjson"));
+        assertEquals(base.resolve("nested/Ethics.ndjson.gz"), KGExporter.resolve("nested/./Ethics.ndjson.gz"));
+        assertEquals(base.resolve("Ethics.ndjson"), KGExporter.resolve(base.resolve("Ethics.ndjson").toString()));
+    }
+
+    @Test
+    public void testResolveRejectsPathsOutsideExportDir() {
+        assertThrows(IllegalArgumentException.class, () -> KGExporter.resolve("../Ethics.ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> KGExporter.resolve("nested/../../Ethics.ndjson"));
+        assertThrows(IllegalArgumentException.class,
+            () -> KGExporter.resolve(exportDir.getParent().resolve("Ethics.ndjson").toString()));
+        assertThrows(IllegalArgumentException.class, () -> KGExporter.resolve("/etc/passwd"));
+    }
+
+    @Test
+    public void testNodeLineRoundTrip() {
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("name", "EthicsAgent");
+        props.put("kgName", "Ethics");
+        props.put("priority", 3L);
+        props.put("enabled", true);
+        props.put("created_at", ZonedDateTime.parse("2024-05-01T12:30:00Z"));
+        props.put("reviewed", LocalDate.parse("2024-06-01"));
+        props.put("tags", new String[] { "fairness", "privacy" });
+
+        JSONObject line = new JSONObject(KGExporter.nodeLine("Ethics", List.of("Agent", "Reviewed"), props).toString());
+        assertEquals("EthicsAgent", line.getJSONObject("key").getString("name"));
+        assertEquals("Ethics", line.getJSONObject("key").getString("kgName"));
+
+        Map<String, Object> decoded = KGImporter.decodeProperties(line.getJSONObject("properties"),
+            line.optJSONObject("types"));
+        assertEquals("EthicsAgent", decoded.get("name"));
+        assertEquals(3, ((Number) decoded.get("priority")).intValue());
+        assertEquals(true, decoded.get("enabled"));
+        assertEquals(props.get("created_at"), decoded.get("created_at"));
+        assertEquals(props.get("reviewed"), decoded.get("reviewed"));
+        assertEquals(List.of("fairness", "privacy"), decoded.get("tags"));
+
+        String statement = KGImporter.nodeStatement(line);
+        assertTrue(statement.contains("MERGE (n:`Agent` {`name`: row.key.`name`, `kgName`: row.key.`kgName`})"),
+            statement);
+        assertTrue(statement.contains("SET n:`Reviewed`"), statement);
+        assertFalse(statement.contains("SET n:`Agent`"), statement);
+    }
+
+    @Test
+    public void testCapabilitiesSharedByTwoKGsKeepTheirOwner() {
+        JSONObject ethics = KGExporter.nodeLine("Ethics", List.of("Capability"), Map.of("name", "Audit"));
+        JSONObject safety = KGExporter.nodeLine("Safety", List.of("Capability"), Map.of("name", "Audit"));
+        assertEquals("Ethics", ethics.getJSONObject("key").getString("kgName"));
+        assertEquals("Safety", safety.getJSONObject("key").getString("kgName"));
+        assertEquals("Audit", safety.getJSONObject("key").getString("name"));
+
+        // Both lines go through the same statement, which merges the capability under its own KG
+        String statement = KGImporter.nodeStatement(ethics);
+        assertEquals(statement, KGImporter.nodeStatement(safety));
+        assertEquals("UNWIND $rows AS row MERGE (kg:`KnowledgeGraph` {`name`: row.key.`kgName`}) " +
+            "MERGE (kg)-[:`HAS_CAPABILITY`]->(n:`Capability` {`name`: row.key.`name`}) SET n += row.properties",
+            statement);
+
+        JSONObject link = KGExporter.relationshipLine("Safety", "HAS_CAPABILITY",
+            List.of("Agent"), Map.of("name", "SafetyAgent", "kgName", "Safety"),
+            List.of("Capability"), Map.of("name", "Audit"), Map.of());
+        assertEquals("Safety", link.getJSONObject("end").getJSONObject("key").getString("kgName"));
+        String linkStatement = KGImporter.relationshipStatement(link);
+        assertTrue(linkStatement.contains("MATCH (a:`Agent` {`name`: row.start.`name`, `kgName`: row.start.`kgName`})"),
+            linkStatement);
+        assertTrue(linkStatement.contains("MATCH (:`KnowledgeGraph` {`name`: row.end.`kgName`})" +
+            "-[:`HAS_CAPABILITY`]->(b:`Capability` {`name`: row.end.`name`})"), linkStatement);
+    }
+}
@@ -0,0 +1,232 @@
+package com.safeai.neo4jplugin.kg;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KGLoadJob batching, checkpointing, cleaning and resume.
+ */
+public class KGLoadJobTest {
+
+    /**
+     * A database that records the statements of committed transactions and can be told to fail
+     * a statement.
+     */
+    private static final class FakeDatabase {
+        final List<List<String>> committed = new ArrayList<>();
+        final List<Map<String, Object>> checkpoints = new ArrayList<>();
+        final List<Object> mergedRows = new ArrayList<>();
+        final List<Map<String, Object>> cleanParams = new ArrayList<>();
+        // Nodes each clean statement deletes per call, until the list runs out
+        final Map<String, Deque<Long>> deletions = new HashMap<>();
+        BiPredicate<String, Map<String, Object>> failOn = (statement, params) -> false;
+
+        GraphDatabaseService service() {
+            return (GraphDatabaseService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { GraphDatabaseService.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("beginTx")) {
+                        return transaction();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        @SuppressWarnings("unchecked")
+        private Transaction transaction() {
+            List<String> statements = new ArrayList<>();
+            List<Map<String, Object>> pendingCheckpoints = new ArrayList<>();
+            List<Object> pendingRows = new ArrayList<>();
+            return (Transaction) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { Transaction.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "execute":
+                            String statement = (String) args[0];
+                            Map<String, Object> params = (Map<String, Object>) args[1];
+                            if (failOn.test(statement, params)) {
+                                throw new IllegalStateException("Simulated failure");
+                            }
+                            statements.add(statement);
+                            if (statement.equals(KGLoadJob.CLEAN_MEMBERS_BATCH)
+                                    || statement.equals(KGLoadJob.CLEAN_KGS_BATCH)) {
+                                cleanParams.add(params);
+                                Deque<Long> counts = deletions.get(statement);
+                                long deleted = counts == null || counts.isEmpty() ? 0L : counts.poll();
+                                return result(Map.of("deleted", deleted));
+                            } else if (statement.equals(KGLoadJob.CHECKPOINT)) {
+                                pendingCheckpoints.add(params);
+                            } else if (params.containsKey("rows")) {
+                                pendingRows.addAll((List<Object>) params.get("rows"));
+                            }
+                            return null;
+                        case "commit":
+                            committed.add(statements);
+                            checkpoints.addAll(pendingCheckpoints);
+                            mergedRows.addAll(pendingRows);
+                            return null;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+    }
+
+    private static Result result(Map<String, Object> row) {
+        return (Result) Proxy.newProxyInstance(KGLoadJobTest.class.getClassLoader(), new Class<?>[] { Result.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("next")) {
+                    return row;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static KGDocument document(String name, int agents) {
+        List<Map<String, Object>> capabilities = List.of(Map.of("name", "Audit"));
+        List<Map<String, Object>> agentRows = new ArrayList<>();
+        List<Map<String, Object>> links = new ArrayList<>();
+        for (int i = 0; i < agents; i++) {
+            agentRows.add(Map.of("name", "Agent" + i, "kgName", name));
+            links.add(KGDocument.capabilityLink("Agent" + i, "Audit"));
+        }
+        return new KGDocument(name, name + " KG", name + "_KG.json", "hash-" + name, 100, capabilities,
+            agentRows, links, List.of());
+    }
+
+    private static KGLoadJob job(FakeDatabase db, List<KGDocument> documents, int kgIndex, int offset,
+                                 long processed) {
+        return new KGLoadJob(db.service(), "job-1", documents, 3, false, false, kgIndex, offset, processed);
+    }
+
+    @Test
+    public void testCleanDeletesOnlyTheJobsKGsMembersFirst() {
+        FakeDatabase db = new FakeDatabase();
+        db.deletions.put(KGLoadJob.CLEAN_MEMBERS_BATCH, new ArrayDeque<>(List.of(3L, 2L)));
+        db.deletions.put(KGLoadJob.CLEAN_KGS_BATCH, new ArrayDeque<>(List.of(2L)));
+        List<KGDocument> documents = List.of(document("Ethics", 1), document("Safety", 1));
+        KGLoadJob job = new KGLoadJob(db.service(), "job-1", documents, 3, true, false, 0, 0, 0);
+        job.run();
+        assertEquals(KGLoadJob.Status.COMPLETED, job.getStatus(), job.getError());
+
+        List<String> cleans = new ArrayList<>();
+        for (List<String> statements : db.committed) {
+            for (String statement : statements) {
+                if (statement.equals(KGLoadJob.CLEAN_MEMBERS_BATCH) || statement.equals(KGLoadJob.CLEAN_KGS_BATCH)) {
+                    cleans.add(statement);
+                }
+            }
+        }
+        // Batches run until one deletes nothing, members before the KGs that own them
+        assertEquals(List.of(KGLoadJob.CLEAN_MEMBERS_BATCH, KGLoadJob.CLEAN_MEMBERS_BATCH,
+            KGLoadJob.CLEAN_MEMBERS_BATCH, KGLoadJob.CLEAN_KGS_BATCH, KGLoadJob.CLEAN_KGS_BATCH), cleans);
+        for (Map<String, Object> params : db.cleanParams) {
+            assertEquals(List.of("Ethics", "Safety"), params.get("names"));
+            assertEquals(3L, params.get("limit"));
+        }
+        for (String statement : List.of(KGLoadJob.CLEAN_MEMBERS_BATCH, KGLoadJob.CLEAN_KGS_BATCH)) {
+            assertTrue(statement.contains("WHERE kg.name IN $names"), statement);
+            assertTrue(statement.contains("LIMIT $limit"), statement);
+        }
+    }
+
+    @Test
+    public void testFinishedJobsAreDropped() throws InterruptedException {
+        FakeDatabase db = new FakeDatabase();
+        KGLoadJob job = new KGLoadJob(db.service(), "job-finished", List.of(document("Ethics", 1)), 3, false, false,
+            0, 0, 0);
+        KGLoadJobs.schedule(job);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (KGLoadJobs.get("job-finished") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(KGLoadJobs.get("job-finished"));
+        assertEquals(KGLoadJob.Status.COMPLETED, job.getStatus(), job.getError());
+    }
+
+    @Test
+    public void testEachBatchCommitsWithItsCheckpoint() {
+        FakeDatabase db = new FakeDatabase();
+        List<KGDocument> documents = List.of(document("Ethics", 4), document("Safety", 1));
+        KGLoadJob job = job(db, documents, 0, 0, 0);
+        assertEquals(10 + 4, job.getTotal());
+        job.run();
+        assertEquals(KGLoadJob.Status.COMPLETED, job.getStatus(), job.getError());
+        assertEquals(job.getTotal(), job.getProcessed());
+        assertEquals(job.getTotal(), db.mergedRows.size());
+
+        // Ethics has 10 entities, Safety 4: batches of 3 end at these offsets
+        List<String> expected = List.of("0:3", "0:6", "0:9", "0:10", "1:3", "1:4");
+        List<String> offsets = new ArrayList<>();
+        long processed = 0;
+        for (Map<String, Object> checkpoint : db.checkpoints) {
+            offsets.add(checkpoint.get("kgIndex") + ":" + checkpoint.get("offset"));
+            assertTrue(((Number) checkpoint.get("processed")).longValue() > processed);
+            processed = ((Number) checkpoint.get("processed")).longValue();
+        }
+        assertEquals(expected, offsets);
+        for (List<String> statements : db.committed) {
+            boolean merges = statements.stream().anyMatch(statement -> statement.contains("MERGE"));
+            boolean checkpoints = statements.contains(KGLoadJob.CHECKPOINT);
+            assertEquals(merges, checkpoints, statements.toString());
+        }
+    }
+
+    @Test
+    public void testResumeStartsAfterTheLastCheckpoint() {
+        FakeDatabase db = new FakeDatabase();
+        List<KGDocument> documents = List.of(document("Ethics", 4), document("Safety", 1));
+        KGLoadJob job = job(db, documents, 0, 9, 9);
+        job.run();
+        assertEquals(KGLoadJob.Status.COMPLETED, job.getStatus(), job.getError());
+        assertEquals(job.getTotal(), job.getProcessed());
+        // The last capability link of Ethics, then all of Safety
+        assertEquals(1 + 4, db.mergedRows.size());
+        assertEquals(KGDocument.capabilityLink("Agent3", "Audit"), db.mergedRows.get(0));
+    }
+
+    @Test
+    public void testFailedJobResumesFromItsLastCommittedBatch() {
+        FakeDatabase db = new FakeDatabase();
+        List<KGDocument> documents = List.of(document("Ethics", 4));
+        db.failOn = (statement, params) -> statement.equals(KGWriter.MERGE_CAPABILITY_LINKS);
+        KGLoadJob failed = job(db, documents, 0, 0, 0);
+        failed.run();
+        assertEquals(KGLoadJob.Status.FAILED, failed.getStatus());
+        assertNotNull(failed.getError());
+        Map<String, Object> last = db.checkpoints.get(db.checkpoints.size() - 1);
+        // The KG, its capability and its agents fill the first two batches; the links fail
+        assertEquals(6, last.get("offset"));
+        int committedRows = db.mergedRows.size();
+
+        db.failOn = (statement, params) -> false;
+        KGLoadJob resumed = job(db, documents, (Integer) last.get("kgIndex"), (Integer) last.get("offset"),
+            ((Number) last.get("processed")).longValue());
+        resumed.run();
+        assertEquals(KGLoadJob.Status.COMPLETED, resumed.getStatus(), resumed.getError());
+        assertEquals(resumed.getTotal(), resumed.getProcessed());
+        // Nothing of the failed batch was committed, so every entity is written exactly once
+        assertEquals(resumed.getTotal(), db.mergedRows.size());
+        assertEquals(6, committedRows);
+    }
+
+    @Test
+    public void testCapabilitiesMergeWithinTheirKG() {
+        assertTrue(KGWriter.MERGE_CAPABILITIES.contains(
+            "MERGE (kg)-[:HAS_CAPABILITY]->(c:Capability {name: props.name})"), KGWriter.MERGE_CAPABILITIES);
+        for (String link : List.of(KGWriter.LINK_CAPABILITIES, KGWriter.MERGE_CAPABILITY_LINKS)) {
+            assertTrue(link.contains("(kg)-[:HAS_CAPABILITY]->(c:Capability {name: link.capability})"), link);
+        }
+    }
+}
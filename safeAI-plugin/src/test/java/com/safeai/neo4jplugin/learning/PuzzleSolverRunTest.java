@@ -0,0 +1,56 @@
+package com.safeai.neo4jplugin.learning;
+
+import com.safeai.neo4jplugin.grid.Grid;
+import com.safeai.neo4jplugin.grid.GridTransforms;
+import com.safeai.neo4jplugin.specialized_agents.NativeGridAgents;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-agent step of PuzzleSolver.
+ */
+public class PuzzleSolverRunTest {
+    private static ArcPuzzle reflectPuzzle() {
+        Grid first = Grid.fromList(List.of(List.of(1, 2), List.of(1, 2)));
+        Grid second = Grid.fromList(List.of(List.of(3, 4, 5)));
+        return new ArcPuzzle("reflect", List.of(
+            new ArcPuzzle.Example(first, GridTransforms.reflectHorizontal(first)),
+            new ArcPuzzle.Example(second, GridTransforms.reflectHorizontal(second))), first, null);
+    }
+
+    @Test
+    public void testAgentsBeforeTheFirstFitStillRun() {
+        AtomicInteger firstFit = new AtomicInteger(5);
+        SolveResult.AgentRun run = PuzzleSolver.run(NativeGridAgents.get("ReflectHorizontal"), 2, reflectPuzzle(),
+            firstFit);
+        assertFalse(run.skipped);
+        assertTrue(run.fits);
+        assertEquals(2, firstFit.get());
+    }
+
+    @Test
+    public void testAgentsAfterTheFirstFitAreSkipped() {
+        AtomicInteger firstFit = new AtomicInteger(2);
+        SolveResult.AgentRun run = PuzzleSolver.run(NativeGridAgents.get("ReflectHorizontal"), 5, reflectPuzzle(),
+            firstFit);
+        assertTrue(run.skipped);
+        assertEquals(2, firstFit.get());
+    }
+
+    @Test
+    public void testLaterFitDoesNotReplaceEarlierOne() {
+        AtomicInteger firstFit = new AtomicInteger(Integer.MAX_VALUE);
+        PuzzleSolver.run(NativeGridAgents.get("ReflectHorizontal"), 3, reflectPuzzle(), firstFit);
+        assertEquals(3, firstFit.get());
+        // An earlier agent that misses an example is not abandoned on account of a later fit
+        SolveResult.AgentRun miss = PuzzleSolver.run(NativeGridAgents.get("ReflectVertical"), 1, reflectPuzzle(),
+            firstFit);
+        assertFalse(miss.skipped);
+        assertFalse(miss.fits);
+        // Misses the first example and matches the middle cell of the second
+        assertEquals(1.0 / 6, miss.score, 1e-9);
+        assertEquals(3, firstFit.get());
+    }
+}